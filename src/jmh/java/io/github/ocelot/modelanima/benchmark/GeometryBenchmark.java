@@ -0,0 +1,63 @@
+package io.github.ocelot.modelanima.benchmark;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import io.github.ocelot.modelanima.RecordingVertexConsumer;
+import io.github.ocelot.modelanima.RenderHarness;
+import io.github.ocelot.modelanima.api.client.animation.AnimatedModel;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.animation.AnimationParser;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
+import io.github.ocelot.molangcompiler.api.MolangRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sampling animations onto a model and rendering its bones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int bones;
+
+    private GeometryModel model;
+    private AnimationData[] animations;
+    private MolangRuntime.Builder runtime;
+    private PoseStack matrixStack;
+    private RecordingVertexConsumer consumer;
+    private float time;
+
+    @Setup
+    public void setup()
+    {
+        this.model = GeometryModelParser.parseModel(SyntheticRig.geometry(this.bones))[0].create();
+        this.animations = AnimationParser.parse(SyntheticRig.animation(this.bones));
+        this.runtime = MolangRuntime.runtime();
+        this.matrixStack = new PoseStack();
+        this.consumer = new RecordingVertexConsumer();
+        this.time = 0;
+    }
+
+    @Benchmark
+    public GeometryModel applyAnimations()
+    {
+        this.time += 0.05F;
+        this.model.resetTransformation();
+        ((AnimatedModel) this.model).applyAnimations(this.time, this.runtime, this.animations);
+        return this.model;
+    }
+
+    @Benchmark
+    public int render()
+    {
+        RenderHarness.render(this.model, this.matrixStack, this.consumer);
+        return this.consumer.getChecksum();
+    }
+}
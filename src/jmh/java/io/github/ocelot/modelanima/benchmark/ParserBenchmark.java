@@ -0,0 +1,46 @@
+package io.github.ocelot.modelanima.benchmark;
+
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.animation.AnimationParser;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing geometry and animation files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int bones;
+
+    private String geometry;
+    private String animation;
+
+    @Setup
+    public void setup()
+    {
+        this.geometry = SyntheticRig.geometry(this.bones);
+        this.animation = SyntheticRig.animation(this.bones);
+    }
+
+    @Benchmark
+    public GeometryModelData[] parseModel()
+    {
+        return GeometryModelParser.parseModel(this.geometry);
+    }
+
+    @Benchmark
+    public AnimationData[] parseAnimation()
+    {
+        return AnimationParser.parse(this.animation);
+    }
+}
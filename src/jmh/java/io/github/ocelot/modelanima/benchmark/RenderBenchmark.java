@@ -0,0 +1,51 @@
+package io.github.ocelot.modelanima.benchmark;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import io.github.ocelot.modelanima.RecordingVertexConsumer;
+import io.github.ocelot.modelanima.RenderHarness;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering every test model into a recording consumer, reporting how many vertex bytes each render produces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark
+{
+    private GeometryModel[] models;
+    private PoseStack matrixStack;
+    private RecordingVertexConsumer consumer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Output
+    {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.models = RenderHarness.loadModels(RenderHarness.GEOMETRY_FOLDER).values().toArray(new GeometryModel[0]);
+        this.matrixStack = new PoseStack();
+        this.consumer = new RecordingVertexConsumer();
+    }
+
+    @Benchmark
+    public int renderTestModels(Output output)
+    {
+        this.consumer.reset();
+        for (GeometryModel model : this.models)
+            RenderHarness.render(model, this.matrixStack, this.consumer);
+        output.bytes += this.consumer.getBytes();
+        return this.consumer.getChecksum();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.ocelot.modelanima.benchmark;
+
+/**
+ * Generates geometry and animation files for rigs with an arbitrary number of bones.
+ */
+public final class SyntheticRig
+{
+    private SyntheticRig()
+    {
+    }
+
+    /**
+     * Creates a 1.12.0 geometry file with the specified number of bones. Bones form a binary tree so the hierarchy stays shallow for large rigs.
+     *
+     * @param bones The number of bones to create
+     * @return The geometry json
+     */
+    public static String geometry(int bones)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"format_version\":\"1.12.0\",\"minecraft:geometry\":[{");
+        builder.append("\"description\":{\"identifier\":\"geometry.synthetic\",\"texture_width\":64,\"texture_height\":64},");
+        builder.append("\"bones\":[");
+        for (int i = 0; i < bones; i++)
+        {
+            if (i > 0)
+                builder.append(',');
+            builder.append("{\"name\":\"bone").append(i).append('"');
+            if (i > 0)
+                builder.append(",\"parent\":\"bone").append((i - 1) / 2).append('"');
+            builder.append(",\"pivot\":[0,").append(i % 16).append(",0]");
+            builder.append(",\"rotation\":[0,").append(i % 45).append(",0]");
+            builder.append(",\"cubes\":[{\"origin\":[-1,").append(i % 16).append(",-1],\"size\":[2,2,2],\"uv\":[0,0]}]}");
+        }
+        builder.append("]}]}");
+        return builder.toString();
+    }
+
+    /**
+     * Creates a 1.8.0 animation file that moves every bone. Every fourth bone uses a MoLang expression instead of constant keyframes.
+     *
+     * @param bones The number of bones to animate
+     * @return The animation json
+     */
+    public static String animation(int bones)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"format_version\":\"1.8.0\",\"animations\":{\"animation.synthetic\":{\"loop\":true,\"animation_length\":1.0,\"bones\":{");
+        for (int i = 0; i < bones; i++)
+        {
+            if (i > 0)
+                builder.append(',');
+            builder.append("\"bone").append(i).append("\":{");
+            if (i % 4 == 0)
+            {
+                builder.append("\"rotation\":[\"math.sin(query.life_time * 360) * 10\",0,0]");
+            }
+            else
+            {
+                builder.append("\"rotation\":{\"0.0\":[0,0,0],\"0.5\":[").append(i % 90).append(",0,0],\"1.0\":[0,0,0]},");
+                builder.append("\"position\":{\"0.0\":[0,0,0],\"0.5\":{\"post\":[0,1,0],\"lerp_mode\":\"catmullrom\"},\"1.0\":[0,0,0]}");
+            }
+            builder.append('}');
+        }
+        builder.append("}}}}");
+        return builder.toString();
+    }
+}
@@ -3,6 +3,8 @@ package io.github.ocelot.modelanima;
 import io.github.ocelot.modelanima.api.client.animation.AnimationManager;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModelManager;
 import io.github.ocelot.modelanima.api.client.texture.GeometryTextureManager;
+import io.github.ocelot.modelanima.core.client.util.MetricsOverlay;
+import io.github.ocelot.modelanima.core.client.util.ResourceWatcher;
 import io.github.ocelot.modelanima.core.common.network.ModelAnimaMessages;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.eventbus.api.IEventBus;
@@ -30,6 +32,8 @@ public class ModelAnima
             GeometryModelManager.init(bus);
             GeometryTextureManager.init(bus);
             AnimationManager.init(bus);
+            ResourceWatcher.init(bus);
+            MetricsOverlay.init();
         });
     }
 }
@@ -1,14 +1,8 @@
 package io.github.ocelot.modelanima.api.client;
 
 import io.github.ocelot.modelanima.core.client.util.HashedTextureCache;
+import io.github.ocelot.modelanima.core.client.util.OnlineFetcher;
 import io.github.ocelot.modelanima.core.client.util.TimedTextureCache;
-import org.apache.http.StatusLine;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.conn.EofSensorInputStream;
-import org.apache.http.conn.EofSensorWatcher;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,7 +28,7 @@ public interface FileCache
     CompletableFuture<Path> requestResource(String url, boolean ignoreMissing);
 
     /**
-     * Opens a GET stream to the specified URL.
+     * Opens a GET stream to the specified URL. Connections are shared and kept alive between requests, so the stream must be closed.
      *
      * @param url The url to open a stream to
      * @return The opened stream to the resource
@@ -42,38 +36,7 @@ public interface FileCache
      */
     static InputStream get(String url) throws IOException
     {
-        HttpGet get = new HttpGet(url);
-        CloseableHttpClient client = HttpClients.custom().setUserAgent(USER_AGENT).build();
-        CloseableHttpResponse response = client.execute(get);
-        StatusLine statusLine = response.getStatusLine();
-        if (statusLine.getStatusCode() != 200)
-        {
-            client.close();
-            response.close();
-            throw new IOException("Failed to connect to '" + url + "'. " + statusLine.getStatusCode() + " " + statusLine.getReasonPhrase());
-        }
-        return new EofSensorInputStream(response.getEntity().getContent(), new EofSensorWatcher()
-        {
-            @Override
-            public boolean eofDetected(InputStream wrapped)
-            {
-                return true;
-            }
-
-            @Override
-            public boolean streamClosed(InputStream wrapped) throws IOException
-            {
-                response.close();
-                return true;
-            }
-
-            @Override
-            public boolean streamAbort(InputStream wrapped) throws IOException
-            {
-                response.close();
-                return true;
-            }
-        });
+        return OnlineFetcher.get().open(url);
     }
 
     /**
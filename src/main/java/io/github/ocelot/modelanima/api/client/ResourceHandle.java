@@ -0,0 +1,29 @@
+package io.github.ocelot.modelanima.api.client;
+
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * <p>A reference to a loaded model, animation or texture table that stays valid across reloads.</p>
+ * <p>Handles only look up their value again after a reload, so they can be held onto and queried every frame.</p>
+ *
+ * @param <T> The type of value this handle points to
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public interface ResourceHandle<T>
+{
+    /**
+     * @return The name of the value this handle points to
+     */
+    ResourceLocation getLocation();
+
+    /**
+     * @return The currently loaded value or the empty value if there is no value with the name
+     */
+    T get();
+
+    /**
+     * @return Whether a value with the name is currently loaded
+     */
+    boolean isPresent();
+}
@@ -19,6 +19,8 @@ import net.minecraft.world.entity.PathfinderMob;
  */
 public abstract class AnimatedEntityRenderer<T extends PathfinderMob & AnimatedEntity> extends MobRenderer<T, AnimatedGeometryEntityModel<T>>
 {
+    private static final ResourceLocation[] NO_ANIMATIONS = new ResourceLocation[0];
+
     public AnimatedEntityRenderer(EntityRenderDispatcher rendererManager, ResourceLocation model, float shadowSize)
     {
         super(rendererManager, new AnimatedGeometryEntityModel<>(model), shadowSize);
@@ -34,11 +36,12 @@ public abstract class AnimatedEntityRenderer<T extends PathfinderMob & AnimatedE
     protected void setupRotations(T entity, PoseStack matrixStack, float ticksExisted, float rotY, float partialTicks)
     {
         super.setupRotations(entity, matrixStack, ticksExisted, rotY, partialTicks);
+        ResourceLocation[] animations = this.getAnimations(entity);
         this.model.setTexture(this.getTextureTableLocation(entity));
-        this.model.setAnimations(this.getAnimations(entity));
+        this.model.setAnimations(animations);
         AnimationEffectHandler effectHandler = entity.getAnimationEffects();
         if (effectHandler != null)
-            effectHandler.tick(this.getAnimations(entity), this.getBob(entity, partialTicks) / 20.0F);
+            effectHandler.tick(animations, this.getBob(entity, partialTicks) / 20.0F);
     }
 
     @Override
@@ -51,11 +54,11 @@ public abstract class AnimatedEntityRenderer<T extends PathfinderMob & AnimatedE
      * Fetches the default animations to play.
      *
      * @param entity The entity to get the animations for
-     * @return The animations to play
+     * @return The animations to play. The model resolves each array once, so the same array should be returned for as long as the animations stay the same
      */
     public ResourceLocation[] getAnimations(T entity)
     {
-        return entity.isNoAnimationPlaying() ? new ResourceLocation[0] : entity.getAnimationState().getAnimations();
+        return entity.isNoAnimationPlaying() ? NO_ANIMATIONS : entity.getAnimationState().getAnimations();
     }
 
     /**
@@ -2,18 +2,25 @@ package io.github.ocelot.modelanima.api.client.animation;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModelManager;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModelRenderer;
+import io.github.ocelot.modelanima.api.client.texture.GeometryAtlasTexture;
+import io.github.ocelot.modelanima.api.client.texture.GeometryTextureManager;
 import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
 import io.github.ocelot.molangcompiler.api.MolangRuntime;
 import io.github.ocelot.molangcompiler.api.bridge.MolangVariableProvider;
 import io.github.ocelot.molangcompiler.api.exception.MolangException;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
 import net.minecraft.client.Camera;
 import net.minecraft.client.CameraType;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.model.EntityModel;
 import net.minecraft.client.player.AbstractClientPlayer;
+import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.FrameTimer;
@@ -32,6 +39,8 @@ import net.minecraftforge.client.model.animation.Animation;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
@@ -44,22 +53,49 @@ import java.util.stream.LongStream;
  */
 public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T>
 {
-    private final ResourceLocation model;
-    private ResourceLocation texture;
-    private ResourceLocation[] animations;
+    private static final ResourceLocation[] NO_ANIMATIONS = new ResourceLocation[0];
+    private static final Hash.Strategy<ResourceLocation[]> ANIMATIONS_STRATEGY = new Hash.Strategy<ResourceLocation[]>()
+    {
+        @Override
+        public int hashCode(ResourceLocation[] animations)
+        {
+            return Arrays.hashCode(animations);
+        }
+
+        @Override
+        public boolean equals(ResourceLocation[] a, ResourceLocation[] b)
+        {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    private final ResourceHandle<GeometryModel> model;
+    private final Map<ResourceLocation[], AnimationSet> animationSets;
+    private final Map<Class<?>, MolangRuntime.Builder> runtimes;
+    private ResourceHandle<GeometryModelTextureTable> texture;
+    private AnimationSet animations;
     private MolangVariableProvider variableProvider;
+    private T entity;
+    private float partialTicks;
+    private float limbSwing;
+    private float limbSwingAmount;
+    private float yaw;
+    private float pitch;
 
     public AnimatedGeometryEntityModel(ResourceLocation model)
     {
-        this.model = model;
+        this.model = GeometryModelManager.getModelHandle(model);
+        this.animationSets = new Object2ObjectOpenCustomHashMap<>(ANIMATIONS_STRATEGY);
+        this.runtimes = new IdentityHashMap<>();
         this.texture = null;
-        this.animations = new ResourceLocation[0];
+        this.setAnimations(NO_ANIMATIONS);
         this.variableProvider = null;
+        this.entity = null;
     }
 
-    private MolangRuntime.Builder createRuntime(T entity, float limbSwing, float limbSwingAmount, float yaw, float pitch)
+    // Queries read the entity being animated from the model, so the specified entity is only used to decide which queries apply to its type
+    private MolangRuntime.Builder createRuntime(T entity)
     {
-        float partialTicks = Animation.getPartialTickTime();
         MolangRuntime.Builder builder = MolangRuntime.runtime();
         // Skip above_top_solid
         // Skip actor_count
@@ -77,14 +113,14 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         });
         builder.setQuery("armor_color_slot", 1, context ->
         {
-            if (!(entity instanceof LivingEntity))
+            if (!(this.entity instanceof LivingEntity))
                 return -1F;
 
             int index = (int) context.resolve(0);
             if (index < 0 || index >= 4)
                 return -1F;
 
-            LivingEntity livingEntity = (LivingEntity) entity;
+            LivingEntity livingEntity = (LivingEntity) this.entity;
             ItemStack stack = livingEntity.getItemBySlot(EquipmentSlot.byTypeAndIndex(EquipmentSlot.Type.ARMOR, index));
             if (stack.isEmpty() || !(stack.getItem() instanceof DyeableArmorItem))
                 return -1F;
@@ -112,10 +148,10 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
             }).sum() / duration / 1_000_000_000F; // ns to s
         });
         builder.setQuery("block_face", 6.0F); // Undefined
-        builder.setQuery("blocking", () -> entity.canBeCollidedWith() ? 1.0F : 0.0F);
+        builder.setQuery("blocking", () -> this.entity.canBeCollidedWith() ? 1.0F : 0.0F);
         builder.setQuery("body_x_rotation", 0.0F);
         if (entity instanceof LivingEntity)
-            builder.setQuery("body_y_rotation", () -> Mth.lerp(partialTicks, ((LivingEntity) entity).yBodyRotO, ((LivingEntity) entity).yBodyRot));
+            builder.setQuery("body_y_rotation", () -> Mth.lerp(this.partialTicks, ((LivingEntity) this.entity).yBodyRotO, ((LivingEntity) this.entity).yBodyRot));
         builder.setQuery("camera_distance_range_lerp", 2, context ->
         {
             float first = context.resolve(0);
@@ -126,7 +162,7 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
             float smaller = Math.min(first, second);
             float larger = Math.max(first, second);
 
-            double distance = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(entity.position());
+            double distance = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(this.entity.position());
             if (distance <= smaller)
                 return smaller;
             if (distance >= larger)
@@ -145,23 +181,23 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         // Skip can_damage_nearby_mobs
         // Skip can_fly
         if (entity instanceof PlayerRideableJumping)
-            builder.setQuery("can_power_jump", () -> ((PlayerRideableJumping) entity).canJump() ? 1.0F : 0.0F);
+            builder.setQuery("can_power_jump", () -> ((PlayerRideableJumping) this.entity).canJump() ? 1.0F : 0.0F);
         // Skip can_swim
         // Skip can_walk
         // Skip cape_flap_amount
         builder.setQuery("cardinal_block_face_placed_on", 6.0F); // Undefined
-        builder.setQuery("cardinal_facing", () -> (float) Direction.orderedByNearest(entity)[0].get3DDataValue());
-        builder.setQuery("cardinal_facing_2d", () -> (float) Direction.orderedByNearest(entity)[0].get2DDataValue());
+        builder.setQuery("cardinal_facing", () -> (float) Direction.orderedByNearest(this.entity)[0].get3DDataValue());
+        builder.setQuery("cardinal_facing_2d", () -> (float) Direction.orderedByNearest(this.entity)[0].get2DDataValue());
         if (entity instanceof Player)
-            builder.setQuery("cardinal_player_facing", () -> (float) Direction.orderedByNearest(entity)[0].get3DDataValue());
+            builder.setQuery("cardinal_player_facing", () -> (float) Direction.orderedByNearest(this.entity)[0].get3DDataValue());
         // Skip combine_entities
         // Skip count
         if (entity instanceof Slime)
-            builder.setQuery("current_squish_value", () -> Mth.lerp(partialTicks, ((Slime) entity).oSquish, ((Slime) entity).squish));
-        builder.setQuery("day", () -> (float) (entity.level.getDayTime() / 24000L + 1));
+            builder.setQuery("current_squish_value", () -> Mth.lerp(this.partialTicks, ((Slime) this.entity).oSquish, ((Slime) this.entity).squish));
+        builder.setQuery("day", () -> (float) (this.entity.level.getDayTime() / 24000L + 1));
         // Skip debug_output
         // delta_time handled by AnimatedModel
-        builder.setQuery("distance_from_camera", () -> (float) Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(entity.position()));
+        builder.setQuery("distance_from_camera", () -> (float) Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(this.entity.position()));
         // Skip effect_emitter_count
         // Skip effect_particle_count
         // Skip equipment_count
@@ -179,7 +215,7 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         // Skip get_name
         // Skip get_root_locator_offset
         if (entity instanceof LivingEntity)
-            builder.setQuery("ground_speed", ((LivingEntity) entity)::getSpeed);
+            builder.setQuery("ground_speed", () -> ((LivingEntity) this.entity).getSpeed());
         // Skip has_any_family
         if (entity instanceof LivingEntity)
             builder.setQuery("has_armor_slot", 1, context ->
@@ -188,41 +224,41 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
                 if (index < 0 || index >= 4)
                     return 0.0F;
 
-                LivingEntity livingEntity = (LivingEntity) entity;
+                LivingEntity livingEntity = (LivingEntity) this.entity;
                 ItemStack stack = livingEntity.getItemBySlot(EquipmentSlot.byTypeAndIndex(EquipmentSlot.Type.ARMOR, index));
                 return stack.isEmpty() ? 0.0F : 1.0F;
             });
         // Skip has_biome_tag
         // Skip has_block_property
         if (entity instanceof AbstractClientPlayer)
-            builder.setQuery("has_cape", () -> ((AbstractClientPlayer) entity).getCloakTextureLocation() != null ? 1.0F : 0.0F);
-        builder.setQuery("has_collision", () -> entity.noPhysics ? 0.0F : 1.0F);
-        builder.setQuery("has_gravity", () -> entity.isNoGravity() ? 0.0F : 1.0F);
+            builder.setQuery("has_cape", () -> ((AbstractClientPlayer) this.entity).getCloakTextureLocation() != null ? 1.0F : 0.0F);
+        builder.setQuery("has_collision", () -> this.entity.noPhysics ? 0.0F : 1.0F);
+        builder.setQuery("has_gravity", () -> this.entity.isNoGravity() ? 0.0F : 1.0F);
         if (entity instanceof TamableAnimal)
-            builder.setQuery("has_owner", () -> ((TamableAnimal) entity).getOwnerUUID() != null ? 1.0F : 0.0F);
+            builder.setQuery("has_owner", () -> ((TamableAnimal) this.entity).getOwnerUUID() != null ? 1.0F : 0.0F);
         if (entity instanceof Projectile)
-            builder.setQuery("has_owner", () -> ((Projectile) entity).getOwner() != null ? 1.0F : 0.0F);
-        builder.setQuery("has_rider", () -> entity.getPassengers().isEmpty() ? 0.0F : 1.0F);
+            builder.setQuery("has_owner", () -> ((Projectile) this.entity).getOwner() != null ? 1.0F : 0.0F);
+        builder.setQuery("has_rider", () -> this.entity.getPassengers().isEmpty() ? 0.0F : 1.0F);
         // Skip has_target. This is not accessible on the client
         // Skip head_roll_angle
-        builder.setQuery("head_x_rotation", () -> pitch);
-        builder.setQuery("head_y_rotation", () -> yaw);
+        builder.setQuery("head_x_rotation", () -> this.pitch);
+        builder.setQuery("head_y_rotation", () -> this.yaw);
         if (entity instanceof LivingEntity)
-            builder.setQuery("health", ((LivingEntity) entity)::getHealth);
+            builder.setQuery("health", () -> ((LivingEntity) this.entity).getHealth());
         // Skip heightmap
         if (entity instanceof LivingEntity)
-            builder.setQuery("hurtDir", () -> ((LivingEntity) entity).hurtDir);
+            builder.setQuery("hurtDir", () -> ((LivingEntity) this.entity).hurtDir);
         if (entity instanceof LivingEntity)
-            builder.setQuery("hurt_time", () -> (float) ((LivingEntity) entity).hurtTime);
-        builder.setQuery("invulnerable_ticks", () -> (float) entity.invulnerableTime);
-        builder.setQuery("is_alive", () -> entity.isAlive() ? 1.0F : 0.0F);
+            builder.setQuery("hurt_time", () -> (float) ((LivingEntity) this.entity).hurtTime);
+        builder.setQuery("invulnerable_ticks", () -> (float) this.entity.invulnerableTime);
+        builder.setQuery("is_alive", () -> this.entity.isAlive() ? 1.0F : 0.0F);
         if (entity instanceof NeutralMob)
-            builder.setQuery("is_angry", () -> ((NeutralMob) entity).isAngry() ? 1.0F : 0.0F);
+            builder.setQuery("is_angry", () -> ((NeutralMob) this.entity).isAngry() ? 1.0F : 0.0F);
         // Skip is_attached_to_entity
         // Skip is_avoiding_block
         // Skip is_avoiding_mobs
         if (entity instanceof LivingEntity)
-            builder.setQuery("is_baby", () -> ((LivingEntity) entity).isBaby() ? 1.0F : 0.0F);
+            builder.setQuery("is_baby", () -> ((LivingEntity) this.entity).isBaby() ? 1.0F : 0.0F);
         // Skip is_breathing
         // Skip is_bribed
         // Skip is_carrying_block
@@ -232,95 +268,95 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         // Skip is_charged
         // Skip is_charging
         if (entity instanceof AbstractChestedHorse)
-            builder.setQuery("is_chested", () -> ((AbstractChestedHorse) entity).hasChest() ? 1.0F : 0.0F);
+            builder.setQuery("is_chested", () -> ((AbstractChestedHorse) this.entity).hasChest() ? 1.0F : 0.0F);
         if (entity instanceof Parrot)
-            builder.setQuery("is_dancing", () -> ((Parrot) entity).isPartyParrot() ? 1.0F : 0.0F);
+            builder.setQuery("is_dancing", () -> ((Parrot) this.entity).isPartyParrot() ? 1.0F : 0.0F);
         // Skip is_delayed_attacking
         if (entity instanceof LivingEntity)
-            builder.setQuery("is_eating", () -> ((LivingEntity) entity).getUseItem().isEdible() ? 1.0F : 0.0F);
+            builder.setQuery("is_eating", () -> ((LivingEntity) this.entity).getUseItem().isEdible() ? 1.0F : 0.0F);
         if (entity instanceof ElderGuardian)
             builder.setQuery("is_elder", 1.0F);
         // Skip is_emoting
         // Skip is_enchanted
-        builder.setQuery("is_fire_immune", () -> entity.fireImmune() ? 1.0F : 0.0F);
-        builder.setQuery("is_first_person", () -> entity == Minecraft.getInstance().getCameraEntity() && Minecraft.getInstance().options.getCameraType() == CameraType.FIRST_PERSON ? 1.0F : 0.0F);
-        builder.setQuery("is_ghost", () -> entity.isSpectator() ? 1.0F : 0.0F);
+        builder.setQuery("is_fire_immune", () -> this.entity.fireImmune() ? 1.0F : 0.0F);
+        builder.setQuery("is_first_person", () -> this.entity == Minecraft.getInstance().getCameraEntity() && Minecraft.getInstance().options.getCameraType() == CameraType.FIRST_PERSON ? 1.0F : 0.0F);
+        builder.setQuery("is_ghost", () -> this.entity.isSpectator() ? 1.0F : 0.0F);
         if (entity instanceof LivingEntity)
-            builder.setQuery("is_gliding", () -> ((LivingEntity) entity).isFallFlying() ? 1.0F : 0.0F);
+            builder.setQuery("is_gliding", () -> ((LivingEntity) this.entity).isFallFlying() ? 1.0F : 0.0F);
         // Skip is_grazing
         // Skip is_idling
         if (entity instanceof Creeper)
-            builder.setQuery("is_ignited", () -> ((Creeper) entity).isIgnited() ? 1.0F : 0.0F);
+            builder.setQuery("is_ignited", () -> ((Creeper) this.entity).isIgnited() ? 1.0F : 0.0F);
         if (entity instanceof PatrollingMonster)
-            builder.setQuery("is_illager_captain", () -> ((PatrollingMonster) entity).isPatrolLeader() ? 1.0F : 0.0F);
-        builder.setQuery("is_in_contact_with_water", () -> entity.isInWaterOrRain() ? 1.0F : 0.0F);
+            builder.setQuery("is_illager_captain", () -> ((PatrollingMonster) this.entity).isPatrolLeader() ? 1.0F : 0.0F);
+        builder.setQuery("is_in_contact_with_water", () -> this.entity.isInWaterOrRain() ? 1.0F : 0.0F);
         if (entity instanceof Animal)
-            builder.setQuery("is_in_love", () -> ((Animal) entity).isInLove() ? 1.0F : 0.0F);
+            builder.setQuery("is_in_love", () -> ((Animal) this.entity).isInLove() ? 1.0F : 0.0F);
         // Skip is_in_ui
-        builder.setQuery("is_in_water", () -> entity.isInWater() ? 1.0F : 0.0F);
-        builder.setQuery("is_in_water_or_rain", () -> entity.isInWaterOrRain() ? 1.0F : 0.0F);
+        builder.setQuery("is_in_water", () -> this.entity.isInWater() ? 1.0F : 0.0F);
+        builder.setQuery("is_in_water_or_rain", () -> this.entity.isInWaterOrRain() ? 1.0F : 0.0F);
         // Skip is_interested
-        builder.setQuery("is_invisible", () -> entity.isInvisible() ? 1.0F : 0.0F);
+        builder.setQuery("is_invisible", () -> this.entity.isInvisible() ? 1.0F : 0.0F);
         // Skip is_item_equipped
         // Skip is_jumping
-        builder.setQuery("is_laying_down", () -> entity.getPose() == Pose.SLEEPING ? 1.0F : 0.0F);
+        builder.setQuery("is_laying_down", () -> this.entity.getPose() == Pose.SLEEPING ? 1.0F : 0.0F);
         // Skip is_laying_egg
         if (entity instanceof Mob)
-            builder.setQuery("is_leashed", () -> ((Mob) entity).isLeashed() ? 1.0F : 0.0F);
+            builder.setQuery("is_leashed", () -> ((Mob) this.entity).isLeashed() ? 1.0F : 0.0F);
         if (entity instanceof LivingEntity)
-            builder.setQuery("is_levitating", () -> ((LivingEntity) entity).getEffect(MobEffects.LEVITATION) != null ? 1.0F : 0.0F);
+            builder.setQuery("is_levitating", () -> ((LivingEntity) this.entity).getEffect(MobEffects.LEVITATION) != null ? 1.0F : 0.0F);
         // Skip is_lingering
-        builder.setQuery("is_moving", () -> entity.getDeltaMovement().lengthSqr() > 1.0E-7D ? 1.0F : 0.0F);
-        builder.setQuery("is_on_fire", () -> entity.isOnFire() ? 1.0F : 0.0F);
-        builder.setQuery("is_on_ground", () -> entity.isOnGround() ? 1.0F : 0.0F);
+        builder.setQuery("is_moving", () -> this.entity.getDeltaMovement().lengthSqr() > 1.0E-7D ? 1.0F : 0.0F);
+        builder.setQuery("is_on_fire", () -> this.entity.isOnFire() ? 1.0F : 0.0F);
+        builder.setQuery("is_on_ground", () -> this.entity.isOnGround() ? 1.0F : 0.0F);
         builder.setQuery("is_on_screen", 1.0F); // If being rendered, it must be on screen
-        builder.setQuery("is_onfire", () -> entity.isOnFire() ? 1.0F : 0.0F);
+        builder.setQuery("is_onfire", () -> this.entity.isOnFire() ? 1.0F : 0.0F);
         // Skip is_orphaned
         // Skip is_persona_or_premium_skin
         // Skip is_playing_dead
         if (entity instanceof PowerableMob)
-            builder.setQuery("is_powered", () -> ((PowerableMob) entity).isPowered() ? 1.0F : 0.0F);
+            builder.setQuery("is_powered", () -> ((PowerableMob) this.entity).isPowered() ? 1.0F : 0.0F);
         if (entity instanceof Turtle)
-            builder.setQuery("is_pregnant", () -> ((Turtle) entity).isLayingEgg() ? 1.0F : 0.0F);
+            builder.setQuery("is_pregnant", () -> ((Turtle) this.entity).isLayingEgg() ? 1.0F : 0.0F);
         // Skip is_ram_attacking
         // Skip is_resting
-        builder.setQuery("is_riding", () -> entity.isPassenger() ? 1.0F : 0.0F);
+        builder.setQuery("is_riding", () -> this.entity.isPassenger() ? 1.0F : 0.0F);
         if (entity instanceof Ravager)
-            builder.setQuery("is_roaring", () -> ((Ravager) entity).getRoarTick() > 0 ? 1.0F : 0.0F);
+            builder.setQuery("is_roaring", () -> ((Ravager) this.entity).getRoarTick() > 0 ? 1.0F : 0.0F);
         if (entity instanceof Panda)
-            builder.setQuery("is_rolling", () -> ((Panda) entity).isRolling() ? 1.0F : 0.0F);
+            builder.setQuery("is_rolling", () -> ((Panda) this.entity).isRolling() ? 1.0F : 0.0F);
         if (entity instanceof Saddleable)
-            builder.setQuery("is_saddled", () -> ((Saddleable) entity).isSaddled() ? 1.0F : 0.0F);
+            builder.setQuery("is_saddled", () -> ((Saddleable) this.entity).isSaddled() ? 1.0F : 0.0F);
         // Skip is_scared
         // Skip is_selected_item
         if (entity instanceof Wolf)
-            builder.setQuery("is_shaking_wetness", () -> ((Wolf) entity).isShaking ? 1.0F : 0.0F);
+            builder.setQuery("is_shaking_wetness", () -> ((Wolf) this.entity).isShaking ? 1.0F : 0.0F);
         if (entity instanceof Sheep)
-            builder.setQuery("is_sheared", () -> ((Sheep) entity).isSheared() ? 1.0F : 0.0F);
+            builder.setQuery("is_sheared", () -> ((Sheep) this.entity).isSheared() ? 1.0F : 0.0F);
         // Skip is_shield_powered
-        builder.setQuery("is_silent", () -> entity.isSilent() ? 1.0F : 0.0F);
+        builder.setQuery("is_silent", () -> this.entity.isSilent() ? 1.0F : 0.0F);
         if (entity instanceof TamableAnimal)
-            builder.setQuery("is_sitting", () -> ((TamableAnimal) entity).isInSittingPose() ? 1.0F : 0.0F);
+            builder.setQuery("is_sitting", () -> ((TamableAnimal) this.entity).isInSittingPose() ? 1.0F : 0.0F);
         if (entity instanceof LivingEntity)
-            builder.setQuery("is_sleeping", () -> ((LivingEntity) entity).isSleeping() ? 1.0F : 0.0F);
-        builder.setQuery("is_sneaking", () -> entity.isDiscrete() ? 1.0F : 0.0F);
+            builder.setQuery("is_sleeping", () -> ((LivingEntity) this.entity).isSleeping() ? 1.0F : 0.0F);
+        builder.setQuery("is_sneaking", () -> this.entity.isDiscrete() ? 1.0F : 0.0F);
         // Skip is_sneezing
-        builder.setQuery("is_sprinting", () -> entity.isSprinting() ? 1.0F : 0.0F);
+        builder.setQuery("is_sprinting", () -> this.entity.isSprinting() ? 1.0F : 0.0F);
         builder.setQuery("is_stackable", 1.0F); // Everything can be stacked
         // Skip is_stalking
-        builder.setQuery("is_standing", () -> entity.getPose() == Pose.STANDING ? 1.0F : 0.0F);
+        builder.setQuery("is_standing", () -> this.entity.getPose() == Pose.STANDING ? 1.0F : 0.0F);
         // Skip is_stunned
-        builder.setQuery("is_swimming", () -> entity.isSwimming() ? 1.0F : 0.0F);
+        builder.setQuery("is_swimming", () -> this.entity.isSwimming() ? 1.0F : 0.0F);
         if (entity instanceof TamableAnimal)
-            builder.setQuery("is_tamed", () -> ((TamableAnimal) entity).isTame() ? 1.0F : 0.0F);
+            builder.setQuery("is_tamed", () -> ((TamableAnimal) this.entity).isTame() ? 1.0F : 0.0F);
         // Skip is_transforming
         if (entity instanceof LivingEntity)
         {
-            builder.setQuery("is_using_item", () -> ((LivingEntity) entity).isUsingItem() ? 1.0F : 0.0F);
-            builder.setQuery("is_wall_climbing", () -> ((LivingEntity) entity).onClimbable() ? 1.0F : 0.0F);
-            builder.setQuery("item_in_use_duration", () -> (float) ((LivingEntity) entity).getTicksUsingItem() / 20.0F);
+            builder.setQuery("is_using_item", () -> ((LivingEntity) this.entity).isUsingItem() ? 1.0F : 0.0F);
+            builder.setQuery("is_wall_climbing", () -> ((LivingEntity) this.entity).onClimbable() ? 1.0F : 0.0F);
+            builder.setQuery("item_in_use_duration", () -> (float) ((LivingEntity) this.entity).getTicksUsingItem() / 20.0F);
             // Skip item_is_charged
-            builder.setQuery("item_max_use_duration", () -> (float) ((LivingEntity) entity).getUseItem().getUseDuration() / 20.0F);
+            builder.setQuery("item_max_use_duration", () -> (float) ((LivingEntity) this.entity).getUseItem().getUseDuration() / 20.0F);
             // Skip item_remaining_use_duration
         }
         // Skip item_slot_to_bone_name
@@ -344,7 +380,7 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
             return (float) frameTimer.getLog()[frameTimer.wrapIndex(wrappedIndex)] / 1_000_000_000F; // ns to s
         });
         if (entity instanceof LivingEntity && !(entity instanceof Player))
-            builder.setQuery("last_hit_by_player", () -> ((LivingEntity) entity).getLastHurtByMob() instanceof Player ? 1.0F : 0.0F);
+            builder.setQuery("last_hit_by_player", () -> ((LivingEntity) this.entity).getLastHurtByMob() instanceof Player ? 1.0F : 0.0F);
         // Skip lie_amount
         // Skip life_span
         // life_time handled by AnimatedModel
@@ -353,7 +389,7 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
             if (context.getParameters() <= 0)
                 return 0;
 
-            double distance = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(entity.position());
+            double distance = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceTo(this.entity.position());
             for (int i = 0; i < context.getParameters(); i++)
                 if (distance < context.resolve(0))
                     return i;
@@ -367,16 +403,32 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         });
         if (entity instanceof LivingEntity)
         {
-            LivingEntity livingEntity = (LivingEntity) entity;
-            builder.setQuery("main_hand_item_max_duration", () -> !livingEntity.getMainHandItem().isEmpty() ? livingEntity.getMainHandItem().getUseDuration() : 0.0F);
-            builder.setQuery("main_hand_item_use_duration", () -> livingEntity.isUsingItem() && livingEntity.getUsedItemHand() == InteractionHand.MAIN_HAND ? livingEntity.getTicksUsingItem() : 0.0F);
-            builder.setQuery("off_hand_item_max_duration", () -> !livingEntity.getOffhandItem().isEmpty() ? livingEntity.getOffhandItem().getUseDuration() : 0.0F); // Added since items can be used in offhand
-            builder.setQuery("off_hand_item_use_duration", () -> livingEntity.isUsingItem() && livingEntity.getUsedItemHand() == InteractionHand.OFF_HAND ? livingEntity.getTicksUsingItem() : 0.0F); // Added since items can be used in offhand
+            builder.setQuery("main_hand_item_max_duration", () ->
+            {
+                LivingEntity livingEntity = (LivingEntity) this.entity;
+                return !livingEntity.getMainHandItem().isEmpty() ? livingEntity.getMainHandItem().getUseDuration() : 0.0F;
+            });
+            builder.setQuery("main_hand_item_use_duration", () ->
+            {
+                LivingEntity livingEntity = (LivingEntity) this.entity;
+                return livingEntity.isUsingItem() && livingEntity.getUsedItemHand() == InteractionHand.MAIN_HAND ? livingEntity.getTicksUsingItem() : 0.0F;
+            });
+            // Added since items can be used in offhand
+            builder.setQuery("off_hand_item_max_duration", () ->
+            {
+                LivingEntity livingEntity = (LivingEntity) this.entity;
+                return !livingEntity.getOffhandItem().isEmpty() ? livingEntity.getOffhandItem().getUseDuration() : 0.0F;
+            });
+            builder.setQuery("off_hand_item_use_duration", () ->
+            {
+                LivingEntity livingEntity = (LivingEntity) this.entity;
+                return livingEntity.isUsingItem() && livingEntity.getUsedItemHand() == InteractionHand.OFF_HAND ? livingEntity.getTicksUsingItem() : 0.0F;
+            });
         }
         // Skip mark_variant
         // Skip max_durability
         if (entity instanceof LivingEntity)
-            builder.setQuery("max_health", ((LivingEntity) entity)::getMaxHealth);
+            builder.setQuery("max_health", () -> ((LivingEntity) this.entity).getMaxHealth());
         // Skip max_trade_tier
         builder.setQuery("maximum_frame_time", () ->
         {
@@ -419,34 +471,34 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
             return (float) LongStream.range(0, index).map(i -> frameTimer.getLog()[frameTimer.wrapIndex((int) (finalWrappedIndex + i))]).min().orElse(0L) / 1_000_000_000F; // ns to s
         });
         builder.setQuery("model_scale", 1.0F);
-        builder.setQuery("modified_distance_moved", () -> entity.moveDist);
+        builder.setQuery("modified_distance_moved", () -> this.entity.moveDist);
         if (entity instanceof LivingEntity)
-            builder.setQuery("modified_move_speed", ((LivingEntity) entity)::getSpeed);
-        builder.setQuery("moon_brightness", () -> entity.level.getMoonBrightness());
-        builder.setQuery("moon_phase", () -> (float) entity.level.getMoonPhase());
+            builder.setQuery("modified_move_speed", () -> ((LivingEntity) this.entity).getSpeed());
+        builder.setQuery("moon_brightness", () -> this.entity.level.getMoonBrightness());
+        builder.setQuery("moon_phase", () -> (float) this.entity.level.getMoonPhase());
         // Skip noise
-        builder.setQuery("on_fire_time", () -> (float) entity.getRemainingFireTicks() / 20.0F);
+        builder.setQuery("on_fire_time", () -> (float) this.entity.getRemainingFireTicks() / 20.0F);
         // Skip out_of_control
         // Skip overlay_alpha
         // Skip owner_identifier
         if (entity instanceof Player)
-            builder.setQuery("player_level", () -> (float) ((Player) entity).experienceLevel);
+            builder.setQuery("player_level", () -> (float) ((Player) this.entity).experienceLevel);
         builder.setQuery("position", 1, context ->
         {
             int index = (int) context.resolve(0);
             if (index < 0 || index >= 3)
                 throw new MolangException("Invalid argument for position(): " + index);
-            return (float) (index == 0 ? entity.getX(partialTicks) : index == 1 ? entity.getY(partialTicks) : entity.getZ(partialTicks));
+            return (float) (index == 0 ? this.entity.getX(this.partialTicks) : index == 1 ? this.entity.getY(this.partialTicks) : this.entity.getZ(this.partialTicks));
         });
         builder.setQuery("position_delta", 1, context ->
         {
             int index = (int) context.resolve(0);
             if (index < 0 || index >= 3)
                 throw new MolangException("Invalid argument for position(): " + index);
-            return (float) (index == 0 ? entity.getDeltaMovement().x() : index == 1 ? entity.getDeltaMovement().y() : entity.getDeltaMovement().z());
+            return (float) (index == 0 ? this.entity.getDeltaMovement().x() : index == 1 ? this.entity.getDeltaMovement().y() : this.entity.getDeltaMovement().z());
         });
         if (entity instanceof Slime)
-            builder.setQuery("previous_squish_value", () -> ((Slime) entity).oSquish);
+            builder.setQuery("previous_squish_value", () -> ((Slime) this.entity).oSquish);
         // Skip remaining_durability
         // Skip roll_counter
         // Skip rotation_to_camera TODO
@@ -464,25 +516,25 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
         // Skip swelling_dir
         // Skip swim_amount
         // Skip tail_angle
-        builder.setQuery("target_x_rotation", () -> entity.getViewXRot(partialTicks));
-        builder.setQuery("target_y_rotation", () -> entity.getViewYRot(partialTicks));
+        builder.setQuery("target_x_rotation", () -> this.entity.getViewXRot(this.partialTicks));
+        builder.setQuery("target_y_rotation", () -> this.entity.getViewYRot(this.partialTicks));
         // Skip texture_frame_index
-        builder.setQuery("time_of_day", () -> entity.level.getTimeOfDay(partialTicks) / 24_000L);
+        builder.setQuery("time_of_day", () -> this.entity.level.getTimeOfDay(this.partialTicks) / 24_000L);
         // Skip time_stamp
         // Skip total_emitter_count
         // Skip total_particle_count
         // Skip trade_tier
         // Skip unhappy_counter
         // Skip variant
-        builder.setQuery("vertical_speed", () -> (float) entity.getDeltaMovement().y());
-        builder.setQuery("walk_distance", () -> Mth.lerp(partialTicks, entity.walkDistO, entity.walkDist));
+        builder.setQuery("vertical_speed", () -> (float) this.entity.getDeltaMovement().y());
+        builder.setQuery("walk_distance", () -> Mth.lerp(this.partialTicks, this.entity.walkDistO, this.entity.walkDist));
         // Skip wing_flap_position
         // Skip wing_flap_speed
         // Skip yaw_speed
 
         // Custom Queries
-        builder.setQuery("limb_swing", limbSwing);
-        builder.setQuery("limb_swing_amount", limbSwingAmount);
+        builder.setQuery("limb_swing", () -> this.limbSwing);
+        builder.setQuery("limb_swing_amount", () -> this.limbSwingAmount);
 
         return builder;
     }
@@ -492,22 +544,72 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
     {
         GeometryModel model = this.getModel();
         model.resetTransformation();
-        if (model instanceof AnimatedModel && this.animations.length > 0)
+        if (!(model instanceof AnimatedModel))
+            return;
+
+        AnimationData[] animations = this.getAnimations();
+        if (animations.length > 0)
         {
-            MolangRuntime.Builder builder = this.createRuntime(entity, limbSwing, limbSwingAmount, netHeadYaw, headPitch);
-            if (entity instanceof MolangVariableProvider)
-                builder.setVariables((MolangVariableProvider) entity);
-            if (this.variableProvider != null)
-                builder.setVariables(this.variableProvider);
-            ((AnimatedModel) model).applyAnimations(animationTicks / 20F, builder, this.getAnimations());
+            // Variables would stay on a cached runtime and leak into the next entity, so entities with variables get their own runtime
+            MolangRuntime.Builder builder;
+            if (entity instanceof MolangVariableProvider || this.variableProvider != null)
+            {
+                builder = this.createRuntime(entity);
+            }
+            else
+            {
+                builder = this.runtimes.get(entity.getClass());
+                if (builder == null)
+                {
+                    builder = this.createRuntime(entity);
+                    this.runtimes.put(entity.getClass(), builder);
+                }
+            }
+
+            this.entity = entity;
+            this.partialTicks = Animation.getPartialTickTime();
+            this.limbSwing = limbSwing;
+            this.limbSwingAmount = limbSwingAmount;
+            this.yaw = netHeadYaw;
+            this.pitch = headPitch;
+            try
+            {
+                if (entity instanceof MolangVariableProvider)
+                    builder.setVariables((MolangVariableProvider) entity);
+                if (this.variableProvider != null)
+                    builder.setVariables(this.variableProvider);
+                ((AnimatedModel) model).applyAnimations(animationTicks / 20F, builder, animations);
+            }
+            finally
+            {
+                this.entity = null;
+            }
         }
     }
 
     @Override
     public void renderToBuffer(PoseStack matrixStack, VertexConsumer builder, int packedLight, int packedOverlay, float red, float green, float blue, float alpha)
+    {
+        this.render(matrixStack, Minecraft.getInstance().renderBuffers().bufferSource(), GeometryTextureManager.getAtlas(), packedLight, packedOverlay, red, green, blue, alpha);
+    }
+
+    /**
+     * Renders this model into the specified buffers with sprites from the specified atlas.
+     *
+     * @param matrixStack   The current stack of transformations
+     * @param buffer        The buffers to render into
+     * @param atlas         The atlas to fetch texture sprites from
+     * @param packedLight   The packed uv into the light texture the parts should be rendered at
+     * @param packedOverlay The packed uv into the overlay texture the parts should be rendered at
+     * @param red           The red factor for color
+     * @param green         The green factor for color
+     * @param blue          The blue factor for color
+     * @param alpha         The alpha factor for color
+     */
+    public void render(PoseStack matrixStack, MultiBufferSource buffer, GeometryAtlasTexture atlas, int packedLight, int packedOverlay, float red, float green, float blue, float alpha)
     {
         matrixStack.translate(0, 1.5F, 0); // what?
-        GeometryModelRenderer.render(this.getModel(), this.texture, matrixStack, packedLight, packedOverlay, red, green, blue, alpha);
+        GeometryModelRenderer.render(this.getModel(), this.texture == null ? GeometryModelTextureTable.EMPTY : this.texture.get(), matrixStack, buffer, atlas, packedLight, packedOverlay, red, green, blue, alpha);
     }
 
     /**
@@ -515,7 +617,7 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
      */
     public GeometryModel getModel()
     {
-        return GeometryModelManager.getModel(this.model);
+        return this.model.get();
     }
 
     /**
@@ -524,15 +626,15 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
     @Nullable
     public ResourceLocation getTexture()
     {
-        return texture;
+        return this.texture != null ? this.texture.getLocation() : null;
     }
 
     /**
-     * @return The animations this entity model is playing
+     * @return The animations this entity model is playing. This array is reused and should not be modified
      */
     public AnimationData[] getAnimations()
     {
-        return Arrays.stream(this.animations).map(AnimationManager::getAnimation).filter(animation -> animation != AnimationData.EMPTY).toArray(AnimationData[]::new);
+        return this.animations.getAnimations();
     }
 
     /**
@@ -542,17 +644,28 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
      */
     public void setTexture(@Nullable ResourceLocation texture)
     {
-        this.texture = texture;
+        // Renderers set the texture every frame, so avoid looking up the handle again when nothing changed
+        if (this.texture == null ? texture == null : this.texture.getLocation().equals(texture))
+            return;
+        this.texture = texture != null ? GeometryTextureManager.getTexturesHandle(texture) : null;
     }
 
     /**
-     * Sets the new animation to use.
+     * Sets the new animation to use. The animations are resolved once for each combination of animations.
      *
      * @param animations The animations to play
      */
     public void setAnimations(ResourceLocation... animations)
     {
-        this.animations = animations;
+        // One model is shared by every entity of a renderer, so each combination of animations keeps its own resolved animations
+        AnimationSet set = this.animationSets.get(animations);
+        if (set == null)
+        {
+            ResourceLocation[] key = animations.clone();
+            set = new AnimationSet(key);
+            this.animationSets.put(key, set);
+        }
+        this.animations = set;
     }
 
     /**
@@ -564,4 +677,39 @@ public class AnimatedGeometryEntityModel<T extends Entity> extends EntityModel<T
     {
         this.variableProvider = variableProvider;
     }
+
+    private static class AnimationSet
+    {
+        private final ResourceHandle<AnimationData>[] handles;
+        private final AnimationData[] resolvedAnimations;
+        private AnimationData[] playingAnimations;
+
+        @SuppressWarnings("unchecked")
+        private AnimationSet(ResourceLocation[] animations)
+        {
+            this.handles = new ResourceHandle[animations.length];
+            for (int i = 0; i < animations.length; i++)
+                this.handles[i] = AnimationManager.getAnimationHandle(animations[i]);
+            this.resolvedAnimations = new AnimationData[animations.length];
+            this.playingAnimations = new AnimationData[0];
+        }
+
+        private AnimationData[] getAnimations()
+        {
+            // Only rebuild the playing animations when a reload changed what a handle points to
+            boolean changed = false;
+            for (int i = 0; i < this.handles.length; i++)
+            {
+                AnimationData animation = this.handles[i].get();
+                if (this.resolvedAnimations[i] != animation)
+                {
+                    this.resolvedAnimations[i] = animation;
+                    changed = true;
+                }
+            }
+            if (changed)
+                this.playingAnimations = Arrays.stream(this.resolvedAnimations).filter(animation -> animation != AnimationData.EMPTY).toArray(AnimationData[]::new);
+            return this.playingAnimations;
+        }
+    }
 }
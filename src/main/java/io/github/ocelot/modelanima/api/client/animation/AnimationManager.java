@@ -1,9 +1,12 @@
 package io.github.ocelot.modelanima.api.client.animation;
 
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.common.animation.AnimationData;
 import io.github.ocelot.modelanima.api.common.util.BackgroundLoader;
 import io.github.ocelot.modelanima.core.client.animation.LocalAnimationLoader;
 import io.github.ocelot.modelanima.core.client.util.DynamicReloader;
+import io.github.ocelot.modelanima.core.client.util.SnapshotRegistry;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
@@ -38,7 +41,7 @@ public final class AnimationManager
     private static final Reloader RELOADER = new Reloader();
     private static final DynamicReloader DYNAMIC_RELOADER = new DynamicReloader();
     private static final Set<BackgroundLoader<Map<ResourceLocation, AnimationData>>> LOADERS = new HashSet<>();
-    private static final Map<ResourceLocation, AnimationData> ANIMATIONS = new HashMap<>();
+    private static final SnapshotRegistry<AnimationData> ANIMATIONS = new SnapshotRegistry<>("animation", AnimationData.EMPTY);
 
     static
     {
@@ -88,11 +91,18 @@ public final class AnimationManager
      */
     public static AnimationData getAnimation(ResourceLocation location)
     {
-        return ANIMATIONS.computeIfAbsent(location, key ->
-        {
-            LOGGER.warn("Unknown animation with key '{}'", location);
-            return AnimationData.EMPTY;
-        });
+        return ANIMATIONS.get(location);
+    }
+
+    /**
+     * Fetches a handle to an animation by the specified name. The handle is updated automatically when animations are reloaded.
+     *
+     * @param location The name of the animation
+     * @return A handle to the animation
+     */
+    public static ResourceHandle<AnimationData> getAnimationHandle(ResourceLocation location)
+    {
+        return ANIMATIONS.handle(location);
     }
 
     /**
@@ -108,6 +118,7 @@ public final class AnimationManager
         @Override
         public CompletableFuture<Void> reload(PreparationBarrier stage, ResourceManager resourceManager, ProfilerFiller preparationsProfiler, ProfilerFiller reloadProfiler, Executor backgroundExecutor, Executor gameExecutor)
         {
+            ReloadMetrics.Session metrics = ReloadMetrics.begin(ReloadMetrics.Source.ANIMATION);
             Map<ResourceLocation, AnimationData> animationData = new HashMap<>();
             return CompletableFuture.allOf(LOADERS.stream().map(animationLoader -> animationLoader.reload(resourceManager, backgroundExecutor, gameExecutor).thenAcceptAsync(pairs ->
             {
@@ -116,9 +127,11 @@ public final class AnimationManager
                         LOGGER.warn("Duplicate animation: " + entry.getKey());
             }, gameExecutor)).toArray(CompletableFuture[]::new)).thenCompose(stage::wait).thenRunAsync(() ->
             {
-                LOGGER.info("Loaded " + animationData.size() + " animations.");
-                ANIMATIONS.clear();
-                ANIMATIONS.putAll(animationData);
+                long startTime = metrics.startTimer();
+                int changed = ANIMATIONS.replace(animationData);
+                metrics.stopTimer(ReloadMetrics.Phase.SWAP, startTime);
+                metrics.finish();
+                LOGGER.info("Loaded " + animationData.size() + " animations, " + changed + " changed.");
             }, gameExecutor);
         }
     }
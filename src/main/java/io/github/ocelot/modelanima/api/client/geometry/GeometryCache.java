@@ -1,34 +1,46 @@
 package io.github.ocelot.modelanima.api.client.geometry;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.core.client.util.CacheMetadataStore;
+import io.github.ocelot.modelanima.core.client.util.CacheSweeper;
+import io.github.ocelot.modelanima.core.client.util.OnlineFetcher;
 import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
-import net.minecraftforge.common.MinecraftForge;
-import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.fml.loading.FMLLoader;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
 
 import javax.annotation.Nullable;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 /**
- * Caches online geometry textures by md5 hash.
+ * <p>Caches online geometry textures by md5 hash.</p>
+ * <p>Downloaded files are stored once under the hash of their content and each url records which content it last produced, so the same texture served from different urls is only downloaded and stored once.</p>
  *
  * @author Ocelot
  * @since 1.0.0
@@ -36,83 +48,52 @@ import java.util.function.Function;
 public class GeometryCache
 {
     private static final Logger LOGGER = LogManager.getLogger();
-    private static final Gson GSON = new Gson();
     private static final Path CACHE_FOLDER = Paths.get(Minecraft.getInstance().gameDirectory.toURI()).resolve(ModelAnima.MOD_ID + "-cache");
-    private static final Object METADATA_LOCK = new Object();
-    private static final Object IO_LOCK = new Object();
+    private static final Path OBJECTS_FOLDER = CACHE_FOLDER.resolve("objects");
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-fA-F]{32}");
 
-    private static final Path CACHE_METADATA_LOCATION = CACHE_FOLDER.resolve("cache.json");
-    private static final int METADATA_WRITE_TIME = 5000;
-    private static volatile JsonObject CACHE_METADATA = new JsonObject();
-    private static volatile long nextWriteTime = Long.MAX_VALUE;
+    private static final Path LEGACY_METADATA_LOCATION = CACHE_FOLDER.resolve("cache.json");
+    private static final String ETAG_SUFFIX = ".etag";
+    private static final String LAST_MODIFIED_SUFFIX = ".lastModified";
+    private static final String OBJECT_SUFFIX = ".object";
+    private static final String SIZE_SUFFIX = ".size";
+    private static final String FAILED_SUFFIX = ".failed";
+    private static final long FAILED_RETRY_TIME = TimeUnit.HOURS.toMillis(1);
+    private static final long ACCESS_RESOLUTION = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_BYTES = Long.getLong(ModelAnima.MOD_ID + ".cache.maxBytes", 256L * 1024 * 1024);
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(Long.getLong(ModelAnima.MOD_ID + ".cache.maxAgeDays", 30L));
+    private static final CacheMetadataStore METADATA = new CacheMetadataStore(CACHE_FOLDER.resolve("metadata.log"));
+    private static final Set<String> RETAINED = new HashSet<>();
 
     static
     {
-        if (Files.exists(CACHE_METADATA_LOCATION))
+        if (Files.exists(LEGACY_METADATA_LOCATION))
         {
-            LOGGER.debug("Reading cache metadata from file.");
-            try (InputStreamReader reader = new InputStreamReader(new FileInputStream(CACHE_METADATA_LOCATION.toFile())))
+            LOGGER.debug("Converting legacy cache metadata.");
+            try (InputStreamReader reader = new InputStreamReader(new FileInputStream(LEGACY_METADATA_LOCATION.toFile()), StandardCharsets.UTF_8))
             {
-                CACHE_METADATA = new JsonParser().parse(reader).getAsJsonObject();
+                Map<String, JsonPrimitive> values = new HashMap<>();
+                for (Map.Entry<String, JsonElement> entry : new JsonParser().parse(reader).getAsJsonObject().entrySet())
+                    if (entry.getValue().isJsonPrimitive())
+                        values.put(entry.getKey(), entry.getValue().getAsJsonPrimitive());
+                METADATA.putAll(values);
             }
             catch (Exception e)
             {
-                LOGGER.error("Failed to load cache metadata", e);
+                LOGGER.error("Failed to load legacy cache metadata", e);
             }
-        }
-        MinecraftForge.EVENT_BUS.addListener(GeometryCache::clientTick);
-    }
-
-    private static synchronized void writeMetadata()
-    {
-        LOGGER.debug("Writing cache metadata to file.");
-        try (FileOutputStream os = new FileOutputStream(CACHE_METADATA_LOCATION.toFile()))
-        {
-            if (!Files.exists(CACHE_FOLDER))
-                Files.createDirectory(CACHE_FOLDER);
-            IOUtils.write(GSON.toJson(CACHE_METADATA), os, StandardCharsets.UTF_8);
-        }
-        catch (Exception e)
-        {
-            LOGGER.error("Failed to write cache metadata", e);
-        }
-    }
 
-    private static boolean isCached(String url, @Nullable String hash, Path imageFile)
-    {
-        if (Files.exists(imageFile))
-        {
-            if (hash == null)
-                return true;
-
-            String key = DigestUtils.md5Hex(url);
-            if (CACHE_METADATA.has(key) && CACHE_METADATA.get(key).isJsonPrimitive() && CACHE_METADATA.get(key).getAsJsonPrimitive().isString())
+            try
             {
-                if (!hash.equalsIgnoreCase(CACHE_METADATA.get(key).getAsString()))
-                {
-                    if (!FMLLoader.isProduction())
-                        LOGGER.warn("Hash for '" + url + "' did not match. Expected " + hash + ", got " + CACHE_METADATA.get(key).getAsString());
-                    return false;
-                }
-                return true;
-            }
-            try (InputStream stream = new FileInputStream(imageFile.toFile()))
-            {
-                String fileCache = DigestUtils.md5Hex(stream);
-                synchronized (METADATA_LOCK)
-                {
-                    CACHE_METADATA.addProperty(key, fileCache);
-                    nextWriteTime = System.currentTimeMillis() + METADATA_WRITE_TIME;
-                }
-                if (hash.equalsIgnoreCase(fileCache))
-                    return true;
+                Files.delete(LEGACY_METADATA_LOCATION);
             }
             catch (Exception e)
             {
-                LOGGER.error("Failed to read image '" + url + "'", e);
+                LOGGER.error("Failed to delete legacy cache metadata", e);
             }
         }
-        return false;
+        // Files from before content was stored by hash share the size limit with the object store until they are moved into it or evicted
+        Util.backgroundExecutor().execute(() -> CacheSweeper.sweep(METADATA, MAX_BYTES, MAX_AGE, RETAINED, OBJECTS_FOLDER, CACHE_FOLDER));
     }
 
     /**
@@ -126,50 +107,42 @@ public class GeometryCache
     @Nullable
     public static Path getPath(String url, @Nullable String hash, Function<String, InputStream> fetcher)
     {
-        Path imageFile = CACHE_FOLDER.resolve(DigestUtils.md5Hex(url));
+        String key = DigestUtils.md5Hex(url);
+        String contentHash = getContentHash(key);
+        String expectedHash = hash != null ? normalizeHash(hash) : contentHash;
 
-        if (isCached(url, hash, imageFile))
-            return imageFile;
+        // Content already downloaded from any url can be used without fetching it again
+        Path objectFile = retainObject(expectedHash);
+        if (objectFile != null)
+        {
+            if (!expectedHash.equals(contentHash))
+                METADATA.put(key + OBJECT_SUFFIX, expectedHash);
+            markAccessed(expectedHash);
+            return objectFile;
+        }
+        if (hasFailed(key))
+            return null;
 
         InputStream fetchedStream = fetcher.apply(url);
         if (fetchedStream == null)
         {
             if (hash == null)
-            {
-                try
-                {
-                    if (!Files.exists(CACHE_FOLDER))
-                        synchronized (IO_LOCK)
-                        {
-                            Files.createDirectory(CACHE_FOLDER);
-                        }
-                    if (!Files.exists(imageFile))
-                        synchronized (IO_LOCK)
-                        {
-                            Files.createFile(imageFile);
-                        }
-                }
-                catch (Exception e)
-                {
-                    LOGGER.error("Failed to create empty file '" + imageFile + "' for '" + url + "'", e);
-                }
-            }
+                METADATA.put(key + FAILED_SUFFIX, System.currentTimeMillis() + FAILED_RETRY_TIME);
             return null;
         }
 
         try
         {
-            synchronized (IO_LOCK)
-            {
-                if (!Files.exists(CACHE_FOLDER))
-                    Files.createDirectory(CACHE_FOLDER);
-                Files.copy(fetchedStream, imageFile, StandardCopyOption.REPLACE_EXISTING);
-            }
-            return imageFile;
+            String downloadedHash = download(key, fetchedStream);
+            if (hash != null && !hash.equalsIgnoreCase(downloadedHash) && !FMLLoader.isProduction())
+                LOGGER.warn("Hash for '" + url + "' did not match. Expected " + hash + ", got " + downloadedHash);
+            METADATA.remove(key + FAILED_SUFFIX);
+            markAccessed(downloadedHash);
+            return OBJECTS_FOLDER.resolve(downloadedHash);
         }
         catch (Exception e)
         {
-            LOGGER.error("Failed to write image '" + url + "' to '" + imageFile + "'", e);
+            LOGGER.error("Failed to write image '" + url + "'", e);
         }
         finally
         {
@@ -191,62 +164,83 @@ public class GeometryCache
     @Nullable
     public static Path getPath(String url, long timeout, TimeUnit unit, Function<String, InputStream> fetcher)
     {
-        Path imageFile = CACHE_FOLDER.resolve(DigestUtils.md5Hex(url));
+        return getPath(url, timeout, unit, (fetchUrl, eTag, lastModified) ->
+        {
+            InputStream stream = fetcher.apply(fetchUrl);
+            return stream != null ? new OnlineFetcher.Response(stream, null, null) : null;
+        });
+    }
 
+    /**
+     * Fetches the texture by the specified name. Once the cache has expired, the copy already downloaded is sent to the fetcher so it can check whether the texture has changed.
+     *
+     * @param url     The name of the texture to fetch
+     * @param timeout The amount of time the cache should remain valid
+     * @param unit    The unit of time timeout is defined in
+     * @param fetcher The function providing a new response
+     * @return The location of a file that can be opened with the data
+     */
+    @ApiStatus.Internal
+    @Nullable
+    public static Path getPath(String url, long timeout, TimeUnit unit, ConditionalFetcher fetcher)
+    {
         String key = DigestUtils.md5Hex(url);
-        if (isCached(url, null, imageFile))
+        String contentHash = getContentHash(key);
+        Path objectFile = retainObject(contentHash);
+
+        String eTag = null;
+        String lastModified = null;
+        if (objectFile != null)
         {
-            if (CACHE_METADATA.has(key) && CACHE_METADATA.get(key).isJsonPrimitive() && CACHE_METADATA.get(key).getAsJsonPrimitive().isNumber())
+            JsonPrimitive expiration = METADATA.get(key);
+            if (expiration != null && expiration.isNumber())
             {
                 long now = System.currentTimeMillis();
-                long expirationDate = CACHE_METADATA.get(key).getAsLong();
+                long expirationDate = expiration.getAsLong();
                 if (expirationDate - now > 0)
-                    return imageFile;
+                {
+                    markAccessed(contentHash);
+                    return objectFile;
+                }
             }
+            eTag = getString(key + ETAG_SUFFIX);
+            lastModified = getString(key + LAST_MODIFIED_SUFFIX);
+        }
+        else if (hasFailed(key))
+        {
+            return null;
         }
 
-        InputStream fetchedStream = fetcher.apply(url);
-        if (fetchedStream == null)
+        OnlineFetcher.Response response = fetcher.fetch(url, eTag, lastModified);
+        if (response == null)
         {
-            try
+            // Keep using the copy already downloaded until the cache expires again
+            if (objectFile != null)
             {
-                if (!Files.exists(CACHE_FOLDER))
-                    synchronized (IO_LOCK)
-                    {
-                        Files.createDirectory(CACHE_FOLDER);
-                    }
-                if (!Files.exists(imageFile))
-                    synchronized (IO_LOCK)
-                    {
-                        Files.createFile(imageFile);
-                    }
-                synchronized (METADATA_LOCK)
-                {
-                    CACHE_METADATA.addProperty(key, System.currentTimeMillis() + unit.toMillis(timeout));
-                    nextWriteTime = System.currentTimeMillis() + METADATA_WRITE_TIME;
-                }
+                METADATA.put(key, System.currentTimeMillis() + unit.toMillis(timeout));
             }
-            catch (Exception e)
+            else
             {
-                LOGGER.error("Failed to create empty file '" + imageFile + "' for '" + url + "'", e);
+                METADATA.put(key + FAILED_SUFFIX, System.currentTimeMillis() + unit.toMillis(timeout));
             }
             return null;
         }
 
         try
         {
-            synchronized (IO_LOCK)
+            if (response.isNotModified() && objectFile != null)
             {
-                if (!Files.exists(CACHE_FOLDER))
-                    Files.createDirectory(CACHE_FOLDER);
-                Files.copy(fetchedStream, imageFile, StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.debug("'" + url + "' has not been modified, refreshing cache");
+                updateMetadata(key, System.currentTimeMillis() + unit.toMillis(timeout), response.getETag(), response.getLastModified());
+                markAccessed(contentHash);
+                return objectFile;
             }
-            synchronized (METADATA_LOCK)
-            {
-                CACHE_METADATA.addProperty(key, System.currentTimeMillis() + unit.toMillis(timeout));
-                nextWriteTime = System.currentTimeMillis() + METADATA_WRITE_TIME;
-            }
-            return imageFile;
+
+            String downloadedHash = download(key, response.getStream());
+            updateMetadata(key, System.currentTimeMillis() + unit.toMillis(timeout), response.getETag(), response.getLastModified());
+            METADATA.remove(key + FAILED_SUFFIX);
+            markAccessed(downloadedHash);
+            return OBJECTS_FOLDER.resolve(downloadedHash);
         }
         catch (Exception e)
         {
@@ -254,21 +248,205 @@ public class GeometryCache
         }
         finally
         {
-            IOUtils.closeQuietly(fetchedStream);
+            IOUtils.closeQuietly(response);
         }
 
         return null;
     }
 
-    private static void clientTick(TickEvent.ClientTickEvent event)
+    @Nullable
+    private static String normalizeHash(@Nullable String hash)
+    {
+        return hash != null && HASH_PATTERN.matcher(hash).matches() ? hash.toLowerCase(Locale.ROOT) : null;
+    }
+
+    @Nullable
+    private static Path getObject(@Nullable String hash)
+    {
+        if (hash == null)
+            return null;
+
+        // The content was verified when it was stored, so only the size needs to be checked against the file
+        JsonPrimitive size = METADATA.get(hash + SIZE_SUFFIX);
+        if (size == null || !size.isNumber())
+            return null;
+        Path objectFile = OBJECTS_FOLDER.resolve(hash);
+        try
+        {
+            return Files.size(objectFile) == size.getAsLong() ? objectFile : null;
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    // The sweep runs in the background while files are being requested, so anything handed out this session is never evicted
+    @Nullable
+    private static Path retainObject(@Nullable String hash)
+    {
+        synchronized (RETAINED)
+        {
+            Path objectFile = getObject(hash);
+            if (objectFile != null)
+                RETAINED.add(hash);
+            return objectFile;
+        }
+    }
+
+    // Files downloaded before content was stored by hash are moved into the object store the first time they are requested
+    @Nullable
+    private static String getContentHash(String key)
     {
-        if (event.phase != TickEvent.Phase.END || nextWriteTime == Long.MAX_VALUE)
-            return;
+        String hash = normalizeHash(getString(key + OBJECT_SUFFIX));
+        if (hash != null)
+            return hash;
 
-        if (System.currentTimeMillis() - nextWriteTime > 0)
+        Path legacyFile = CACHE_FOLDER.resolve(key);
+        if (!Files.exists(legacyFile))
+            return null;
+        try
+        {
+            String legacyHash;
+            try (InputStream stream = Files.newInputStream(legacyFile))
+            {
+                legacyHash = DigestUtils.md5Hex(stream);
+            }
+            return store(key, legacyFile, legacyHash, Files.size(legacyFile));
+        }
+        catch (Exception e)
         {
-            nextWriteTime = Long.MAX_VALUE;
-            Util.backgroundExecutor().execute(GeometryCache::writeMetadata);
+            LOGGER.error("Failed to move '" + legacyFile + "' into the object store", e);
+            return null;
         }
     }
+
+    private static String download(String key, InputStream stream) throws IOException
+    {
+        Files.createDirectories(OBJECTS_FOLDER);
+        Path tempFile = Files.createTempFile(OBJECTS_FOLDER, key, CacheSweeper.TEMP_SUFFIX);
+        try
+        {
+            // The content is hashed while it is written so it never has to be read back
+            DigestInputStream digestStream = new DigestInputStream(stream, DigestUtils.getMd5Digest());
+            long size = Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            return store(key, tempFile, Hex.encodeHexString(digestStream.getMessageDigest().digest()), size);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String store(String key, Path file, String hash, long size) throws IOException
+    {
+        synchronized (RETAINED)
+        {
+            RETAINED.add(hash);
+        }
+        if (getObject(hash) != null)
+        {
+            // Another url already produced the same content
+            Files.delete(file);
+        }
+        else
+        {
+            Files.createDirectories(OBJECTS_FOLDER);
+            METADATA.put(hash + SIZE_SUFFIX, size);
+            Path objectFile = OBJECTS_FOLDER.resolve(hash);
+            try
+            {
+                try
+                {
+                    Files.move(file, objectFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(file, objectFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            catch (IOException e)
+            {
+                // The same content may have been moved into place by another thread at the same time
+                if (getObject(hash) == null)
+                    throw e;
+                Files.delete(file);
+            }
+        }
+        METADATA.put(key + OBJECT_SUFFIX, hash);
+        return hash;
+    }
+
+    // Failed downloads are remembered in metadata instead of leaving empty files behind
+    private static boolean hasFailed(String key)
+    {
+        JsonPrimitive retryTime = METADATA.get(key + FAILED_SUFFIX);
+        return retryTime != null && retryTime.isNumber() && retryTime.getAsLong() - System.currentTimeMillis() > 0;
+    }
+
+    // Only recorded once in a while so frequently used files do not flood the metadata log
+    private static void markAccessed(String key)
+    {
+        long now = System.currentTimeMillis();
+        JsonPrimitive lastAccess = METADATA.get(key + CacheSweeper.LAST_ACCESS_SUFFIX);
+        if (lastAccess == null || !lastAccess.isNumber() || now - lastAccess.getAsLong() > ACCESS_RESOLUTION)
+            METADATA.put(key + CacheSweeper.LAST_ACCESS_SUFFIX, now);
+    }
+
+    @Nullable
+    private static String getString(String key)
+    {
+        JsonPrimitive value = METADATA.get(key);
+        return value != null && value.isString() ? value.getAsString() : null;
+    }
+
+    private static void updateMetadata(String key, long expirationDate, @Nullable String eTag, @Nullable String lastModified)
+    {
+        METADATA.put(key, expirationDate);
+        if (eTag != null)
+        {
+            METADATA.put(key + ETAG_SUFFIX, eTag);
+        }
+        else
+        {
+            METADATA.remove(key + ETAG_SUFFIX);
+        }
+        if (lastModified != null)
+        {
+            METADATA.put(key + LAST_MODIFIED_SUFFIX, lastModified);
+        }
+        else
+        {
+            METADATA.remove(key + LAST_MODIFIED_SUFFIX);
+        }
+    }
+
+    /**
+     * @return The folder all cached data is stored in
+     */
+    public static Path getCacheFolder()
+    {
+        return CACHE_FOLDER;
+    }
+
+    /**
+     * <p>Fetches a resource, only transferring it if it has changed since the copy already downloaded.</p>
+     *
+     * @author Ocelot
+     */
+    @ApiStatus.Internal
+    @FunctionalInterface
+    public interface ConditionalFetcher
+    {
+        /**
+         * Fetches the specified url.
+         *
+         * @param url          The url to fetch
+         * @param eTag         The <code>ETag</code> of the copy already downloaded or <code>null</code> if unknown
+         * @param lastModified The <code>Last-Modified</code> date of the copy already downloaded or <code>null</code> if unknown
+         * @return The response or <code>null</code> if the resource could not be fetched
+         */
+        @Nullable
+        OnlineFetcher.Response fetch(String url, @Nullable String eTag, @Nullable String lastModified);
+    }
 }
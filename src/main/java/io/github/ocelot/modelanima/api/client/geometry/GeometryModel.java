@@ -7,6 +7,7 @@ import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
 import io.github.ocelot.modelanima.core.client.geometry.LocalGeometryModelLoader;
 import net.minecraft.client.model.geom.ModelPart;
 import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 
 import javax.annotation.Nullable;
 import java.util.Optional;
@@ -162,6 +163,7 @@ public interface GeometryModel
      */
     default VertexConsumer getBuffer(MultiBufferSource buffer, GeometryAtlasTexture atlas, GeometryModelTexture texture)
     {
-        return atlas.getSprite(texture.getLocation()).wrap(buffer.getBuffer(texture.getLayer().getRenderType(texture, atlas.getAtlasLocation())));
+        TextureAtlasSprite sprite = atlas.getSprite(texture.getLocation());
+        return sprite.wrap(buffer.getBuffer(texture.getLayer().getRenderType(texture, sprite.atlas().location())));
     }
 }
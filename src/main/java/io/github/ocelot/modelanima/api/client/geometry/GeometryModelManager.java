@@ -1,9 +1,12 @@
 package io.github.ocelot.modelanima.api.client.geometry;
 
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.common.animation.AnimationData;
 import io.github.ocelot.modelanima.api.common.util.BackgroundLoader;
 import io.github.ocelot.modelanima.core.client.geometry.LocalGeometryModelLoader;
 import io.github.ocelot.modelanima.core.client.util.DynamicReloader;
+import io.github.ocelot.modelanima.core.client.util.SnapshotRegistry;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
@@ -38,7 +41,7 @@ public final class GeometryModelManager
     private static final Reloader RELOADER = new Reloader();
     private static final DynamicReloader DYNAMIC_RELOADER = new DynamicReloader();
     private static final Set<BackgroundLoader<Map<ResourceLocation, GeometryModel>>> LOADERS = new HashSet<>();
-    private static final Map<ResourceLocation, GeometryModel> MODELS = new HashMap<>();
+    private static final SnapshotRegistry<GeometryModel> MODELS = new SnapshotRegistry<>("geometry model", GeometryModel.EMPTY);
 
     static
     {
@@ -88,11 +91,18 @@ public final class GeometryModelManager
      */
     public static GeometryModel getModel(ResourceLocation location)
     {
-        return MODELS.computeIfAbsent(location, key ->
-        {
-            LOGGER.warn("Unknown geometry model with key '{}'", location);
-            return GeometryModel.EMPTY;
-        });
+        return MODELS.get(location);
+    }
+
+    /**
+     * Fetches a handle to a model by the specified name. The handle is updated automatically when models are reloaded.
+     *
+     * @param location The name of the model
+     * @return A handle to the model
+     */
+    public static ResourceHandle<GeometryModel> getModelHandle(ResourceLocation location)
+    {
+        return MODELS.handle(location);
     }
 
     /**
@@ -108,6 +118,7 @@ public final class GeometryModelManager
         @Override
         public CompletableFuture<Void> reload(PreparationBarrier stage, ResourceManager resourceManager, ProfilerFiller preparationsProfiler, ProfilerFiller reloadProfiler, Executor backgroundExecutor, Executor gameExecutor)
         {
+            ReloadMetrics.Session metrics = ReloadMetrics.begin(ReloadMetrics.Source.GEOMETRY);
             Map<ResourceLocation, GeometryModel> geometryModels = new HashMap<>();
             return CompletableFuture.allOf(LOADERS.stream().map(modelLoader -> modelLoader.reload(resourceManager, backgroundExecutor, gameExecutor).thenAcceptAsync(pairs ->
             {
@@ -116,9 +127,11 @@ public final class GeometryModelManager
                         LOGGER.warn("Duplicate geometry model: " + entry.getKey());
             }, gameExecutor)).toArray(CompletableFuture[]::new)).thenCompose(stage::wait).thenRunAsync(() ->
             {
-                LOGGER.info("Loaded " + geometryModels.size() + " geometry models.");
-                MODELS.clear();
-                MODELS.putAll(geometryModels);
+                long startTime = metrics.startTimer();
+                int changed = MODELS.replace(geometryModels);
+                metrics.stopTimer(ReloadMetrics.Phase.SWAP, startTime);
+                metrics.finish();
+                LOGGER.info("Loaded " + geometryModels.size() + " geometry models, " + changed + " changed.");
             }, gameExecutor);
         }
     }
@@ -2,6 +2,8 @@ package io.github.ocelot.modelanima.api.client.geometry;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import cpw.mods.modlauncher.api.INameMappingService;
+import io.github.ocelot.modelanima.api.client.metrics.FrameMetrics;
+import io.github.ocelot.modelanima.api.client.texture.GeometryAtlasTexture;
 import io.github.ocelot.modelanima.api.client.texture.GeometryTextureManager;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
@@ -9,6 +11,7 @@ import io.github.ocelot.modelanima.core.client.geometry.GeometryModelBufferSourc
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.model.Model;
 import net.minecraft.client.model.geom.ModelPart;
+import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
 
@@ -67,19 +70,68 @@ public class GeometryModelRenderer
     public static void render(GeometryModel model, @Nullable ResourceLocation textureLocation, PoseStack matrixStack, int packedLight, int packedOverlay, float red, float green, float blue, float alpha)
     {
         if (GeometryTextureManager.isReloading())
+        {
+            FrameMetrics.increment(FrameMetrics.Counter.CULLED_MODELS, 1);
+            return;
+        }
+        render(model, textureLocation == null ? GeometryModelTextureTable.EMPTY : GeometryTextureManager.getTextures(textureLocation), matrixStack, packedLight, packedOverlay, red, green, blue, alpha);
+    }
+
+    /**
+     * Renders the specified model with an already resolved texture table.
+     *
+     * @param model         The model to render
+     * @param textures      The textures to apply to the model
+     * @param matrixStack   The current stack of transformations
+     * @param packedLight   The packed uv into the light texture the parts should be rendered at
+     * @param packedOverlay The packed uv into the overlay texture the parts should be rendered at
+     * @param red           The red factor for color
+     * @param green         The green factor for color
+     * @param blue          The blue factor for color
+     * @param alpha         The alpha factor for color
+     */
+    public static void render(GeometryModel model, GeometryModelTextureTable textures, PoseStack matrixStack, int packedLight, int packedOverlay, float red, float green, float blue, float alpha)
+    {
+        render(model, textures, matrixStack, Minecraft.getInstance().renderBuffers().bufferSource(), GeometryTextureManager.getAtlas(), packedLight, packedOverlay, red, green, blue, alpha);
+    }
+
+    /**
+     * Renders the specified model into the specified buffers with sprites from the specified atlas.
+     *
+     * @param model         The model to render
+     * @param textures      The textures to apply to the model
+     * @param matrixStack   The current stack of transformations
+     * @param buffer        The buffers to render into
+     * @param atlas         The atlas to fetch texture sprites from
+     * @param packedLight   The packed uv into the light texture the parts should be rendered at
+     * @param packedOverlay The packed uv into the overlay texture the parts should be rendered at
+     * @param red           The red factor for color
+     * @param green         The green factor for color
+     * @param blue          The blue factor for color
+     * @param alpha         The alpha factor for color
+     */
+    public static void render(GeometryModel model, GeometryModelTextureTable textures, PoseStack matrixStack, MultiBufferSource buffer, GeometryAtlasTexture atlas, int packedLight, int packedOverlay, float red, float green, float blue, float alpha)
+    {
+        if (GeometryTextureManager.isReloading() || model == GeometryModel.EMPTY)
+        {
+            FrameMetrics.increment(FrameMetrics.Counter.CULLED_MODELS, 1);
             return;
-        GeometryModelTextureTable textures = textureLocation == null ? GeometryModelTextureTable.EMPTY : GeometryTextureManager.getTextures(textureLocation);
+        }
+
+        GeometryTextureManager.markUsed(textures);
+        long startTime = FrameMetrics.startTimer();
         for (String material : model.getMaterialKeys())
         {
             GeometryModelTexture[] layers = textures.getLayerTextures(material);
             for (GeometryModelTexture texture : layers)
             {
                 SOURCE.setLayer(texture.getLayer());
-                model.render(material, texture, matrixStack, model.getBuffer(Minecraft.getInstance().renderBuffers().bufferSource(), GeometryTextureManager.getAtlas(), texture), texture.isGlowing() ? 15728880 : packedLight, packedOverlay, red * texture.getRed(), green * texture.getGreen(), blue * texture.getBlue(), alpha);
+                model.render(material, texture, matrixStack, model.getBuffer(buffer, atlas, texture), texture.isGlowing() ? 15728880 : packedLight, packedOverlay, red * texture.getRed(), green * texture.getGreen(), blue * texture.getBlue(), alpha);
             }
         }
         SOURCE.setLayer(GeometryModelTexture.TextureLayer.SOLID);
         SOURCE.endBatch();
+        FrameMetrics.stopTimer(FrameMetrics.Timer.RENDER, startTime);
     }
 
     private static Map<String, ModelPart> mapRenderers(Model model)
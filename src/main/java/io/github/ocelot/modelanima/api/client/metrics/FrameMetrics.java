@@ -0,0 +1,211 @@
+package io.github.ocelot.modelanima.api.client.metrics;
+
+import io.github.ocelot.modelanima.ModelAnima;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Counts the work ModelAnima does each frame. The totals of the last completed frame can be read through {@link #getLastFrame()}.</p>
+ * <p>Metrics are only collected while enabled, either through {@link #setEnabled(boolean)} or the <code>modelanima.metrics</code> system property.</p>
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class FrameMetrics
+{
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Timer[] TIMERS = Timer.values();
+    private static final LongAdder[] COUNTER_VALUES = create(COUNTERS.length);
+    private static final LongAdder[] TIMER_VALUES = create(TIMERS.length);
+
+    private static volatile boolean enabled = Boolean.getBoolean(ModelAnima.MOD_ID + ".metrics");
+    private static volatile Frame lastFrame = new Frame(new long[COUNTERS.length], new long[TIMERS.length]);
+
+    private FrameMetrics()
+    {
+    }
+
+    private static LongAdder[] create(int length)
+    {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * Adds to the specified counter for the current frame.
+     *
+     * @param counter The counter to add to
+     * @param amount  The amount to add
+     */
+    public static void increment(Counter counter, long amount)
+    {
+        if (enabled)
+            COUNTER_VALUES[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * Starts timing a section of work.
+     *
+     * @return The start time to pass into {@link #stopTimer(Timer, long)}
+     */
+    public static long startTimer()
+    {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Adds the time since the specified start time to the specified timer.
+     *
+     * @param timer     The timer to add to
+     * @param startTime The time returned by {@link #startTimer()}
+     */
+    public static void stopTimer(Timer timer, long startTime)
+    {
+        if (enabled && startTime != 0L)
+            TIMER_VALUES[timer.ordinal()].add(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Completes the current frame and makes its totals available through {@link #getLastFrame()}.
+     */
+    @ApiStatus.Internal
+    public static void endFrame()
+    {
+        if (!enabled)
+            return;
+
+        long[] counters = new long[COUNTERS.length];
+        for (int i = 0; i < counters.length; i++)
+            counters[i] = COUNTER_VALUES[i].sumThenReset();
+        long[] timers = new long[TIMERS.length];
+        for (int i = 0; i < timers.length; i++)
+            timers[i] = TIMER_VALUES[i].sumThenReset();
+        lastFrame = new Frame(counters, timers);
+    }
+
+    /**
+     * @return Whether metrics are currently being collected
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Sets whether metrics should be collected.
+     *
+     * @param enabled Whether to collect metrics
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        FrameMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return The totals of the last completed frame
+     */
+    public static Frame getLastFrame()
+    {
+        return lastFrame;
+    }
+
+    /**
+     * <p>Types of work counted each frame.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public enum Counter
+    {
+        ANIMATIONS_EVALUATED("Animations"),
+        EXPRESSIONS_RESOLVED("MoLang Expressions"),
+        VERTICES_EMITTED("Vertices"),
+        DRAW_CALLS("Draw Calls"),
+        CULLED_MODELS("Culled Models");
+
+        private final String displayName;
+
+        Counter(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The name to display this counter with
+         */
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    /**
+     * <p>Sections of work timed each frame.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public enum Timer
+    {
+        APPLY_ANIMATIONS("Apply Animations"),
+        RENDER("Render");
+
+        private final String displayName;
+
+        Timer(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The name to display this timer with
+         */
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    /**
+     * <p>The totals of a single completed frame.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public static final class Frame
+    {
+        private final long[] counters;
+        private final long[] timers;
+
+        private Frame(long[] counters, long[] timers)
+        {
+            this.counters = counters;
+            this.timers = timers;
+        }
+
+        /**
+         * Fetches the total of the specified counter.
+         *
+         * @param counter The counter to get
+         * @return The total for the frame
+         */
+        public long get(Counter counter)
+        {
+            return this.counters[counter.ordinal()];
+        }
+
+        /**
+         * Fetches the total time spent in the specified timer.
+         *
+         * @param timer The timer to get
+         * @return The time spent in nanoseconds
+         */
+        public long getNanos(Timer timer)
+        {
+            return this.timers[timer.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package io.github.ocelot.modelanima.api.client.metrics;
+
+import io.github.ocelot.modelanima.ModelAnima;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Times each phase of reloading geometry models, animations and textures. The report of the last completed reload of each {@link Source} can be read through {@link #getLastReport(Source)}.</p>
+ * <p>Phase times are summed over every thread that worked on the phase, so phases run in parallel can add up to more than the time the reload took.</p>
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class ReloadMetrics
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Source[] SOURCES = Source.values();
+    private static final Phase[] PHASES = Phase.values();
+    private static final int SLOWEST_COUNT = Math.max(0, Integer.getInteger(ModelAnima.MOD_ID + ".reloadMetrics.slowest", 10));
+
+    private static final AtomicReferenceArray<Session> SESSIONS = new AtomicReferenceArray<>(SOURCES.length);
+    private static final AtomicReferenceArray<Report> REPORTS = new AtomicReferenceArray<>(SOURCES.length);
+
+    static
+    {
+        for (Source source : SOURCES)
+            SESSIONS.set(source.ordinal(), new Session(source));
+    }
+
+    private ReloadMetrics()
+    {
+    }
+
+    /**
+     * Starts timing a new reload of the specified source. Any unfinished session for the source is discarded.
+     *
+     * @param source The source being reloaded
+     * @return The new session
+     */
+    @ApiStatus.Internal
+    public static Session begin(Source source)
+    {
+        Session session = new Session(source);
+        SESSIONS.set(source.ordinal(), session);
+        return session;
+    }
+
+    /**
+     * Fetches the session timing the current reload of the specified source.
+     *
+     * @param source The source being reloaded
+     * @return The current session
+     */
+    @ApiStatus.Internal
+    public static Session getSession(Source source)
+    {
+        return SESSIONS.get(source.ordinal());
+    }
+
+    /**
+     * Creates a session for work on the specified source that happens outside a reload. It is never made current, so its timings are released once the caller is done with it.
+     *
+     * @param source The source being worked on
+     * @return A new session
+     */
+    @ApiStatus.Internal
+    public static Session detached(Source source)
+    {
+        return new Session(source);
+    }
+
+    /**
+     * Fetches the report of the last completed reload of the specified source.
+     *
+     * @param source The source to get the report for
+     * @return The last report or <code>null</code> if the source has not finished reloading yet
+     */
+    @Nullable
+    public static Report getLastReport(Source source)
+    {
+        return REPORTS.get(source.ordinal());
+    }
+
+    private static String formatMillis(long nanos)
+    {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * <p>The types of resources reloaded.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public enum Source
+    {
+        GEOMETRY("Geometry"),
+        ANIMATION("Animations"),
+        TEXTURE("Textures"),
+        ONLINE_TEXTURE("Online Textures");
+
+        private final String displayName;
+
+        Source(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The name to display this source with
+         */
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    /**
+     * <p>The phases of work done during a reload.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public enum Phase
+    {
+        LIST_RESOURCES("List Resources"),
+        PARSE("Parse"),
+        ONLINE_FETCH("Online Fetch"),
+        HASH_VERIFICATION("Hash Verification"),
+        STITCH("Stitch"),
+        UPLOAD("Upload"),
+        SWAP("Swap");
+
+        private final String displayName;
+
+        Phase(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The name to display this phase with
+         */
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    /**
+     * <p>Collects timings for a single reload. Timings can be recorded from any thread.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public static final class Session
+    {
+        private final Source source;
+        private final long startTime;
+        private final LongAdder[] phases;
+        private final Queue<ResourceTiming> resources;
+
+        private Session(Source source)
+        {
+            this.source = source;
+            this.startTime = System.nanoTime();
+            this.phases = new LongAdder[PHASES.length];
+            for (int i = 0; i < this.phases.length; i++)
+                this.phases[i] = new LongAdder();
+            this.resources = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * Starts timing a section of work.
+         *
+         * @return The start time to pass into {@link #stopTimer(Phase, long)}
+         */
+        public long startTimer()
+        {
+            return System.nanoTime();
+        }
+
+        /**
+         * Adds the time since the specified start time to the specified phase.
+         *
+         * @param phase     The phase the work was part of
+         * @param startTime The time returned by {@link #startTimer()}
+         */
+        public void stopTimer(Phase phase, long startTime)
+        {
+            this.phases[phase.ordinal()].add(System.nanoTime() - startTime);
+        }
+
+        /**
+         * Adds the time since the specified start time to the specified phase and records it against a single resource.
+         *
+         * @param phase     The phase the work was part of
+         * @param startTime The time returned by {@link #startTimer()}
+         * @param resource  The name of the resource worked on
+         * @param pack      The name of the pack the resource came from
+         */
+        public void stopTimer(Phase phase, long startTime, String resource, String pack)
+        {
+            long nanos = System.nanoTime() - startTime;
+            this.phases[phase.ordinal()].add(nanos);
+            this.resources.add(new ResourceTiming(phase, resource, pack, nanos));
+        }
+
+        /**
+         * Completes this session and makes it available through {@link #getLastReport(Source)}.
+         */
+        @ApiStatus.Internal
+        public void finish()
+        {
+            long[] phases = new long[this.phases.length];
+            for (int i = 0; i < phases.length; i++)
+                phases[i] = this.phases[i].sum();
+
+            Map<String, Long> packs = new HashMap<>();
+            List<ResourceTiming> resources = new ArrayList<>(this.resources);
+            for (ResourceTiming timing : resources)
+                packs.merge(timing.getPack(), timing.getNanos(), Long::sum);
+            resources.sort(Comparator.comparingLong(ResourceTiming::getNanos).reversed());
+
+            Map<String, Long> sortedPacks = new LinkedHashMap<>();
+            packs.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).forEachOrdered(entry -> sortedPacks.put(entry.getKey(), entry.getValue()));
+
+            Report report = new Report(this.source, System.nanoTime() - this.startTime, phases, Collections.unmodifiableList(new ArrayList<>(resources.subList(0, Math.min(SLOWEST_COUNT, resources.size())))), Collections.unmodifiableMap(sortedPacks));
+            REPORTS.set(this.source.ordinal(), report);
+            SESSIONS.compareAndSet(this.source.ordinal(), this, new Session(this.source));
+            report.log();
+        }
+    }
+
+    /**
+     * <p>The timings of a single completed reload.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public static final class Report
+    {
+        private final Source source;
+        private final long totalNanos;
+        private final long[] phases;
+        private final List<ResourceTiming> slowest;
+        private final Map<String, Long> packs;
+
+        private Report(Source source, long totalNanos, long[] phases, List<ResourceTiming> slowest, Map<String, Long> packs)
+        {
+            this.source = source;
+            this.totalNanos = totalNanos;
+            this.phases = phases;
+            this.slowest = slowest;
+            this.packs = packs;
+        }
+
+        private void log()
+        {
+            StringBuilder builder = new StringBuilder("Reloaded ").append(this.source.getDisplayName().toLowerCase(Locale.ROOT)).append(" in ").append(formatMillis(this.totalNanos));
+            String separator = " (";
+            for (Phase phase : PHASES)
+            {
+                long nanos = this.phases[phase.ordinal()];
+                if (nanos == 0)
+                    continue;
+                builder.append(separator).append(phase.getDisplayName()).append(": ").append(formatMillis(nanos));
+                separator = ", ";
+            }
+            if (!" (".equals(separator))
+                builder.append(')');
+            LOGGER.info(builder.toString());
+
+            if (!LOGGER.isDebugEnabled())
+                return;
+            this.packs.forEach((pack, nanos) -> LOGGER.debug("  " + formatMillis(nanos) + " in pack '" + pack + "'"));
+            for (ResourceTiming timing : this.slowest)
+                LOGGER.debug("  " + formatMillis(timing.getNanos()) + " " + timing.getPhase().getDisplayName() + " '" + timing.getResource() + "' from '" + timing.getPack() + "'");
+        }
+
+        /**
+         * @return The source that was reloaded
+         */
+        public Source getSource()
+        {
+            return source;
+        }
+
+        /**
+         * @return The time from the start to the end of the reload in nanoseconds
+         */
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        /**
+         * Fetches the total time spent in the specified phase.
+         *
+         * @param phase The phase to get
+         * @return The time spent in nanoseconds
+         */
+        public long getNanos(Phase phase)
+        {
+            return this.phases[phase.ordinal()];
+        }
+
+        /**
+         * @return The slowest resources, slowest first. The amount kept can be changed with the <code>modelanima.reloadMetrics.slowest</code> system property
+         */
+        public List<ResourceTiming> getSlowest()
+        {
+            return slowest;
+        }
+
+        /**
+         * @return The total time spent on resources from each pack in nanoseconds, slowest first
+         */
+        public Map<String, Long> getPacks()
+        {
+            return packs;
+        }
+    }
+
+    /**
+     * <p>The time spent on a single resource during a reload phase.</p>
+     *
+     * @author Ocelot
+     * @since 1.0.0
+     */
+    public static final class ResourceTiming
+    {
+        private final Phase phase;
+        private final String resource;
+        private final String pack;
+        private final long nanos;
+
+        private ResourceTiming(Phase phase, String resource, String pack, long nanos)
+        {
+            this.phase = phase;
+            this.resource = resource;
+            this.pack = pack;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The phase the time was spent in
+         */
+        public Phase getPhase()
+        {
+            return phase;
+        }
+
+        /**
+         * @return The name of the resource
+         */
+        public String getResource()
+        {
+            return resource;
+        }
+
+        /**
+         * @return The name of the pack the resource came from
+         */
+        public String getPack()
+        {
+            return pack;
+        }
+
+        /**
+         * @return The time spent in nanoseconds
+         */
+        public long getNanos()
+        {
+            return nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ResourceTiming{" +
+                    "phase=" + phase +
+                    ", resource='" + resource + '\'' +
+                    ", pack='" + pack + '\'' +
+                    ", nanos=" + nanos +
+                    '}';
+        }
+    }
+}
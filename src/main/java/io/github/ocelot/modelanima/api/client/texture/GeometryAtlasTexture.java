@@ -17,7 +17,7 @@ public interface GeometryAtlasTexture
     ResourceLocation getAtlasLocation();
 
     /**
-     * Fetches a texture for the specified location.
+     * Fetches a texture for the specified location. The sprite may be stitched onto a different atlas than {@link #getAtlasLocation()}, so {@link TextureAtlasSprite#atlas()} should be used to find the texture to bind.
      *
      * @param location The location of the texture to grab
      * @return The sprite with that key or the missing texture sprite
@@ -1,11 +1,14 @@
 package io.github.ocelot.modelanima.api.client.texture;
 
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModelRenderer;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
 import io.github.ocelot.modelanima.core.client.texture.GeometryTextureSpriteUploader;
 import io.github.ocelot.modelanima.core.client.texture.LocalTextureTableLoader;
 import io.github.ocelot.modelanima.core.client.texture.StaticTextureTableLoader;
 import io.github.ocelot.modelanima.core.client.util.DynamicReloader;
+import io.github.ocelot.modelanima.core.client.util.SnapshotRegistry;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
@@ -14,6 +17,8 @@ import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.util.Unit;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraftforge.client.event.ColorHandlerEvent;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.IEventBus;
 import org.apache.commons.lang3.tuple.Pair;
@@ -39,7 +44,7 @@ public class GeometryTextureManager
     private static final Reloader RELOADER = new Reloader();
     private static final DynamicReloader DYNAMIC_RELOADER = new DynamicReloader();
     private static final Set<TextureTableLoader> PROVIDERS = new HashSet<>();
-    private static final Map<ResourceLocation, GeometryModelTextureTable> TEXTURES = new HashMap<>();
+    private static final SnapshotRegistry<GeometryModelTextureTable> TEXTURES = new SnapshotRegistry<>("texture table", GeometryModelTextureTable.EMPTY);
     private static GeometryTextureSpriteUploader spriteUploader;
 
     static
@@ -60,6 +65,13 @@ public class GeometryTextureManager
             }
         });
         addProvider(new LocalTextureTableLoader());
+        MinecraftForge.EVENT_BUS.addListener(GeometryTextureManager::clientTick);
+    }
+
+    private static void clientTick(TickEvent.ClientTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END && spriteUploader != null)
+            spriteUploader.tickResidency();
     }
 
     /**
@@ -92,11 +104,18 @@ public class GeometryTextureManager
      */
     public static GeometryModelTextureTable getTextures(ResourceLocation location)
     {
-        return TEXTURES.computeIfAbsent(location, key ->
-        {
-            LOGGER.warn("Unknown texture table with key '{}'", location);
-            return GeometryModelTextureTable.EMPTY;
-        });
+        return TEXTURES.get(location);
+    }
+
+    /**
+     * Fetches a handle to a texture table by the specified location. The handle is updated automatically when textures are reloaded.
+     *
+     * @param location The location of the texture table
+     * @return A handle to the texture table
+     */
+    public static ResourceHandle<GeometryModelTextureTable> getTexturesHandle(ResourceLocation location)
+    {
+        return TEXTURES.handle(location);
     }
 
     /**
@@ -110,6 +129,41 @@ public class GeometryTextureManager
         return DYNAMIC_RELOADER.reload(showLoadingScreen);
     }
 
+    /**
+     * Records that the specified texture table is being rendered. When demand residency is enabled, textures are only stitched once something renders with them.
+     *
+     * @param textures The texture table being rendered
+     */
+    @ApiStatus.Internal
+    public static void markUsed(GeometryModelTextureTable textures)
+    {
+        if (spriteUploader != null)
+            spriteUploader.markUsed(textures);
+    }
+
+    /**
+     * <p>Keeps the textures of the specified texture table stitched even when nothing is rendering with them. Only has an effect when demand residency is enabled with <code>-Dmodelanima.demandResidency=true</code>.</p>
+     * <p>Every call must be matched with a call to {@link #release(ResourceLocation)}.</p>
+     *
+     * @param location The location of the texture table
+     */
+    public static void retain(ResourceLocation location)
+    {
+        if (spriteUploader != null)
+            spriteUploader.retain(location);
+    }
+
+    /**
+     * Releases a texture table previously retained with {@link #retain(ResourceLocation)}. Its textures are evicted once nothing has rendered with them for a while.
+     *
+     * @param location The location of the texture table
+     */
+    public static void release(ResourceLocation location)
+    {
+        if (spriteUploader != null)
+            spriteUploader.release(location);
+    }
+
     /**
      * @return The base geometry atlas texture
      */
@@ -139,6 +193,7 @@ public class GeometryTextureManager
         @Override
         public CompletableFuture<Void> reload(PreparationBarrier stage, ResourceManager resourceManager, ProfilerFiller preparationsProfiler, ProfilerFiller reloadProfiler, Executor backgroundExecutor, Executor gameExecutor)
         {
+            ReloadMetrics.Session metrics = ReloadMetrics.begin(ReloadMetrics.Source.TEXTURE);
             return CompletableFuture.allOf(PROVIDERS.stream().map(provider -> provider.reload(stage, resourceManager, preparationsProfiler, reloadProfiler, backgroundExecutor, gameExecutor)).toArray(CompletableFuture[]::new)).thenApplyAsync(a ->
             {
                 Map<ResourceLocation, GeometryModelTextureTable> textures = new HashMap<>();
@@ -154,12 +209,16 @@ public class GeometryTextureManager
                     .thenCompose(pair -> spriteUploader.setTextures(pair.getLeft(), pair.getRight()).reload(stage, resourceManager, preparationsProfiler, reloadProfiler, backgroundExecutor, gameExecutor))
                     .thenCompose(stage::wait).thenAcceptAsync(textures ->
                     {
-                        TEXTURES.clear();
+                        long startTime = metrics.startTimer();
+                        Map<ResourceLocation, GeometryModelTextureTable> loaded = new HashMap<>();
                         PROVIDERS.forEach(provider -> provider.addTextures((location, texture) ->
                         {
-                            if (TEXTURES.put(location, texture) != null)
+                            if (loaded.put(location, texture) != null)
                                 LOGGER.warn("Texture at location '" + location + "' already exists and is being overridden.");
                         }));
+                        TEXTURES.replace(loaded);
+                        metrics.stopTimer(ReloadMetrics.Phase.SWAP, startTime);
+                        metrics.finish();
                     }, gameExecutor);
         }
     }
@@ -1,10 +1,16 @@
 package io.github.ocelot.modelanima.api.common.animation;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.github.ocelot.modelanima.api.common.util.JSONTupleParser;
+import io.github.ocelot.modelanima.core.common.animation.KeyFrameCompressor;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
+import io.github.ocelot.modelanima.core.common.util.MolangConstantPool;
 import io.github.ocelot.molangcompiler.api.MolangExpression;
 import net.minecraft.util.GsonHelper;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.function.BiConsumer;
@@ -529,14 +535,14 @@ public class AnimationData
                 {
                     JsonObject boneAnimationObject = boneAnimationEntry.getValue().getAsJsonObject();
 
-                    parseTransform(positions, boneAnimationObject, "position", () -> new MolangExpression[]{MolangExpression.ZERO, MolangExpression.ZERO, MolangExpression.ZERO});
-                    parseTransform(rotations, boneAnimationObject, "rotation", () -> new MolangExpression[]{MolangExpression.ZERO, MolangExpression.ZERO, MolangExpression.ZERO});
-                    parseTransform(scales, boneAnimationObject, "scale", () -> new MolangExpression[]{MolangExpression.of(1), MolangExpression.of(1), MolangExpression.of(1)});
+                    parseTransform(positions, boneAnimationObject, "position", () -> new MolangExpression[]{MolangConstantPool.of(0), MolangConstantPool.of(0), MolangConstantPool.of(0)});
+                    parseTransform(rotations, boneAnimationObject, "rotation", () -> new MolangExpression[]{MolangConstantPool.of(0), MolangConstantPool.of(0), MolangConstantPool.of(0)});
+                    parseTransform(scales, boneAnimationObject, "scale", () -> new MolangExpression[]{MolangConstantPool.of(1), MolangConstantPool.of(1), MolangConstantPool.of(1)});
 
                     positions.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
                     rotations.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
                     scales.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
-                    bones.add(new BoneAnimation(boneAnimationEntry.getKey(), positions.toArray(new KeyFrame[0]), rotations.toArray(new KeyFrame[0]), scales.toArray(new KeyFrame[0])));
+                    bones.add(new BoneAnimation(boneAnimationEntry.getKey(), KeyFrameCompressor.compress(positions.toArray(KeyFrameCompressor.EMPTY)), KeyFrameCompressor.compress(rotations.toArray(KeyFrameCompressor.EMPTY)), KeyFrameCompressor.compress(scales.toArray(KeyFrameCompressor.EMPTY))));
 
                     positions.clear();
                     rotations.clear();
@@ -547,7 +553,7 @@ public class AnimationData
                 parseEffect((time, effectJson) ->
                 {
                     JsonObject soundEffectsJson = GsonHelper.convertToJsonObject(effectJson, "sound_effects");
-                    soundEffects.add(new SoundEffect(time, GsonHelper.getAsString(soundEffectsJson, "effect"), JSONTupleParser.getExpression(soundEffectsJson, "pitch", () -> MolangExpression.of(1.0F)), JSONTupleParser.getExpression(soundEffectsJson, "volume", () -> MolangExpression.of(1.0F)), GsonHelper.getAsBoolean(soundEffectsJson, "loop", false)));
+                    soundEffects.add(new SoundEffect(time, GsonHelper.getAsString(soundEffectsJson, "effect"), JSONTupleParser.getExpression(soundEffectsJson, "pitch", () -> MolangConstantPool.of(1.0F)), JSONTupleParser.getExpression(soundEffectsJson, "volume", () -> MolangConstantPool.of(1.0F)), GsonHelper.getAsBoolean(soundEffectsJson, "loop", false)));
                 }, animationObject, "sound_effects");
                 parseEffect((time, effectJson) ->
                 {
@@ -565,6 +571,328 @@ public class AnimationData
             return animations.toArray(new AnimationData[0]);
         }
 
+        /**
+         * Reads animations directly from the <code>animations</code> object without building a JSON tree.
+         *
+         * @param reader The reader positioned at the start of the animations object
+         * @return The animations read
+         * @throws IOException        If the underlying reader fails
+         * @throws JsonParseException If there is improper syntax in the JSON structure
+         */
+        public static AnimationData[] deserialize(JsonReader reader) throws IOException, JsonParseException
+        {
+            List<AnimationData> animations = new ArrayList<>();
+            List<BoneAnimation> bones = new ArrayList<>();
+            List<SoundEffect> soundEffects = new ArrayList<>();
+            List<ParticleEffect> particleEffects = new ArrayList<>();
+            List<TimelineEffect> timelineEffects = new ArrayList<>();
+            List<KeyFrame> positions = new ArrayList<>();
+            List<KeyFrame> rotations = new ArrayList<>();
+            List<KeyFrame> scales = new ArrayList<>();
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String animationName = reader.nextName();
+                Loop loop = Loop.NONE;
+                float blendWeight = 1.0F;
+                float animationLength = -1;
+                boolean overridePreviousAnimation = false;
+                boolean hasBones = false;
+
+                reader.beginObject();
+                while (reader.hasNext())
+                {
+                    String name = reader.nextName();
+                    switch (name)
+                    {
+                        case "loop":
+                            loop = readLoop(reader);
+                            break;
+                        case "blend_weight":
+                            blendWeight = JsonReaderHelper.nextFloat(reader, name);
+                            break;
+                        case "animation_length":
+                            animationLength = JsonReaderHelper.nextFloat(reader, name);
+                            break;
+                        case "override_previous_animation":
+                            overridePreviousAnimation = JsonReaderHelper.nextBoolean(reader, name);
+                            break;
+                        case "bones":
+                        {
+                            hasBones = true;
+                            reader.beginObject();
+                            while (reader.hasNext())
+                            {
+                                String boneName = reader.nextName();
+                                reader.beginObject();
+                                while (reader.hasNext())
+                                {
+                                    switch (reader.nextName())
+                                    {
+                                        case "position":
+                                            readTransform(reader, positions, "position");
+                                            break;
+                                        case "rotation":
+                                            readTransform(reader, rotations, "rotation");
+                                            break;
+                                        case "scale":
+                                            readTransform(reader, scales, "scale");
+                                            break;
+                                        default:
+                                            reader.skipValue();
+                                            break;
+                                    }
+                                }
+                                reader.endObject();
+
+                                positions.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                                rotations.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                                scales.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                                bones.add(new BoneAnimation(boneName, KeyFrameCompressor.compress(positions.toArray(KeyFrameCompressor.EMPTY)), KeyFrameCompressor.compress(rotations.toArray(KeyFrameCompressor.EMPTY)), KeyFrameCompressor.compress(scales.toArray(KeyFrameCompressor.EMPTY))));
+
+                                positions.clear();
+                                rotations.clear();
+                                scales.clear();
+                            }
+                            reader.endObject();
+                            break;
+                        }
+                        case "sound_effects":
+                        {
+                            reader.beginObject();
+                            while (reader.hasNext())
+                                soundEffects.add(readSoundEffect(reader, readTime(reader.nextName(), name)));
+                            reader.endObject();
+                            break;
+                        }
+                        case "particle_effects":
+                        {
+                            reader.beginObject();
+                            while (reader.hasNext())
+                                particleEffects.add(readParticleEffect(reader, readTime(reader.nextName(), name)));
+                            reader.endObject();
+                            break;
+                        }
+                        case "timeline":
+                        {
+                            reader.beginObject();
+                            while (reader.hasNext())
+                            {
+                                float time = readTime(reader.nextName(), name);
+                                timelineEffects.add(new TimelineEffect(time, JsonReaderHelper.nextString(reader, name)));
+                            }
+                            reader.endObject();
+                            break;
+                        }
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+
+                if (!hasBones)
+                    throw new JsonSyntaxException("Missing bones, expected to find a JsonObject");
+
+                soundEffects.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                particleEffects.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                timelineEffects.sort((a, b) -> Float.compare(a.getTime(), b.getTime()));
+                animations.add(new AnimationData(animationName, loop, blendWeight, animationLength, overridePreviousAnimation, bones.toArray(new BoneAnimation[0]), soundEffects.toArray(new SoundEffect[0]), particleEffects.toArray(new ParticleEffect[0]), timelineEffects.toArray(new TimelineEffect[0])));
+
+                bones.clear();
+                soundEffects.clear();
+                particleEffects.clear();
+                timelineEffects.clear();
+            }
+            reader.endObject();
+
+            return animations.toArray(new AnimationData[0]);
+        }
+
+        private static Loop readLoop(JsonReader reader) throws IOException, JsonParseException
+        {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.BOOLEAN)
+                return reader.nextBoolean() ? Loop.LOOP : Loop.NONE;
+            if (token == JsonToken.STRING)
+            {
+                String value = reader.nextString();
+                for (Loop loop : Loop.values())
+                    if (loop.name().equalsIgnoreCase(value))
+                        return loop;
+                throw new JsonSyntaxException("Unsupported loop: " + value);
+            }
+            throw new JsonSyntaxException("Expected Boolean or String, was " + token);
+        }
+
+        private static float readTime(String key, String name) throws JsonParseException
+        {
+            try
+            {
+                return Float.parseFloat(key);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new JsonParseException("Failed to parse " + name + " at time '" + key + "'", e);
+            }
+        }
+
+        private static SoundEffect readSoundEffect(JsonReader reader, float time) throws IOException, JsonParseException
+        {
+            String effect = null;
+            MolangExpression pitch = MolangConstantPool.of(1.0F);
+            MolangExpression volume = MolangConstantPool.of(1.0F);
+            boolean loop = false;
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                switch (name)
+                {
+                    case "effect":
+                        effect = JsonReaderHelper.nextString(reader, name);
+                        break;
+                    case "pitch":
+                        pitch = JSONTupleParser.readExpression(reader, name);
+                        break;
+                    case "volume":
+                        volume = JSONTupleParser.readExpression(reader, name);
+                        break;
+                    case "loop":
+                        loop = JsonReaderHelper.nextBoolean(reader, name);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (effect == null)
+                throw new JsonSyntaxException("Missing effect, expected to find a string");
+            return new SoundEffect(time, effect, pitch, volume, loop);
+        }
+
+        private static ParticleEffect readParticleEffect(JsonReader reader, float time) throws IOException, JsonParseException
+        {
+            String effect = null;
+            String locator = null;
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                switch (name)
+                {
+                    case "effect":
+                        effect = JsonReaderHelper.nextString(reader, name);
+                        break;
+                    case "locator":
+                        locator = JsonReaderHelper.nextString(reader, name);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (effect == null)
+                throw new JsonSyntaxException("Missing effect, expected to find a string");
+            if (locator == null)
+                throw new JsonSyntaxException("Missing locator, expected to find a string");
+            return new ParticleEffect(time, effect, locator);
+        }
+
+        private static void readTransform(JsonReader reader, Collection<KeyFrame> frames, String name) throws IOException, JsonParseException
+        {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT)
+            {
+                MolangExpression[] values = JSONTupleParser.readExpression(reader, name, 3);
+                frames.add(new KeyFrame(0, LerpMode.LINEAR, values[0], values[1], values[2], values[0], values[1], values[2]));
+                return;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String key = reader.nextName();
+                float time;
+                try
+                {
+                    time = Float.parseFloat(key);
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new JsonParseException("Invalid keyframe time '" + key + "'", e);
+                }
+                for (KeyFrame frame : frames)
+                    if (frame.getTime() == time)
+                        throw new JsonSyntaxException("Duplicate channel time '" + time + "'");
+
+                frames.add(readKeyFrame(reader, key, time));
+            }
+            reader.endObject();
+        }
+
+        private static KeyFrame readKeyFrame(JsonReader reader, String name, float time) throws IOException, JsonParseException
+        {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT)
+            {
+                MolangExpression[] transformation = JSONTupleParser.readExpression(reader, name, 3);
+                return new KeyFrame(time, LerpMode.LINEAR, transformation[0], transformation[1], transformation[2], transformation[0], transformation[1], transformation[2]);
+            }
+
+            LerpMode lerpMode = LerpMode.LINEAR;
+            MolangExpression[] pre = null;
+            MolangExpression[] post = null;
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String key = reader.nextName();
+                switch (key)
+                {
+                    case "lerp_mode":
+                    {
+                        String mode = JsonReaderHelper.nextString(reader, key);
+                        lerpMode = null;
+                        for (LerpMode m : LerpMode.values())
+                        {
+                            if (m.name().toLowerCase(Locale.ROOT).equals(mode))
+                            {
+                                lerpMode = m;
+                                break;
+                            }
+                        }
+
+                        if (lerpMode == null)
+                            throw new JsonSyntaxException("Unknown Lerp Mode: " + mode);
+                        break;
+                    }
+                    case "pre":
+                        pre = JSONTupleParser.readExpression(reader, key, 3);
+                        break;
+                    case "post":
+                        post = JSONTupleParser.readExpression(reader, key, 3);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            // Pre will default to post if not present
+            if (post == null)
+                throw new JsonSyntaxException("Missing post, expected to find a JsonArray or JsonPrimitive");
+            if (pre == null)
+                pre = post;
+            return new KeyFrame(time, lerpMode, pre[0], pre[1], pre[2], post[0], post[1], post[2]);
+        }
+
         private static Loop parseLoop(JsonElement json)
         {
             if (!json.isJsonPrimitive())
@@ -1,5 +1,6 @@
 package io.github.ocelot.modelanima.api.common.animation;
 
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
 import io.github.ocelot.modelanima.api.client.animation.AnimationManager;
 import io.github.ocelot.modelanima.core.client.geometry.BedrockGeometryModel;
 import net.minecraft.resources.ResourceLocation;
@@ -17,6 +18,9 @@ public class AnimationEffectHandler
     private final AnimationEffectSource source;
 
     private int[] soundId;
+    private ResourceLocation[] animationNames;
+    private ResourceHandle<AnimationData>[] animationHandles;
+    private AnimationData[] animations;
 
     public AnimationEffectHandler(AnimationEffectSource source)
     {
@@ -32,17 +36,35 @@ public class AnimationEffectHandler
         this.soundId = new int[0];
     }
 
+    @SuppressWarnings("unchecked")
+    private AnimationData[] resolve(ResourceLocation[] animations)
+    {
+        // Only look up new handles when the animations being played change
+        if (!Arrays.equals(this.animationNames, animations))
+        {
+            this.animationNames = animations.clone();
+            this.animationHandles = new ResourceHandle[animations.length];
+            for (int i = 0; i < animations.length; i++)
+                this.animationHandles[i] = AnimationManager.getAnimationHandle(animations[i]);
+            this.animations = new AnimationData[animations.length];
+        }
+        for (int i = 0; i < this.animationHandles.length; i++)
+            this.animations[i] = this.animationHandles[i].get();
+        return this.animations;
+    }
+
     @ApiStatus.Internal
     public void tick(ResourceLocation[] animations, float animationTime)
     {
         if (this.soundId.length != animations.length)
             this.soundId = new int[animations.length];
 
-        float animationLength = BedrockGeometryModel.getAnimationLength(animationTime, Arrays.stream(animations).map(AnimationManager::getAnimation).toArray(AnimationData[]::new));
+        AnimationData[] resolved = this.resolve(animations);
+        float animationLength = BedrockGeometryModel.getAnimationLength(animationTime, resolved);
         int iteration = (int) (animationTime / animationLength);
         for (int i = 0; i < animations.length; i++)
         {
-            AnimationData animation = AnimationManager.getAnimation(animations[i]);
+            AnimationData animation = resolved[i];
             int soundId = this.soundId[i] - iteration * animation.getSoundEffects().length;
             if (soundId < 0 || soundId >= animation.getSoundEffects().length)
                 continue;
@@ -2,9 +2,12 @@ package io.github.ocelot.modelanima.api.common.animation;
 
 import com.google.gson.*;
 import com.google.gson.stream.JsonReader;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
 import net.minecraft.util.GsonHelper;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
 /**
  * <p>Helper to read {@link AnimationData} from JSON.</p>
@@ -26,7 +29,7 @@ public class AnimationParser
      */
     public static AnimationData[] parse(Reader reader) throws JsonSyntaxException, JsonIOException
     {
-        return parse(new JsonParser().parse(reader));
+        return parse(new JsonReader(reader));
     }
 
     /**
@@ -37,7 +40,48 @@ public class AnimationParser
      */
     public static AnimationData[] parse(JsonReader reader) throws JsonSyntaxException, JsonIOException
     {
-        return parse(new JsonParser().parse(reader));
+        boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try
+        {
+            String formatVersion = null;
+            AnimationData[] animations = null;
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                if ("format_version".equals(name))
+                {
+                    formatVersion = JsonReaderHelper.nextString(reader, name);
+                    if (!formatVersion.equals(VERSION))
+                        throw new JsonSyntaxException("Unsupported animation version: " + formatVersion);
+                }
+                else if ("animations".equals(name))
+                {
+                    animations = AnimationData.Deserializer.deserialize(reader);
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (formatVersion == null)
+                throw new JsonSyntaxException("Missing format_version, expected to find a string");
+            if (animations == null)
+                throw new JsonSyntaxException("Missing animations, expected to find a JsonObject");
+            return animations;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            throw JsonReaderHelper.wrap(e);
+        }
+        finally
+        {
+            reader.setLenient(lenient);
+        }
     }
 
     /**
@@ -48,7 +92,7 @@ public class AnimationParser
      */
     public static AnimationData[] parse(String json) throws JsonSyntaxException
     {
-        return parse(new JsonParser().parse(json));
+        return parse(new StringReader(json));
     }
 
     /**
@@ -6,9 +6,12 @@ import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
 import io.github.ocelot.modelanima.core.common.geometry.Geometry110Parser;
 import io.github.ocelot.modelanima.core.common.geometry.Geometry1120Parser;
 import io.github.ocelot.modelanima.core.common.geometry.Geometry180Parser;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
 import net.minecraft.util.GsonHelper;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
 /**
  * <p>Helper to read {@link GeometryModelData} from JSON.</p>
@@ -28,7 +31,7 @@ public class GeometryModelParser
      */
     public static GeometryModelData[] parseModel(Reader reader) throws JsonParseException
     {
-        return parseModel(new JsonParser().parse(reader));
+        return parseModel(new JsonReader(reader));
     }
 
     /**
@@ -39,7 +42,47 @@ public class GeometryModelParser
      */
     public static GeometryModelData[] parseModel(JsonReader reader) throws JsonParseException
     {
-        return parseModel(new JsonParser().parse(reader));
+        boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try
+        {
+            reader.beginObject();
+            if (!reader.hasNext())
+                throw new JsonSyntaxException("Missing format_version, expected to find a string");
+
+            // The format has to be known before anything can be streamed, so fall back to the tree if it is not the first entry
+            String name = reader.nextName();
+            if (!"format_version".equals(name))
+            {
+                JsonObject json = new JsonObject();
+                json.add(name, new JsonParser().parse(reader));
+                while (reader.hasNext())
+                    json.add(reader.nextName(), new JsonParser().parse(reader));
+                reader.endObject();
+                return parseModel(json);
+            }
+
+            String formatVersion = JsonReaderHelper.nextString(reader, name);
+            GeometryModelData[] models;
+            if (formatVersion.equals("1.12.0"))
+                models = Geometry1120Parser.parseModel(reader);
+            else if (formatVersion.equals("1.8.0"))
+                models = Geometry180Parser.parseModel(reader);
+            else if (formatVersion.equals("1.1.0"))
+                models = Geometry110Parser.parseModel(reader);
+            else
+                throw new JsonSyntaxException("Unsupported geometry version: " + formatVersion);
+            reader.endObject();
+            return models;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            throw JsonReaderHelper.wrap(e);
+        }
+        finally
+        {
+            reader.setLenient(lenient);
+        }
     }
 
     /**
@@ -50,7 +93,7 @@ public class GeometryModelParser
      */
     public static GeometryModelData[] parseModel(String json) throws JsonParseException
     {
-        return parseModel(new JsonParser().parse(json));
+        return parseModel(new StringReader(json));
     }
 
     /**
@@ -22,6 +22,7 @@ public class GeometryModelTextureTable
 {
     public static final Codec<GeometryModelTextureTable> CODEC = Codec.unboundedMap(Codec.STRING, GeometryModelTexture.CODEC.listOf().xmap(list -> list.toArray(new GeometryModelTexture[0]), Arrays::asList)).xmap(GeometryModelTextureTable::new, table -> table.textures);
     public static GeometryModelTextureTable EMPTY = new GeometryModelTextureTable(new HashMap<>());
+    private static final GeometryModelTexture[] MISSING = {GeometryModelTexture.MISSING};
 
     private final Map<String, GeometryModelTexture[]> textures;
 
@@ -39,7 +40,7 @@ public class GeometryModelTextureTable
      */
     public GeometryModelTexture[] getLayerTextures(@Nullable String key)
     {
-        return this.textures.getOrDefault(key, new GeometryModelTexture[]{GeometryModelTexture.MISSING});
+        return this.textures.getOrDefault(key, MISSING);
     }
 
     /**
@@ -1,12 +1,17 @@
 package io.github.ocelot.modelanima.api.common.util;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
+import io.github.ocelot.modelanima.core.common.util.MolangConstantPool;
 import io.github.ocelot.molangcompiler.api.MolangCompiler;
 import io.github.ocelot.molangcompiler.api.MolangExpression;
 import io.github.ocelot.molangcompiler.api.exception.MolangException;
 import net.minecraft.util.GsonHelper;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.function.Supplier;
 
@@ -108,7 +113,7 @@ public class JSONTupleParser
                     }
                     else if (vectorPrimitive.isNumber())
                     {
-                        Arrays.fill(values, MolangExpression.of(vectorPrimitive.getAsFloat()));
+                        Arrays.fill(values, MolangConstantPool.of(vectorPrimitive.getAsFloat()));
                     }
                     else
                     {
@@ -130,7 +135,7 @@ public class JSONTupleParser
                         }
                         else if (vectorPrimitive.isNumber())
                         {
-                            values[i] = MolangExpression.of(vectorPrimitive.getAsFloat());
+                            values[i] = MolangConstantPool.of(vectorPrimitive.getAsFloat());
                         }
                         else
                         {
@@ -147,7 +152,7 @@ public class JSONTupleParser
                 if (valuePrimitive.isNumber())
                 {
                     MolangExpression[] values = new MolangExpression[length];
-                    Arrays.fill(values, MolangExpression.of(valuePrimitive.getAsFloat()));
+                    Arrays.fill(values, MolangConstantPool.of(valuePrimitive.getAsFloat()));
                     return values;
                 }
                 if (valuePrimitive.isString())
@@ -186,7 +191,7 @@ public class JSONTupleParser
             {
                 JsonPrimitive valuePrimitive = json.getAsJsonPrimitive(name);
                 if (valuePrimitive.isNumber())
-                    return MolangExpression.of(valuePrimitive.getAsFloat());
+                    return MolangConstantPool.of(valuePrimitive.getAsFloat());
                 if (valuePrimitive.isString())
                     return MolangCompiler.compile(valuePrimitive.getAsString());
             }
@@ -197,4 +202,128 @@ public class JSONTupleParser
         }
         throw new JsonSyntaxException("Expected " + name + " to be a Float or JsonPrimitive, was " + GsonHelper.getType(json));
     }
+
+    /**
+     * Reads an array of floats from the next value in the specified reader.
+     *
+     * @param reader The reader to get the values from
+     * @param name   The name of the tuple element
+     * @param length The number of values to parse
+     * @return An array of values parsed
+     * @throws IOException         If the underlying reader fails
+     * @throws JsonSyntaxException If there is improper syntax in the JSON structure
+     */
+    public static float[] readFloat(JsonReader reader, String name, int length) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING)
+            throw new JsonSyntaxException("Molang expressions are not supported");
+        if (token == JsonToken.BEGIN_ARRAY)
+        {
+            float[] values = new float[length];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext())
+            {
+                if (size < length)
+                {
+                    values[size] = JsonReaderHelper.nextFloat(reader, name + "[" + size + "]");
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+                size++;
+            }
+            reader.endArray();
+
+            if (size != 1 && size != length)
+                throw new JsonParseException("Expected 1 or " + length + " " + name + " values, was " + size);
+            if (size == 1)
+                Arrays.fill(values, values[0]);
+            return values;
+        }
+        if (token == JsonToken.NUMBER)
+        {
+            float[] values = new float[length];
+            Arrays.fill(values, JsonReaderHelper.nextFloat(reader, name));
+            return values;
+        }
+        throw new JsonSyntaxException("Expected " + name + " to be a JsonArray or JsonPrimitive, was " + token);
+    }
+
+    /**
+     * Reads an array of expressions from the next value in the specified reader.
+     *
+     * @param reader The reader to get the values from
+     * @param name   The name of the tuple element
+     * @param length The number of values to parse
+     * @return An array of values parsed
+     * @throws IOException         If the underlying reader fails
+     * @throws JsonSyntaxException If there is improper syntax in the JSON structure
+     */
+    public static MolangExpression[] readExpression(JsonReader reader, String name, int length) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY)
+        {
+            MolangExpression[] values = new MolangExpression[length];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext())
+            {
+                if (size < length)
+                {
+                    values[size] = readExpression(reader, name + "[" + size + "]");
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+                size++;
+            }
+            reader.endArray();
+
+            if (size != 1 && size != length)
+                throw new JsonParseException("Expected 1 or " + length + " " + name + " values, was " + size);
+            if (size == 1)
+                Arrays.fill(values, values[0]);
+            return values;
+        }
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING)
+        {
+            MolangExpression[] values = new MolangExpression[length];
+            Arrays.fill(values, readExpression(reader, name));
+            return values;
+        }
+        throw new JsonSyntaxException("Expected " + name + " to be a JsonArray or JsonPrimitive, was " + token);
+    }
+
+    /**
+     * Reads a single expression from the next value in the specified reader.
+     *
+     * @param reader The reader to get the value from
+     * @param name   The name of the tuple element
+     * @return The value parsed
+     * @throws IOException         If the underlying reader fails
+     * @throws JsonSyntaxException If there is improper syntax in the JSON structure
+     */
+    public static MolangExpression readExpression(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER)
+            return MolangConstantPool.of(JsonReaderHelper.nextFloat(reader, name));
+        if (token == JsonToken.STRING)
+        {
+            try
+            {
+                return MolangCompiler.compile(reader.nextString());
+            }
+            catch (MolangException e)
+            {
+                throw new JsonParseException("Failed to compile MoLang expression", e);
+            }
+        }
+        throw new JsonSyntaxException("Expected " + name + " to be a Float or String, was " + token);
+    }
 }
@@ -1,18 +1,24 @@
 package io.github.ocelot.modelanima.core.client.animation;
 
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.common.animation.AnimationData;
 import io.github.ocelot.modelanima.api.common.animation.AnimationParser;
 import io.github.ocelot.modelanima.api.common.util.BackgroundLoader;
+import io.github.ocelot.modelanima.core.client.util.CompiledDataCache;
+import io.github.ocelot.modelanima.core.client.util.ResourceContentCache;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.ApiStatus;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -24,6 +30,7 @@ public class LocalAnimationLoader implements BackgroundLoader<Map<ResourceLocati
 {
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private final ResourceContentCache<AnimationData[]> fileCache;
     private final String folder;
 
     public LocalAnimationLoader()
@@ -33,33 +40,74 @@ public class LocalAnimationLoader implements BackgroundLoader<Map<ResourceLocati
 
     public LocalAnimationLoader(String folder)
     {
+        this.fileCache = new ResourceContentCache<>();
         this.folder = folder.isEmpty() ? "" : folder + "/";
     }
 
     @Override
     public CompletableFuture<Map<ResourceLocation, AnimationData>> reload(ResourceManager resourceManager, Executor backgroundExecutor, Executor gameExecutor)
     {
+        ReloadMetrics.Session metrics = ReloadMetrics.getSession(ReloadMetrics.Source.ANIMATION);
         return CompletableFuture.supplyAsync(() ->
         {
-            Map<ResourceLocation, AnimationData> animationData = new HashMap<>();
-            for (ResourceLocation animationLocation : resourceManager.listResources(this.folder, name -> name.endsWith(".json")))
+            long startTime = metrics.startTimer();
+            Collection<ResourceLocation> resourceLocations = resourceManager.listResources(this.folder, name -> name.endsWith(".json"));
+            metrics.stopTimer(ReloadMetrics.Phase.LIST_RESOURCES, startTime);
+            return resourceLocations;
+        }, backgroundExecutor).thenComposeAsync(resourceLocations ->
+        {
+            // Sort so files are always merged in the same order regardless of which finishes first
+            ResourceLocation[] files = resourceLocations.stream().sorted().toArray(ResourceLocation[]::new);
+            List<CompletableFuture<AnimationData[]>> futures = new ArrayList<>(files.length);
+            for (ResourceLocation animationLocation : files)
+                futures.add(CompletableFuture.supplyAsync(() -> this.loadFile(resourceManager, animationLocation, metrics), backgroundExecutor));
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApplyAsync(unused ->
             {
-                try (Resource resource = resourceManager.getResource(animationLocation))
+                Map<ResourceLocation, AnimationData> animationData = new HashMap<>();
+                for (int i = 0; i < files.length; i++)
                 {
-                    AnimationData[] animations = AnimationParser.parse(new InputStreamReader(resource.getInputStream()));
-                    for (AnimationData animation : animations)
+                    for (AnimationData animation : futures.get(i).join())
                     {
-                        ResourceLocation id = new ResourceLocation(animationLocation.getNamespace(), animation.getName());
+                        ResourceLocation id = new ResourceLocation(files[i].getNamespace(), animation.getName());
                         if (animationData.put(id, animation) != null)
                             LOGGER.warn("Duplicate animation: " + id);
                     }
                 }
-                catch (Exception e)
-                {
-                    LOGGER.error("Failed to load animation: " + animationLocation.getNamespace() + ":" + animationLocation.getPath().substring(this.folder.length(), animationLocation.getPath().length() - 5), e);
-                }
-            }
-            return animationData;
+                this.fileCache.retain(Arrays.asList(files));
+                return animationData;
+            }, backgroundExecutor);
         }, backgroundExecutor);
     }
+
+    private AnimationData[] loadFile(ResourceManager resourceManager, ResourceLocation animationLocation, ReloadMetrics.Session metrics)
+    {
+        long startTime = metrics.startTimer();
+        try (Resource resource = resourceManager.getResource(animationLocation))
+        {
+            byte[] data = IOUtils.toByteArray(resource.getInputStream());
+            String hash = DigestUtils.md5Hex(data);
+            AnimationData[] animations = this.fileCache.get(animationLocation, hash);
+            if (animations != null)
+            {
+                metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime, animationLocation.toString(), resource.getSourceName());
+                return animations;
+            }
+
+            animations = CompiledDataCache.getAnimations(hash);
+            if (animations == null)
+            {
+                animations = AnimationParser.parse(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+                CompiledDataCache.putAnimations(hash, animations);
+            }
+            this.fileCache.put(animationLocation, hash, animations);
+            metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime, animationLocation.toString(), resource.getSourceName());
+            return animations;
+        }
+        catch (Exception e)
+        {
+            this.fileCache.remove(animationLocation);
+            LOGGER.error("Failed to load animation: " + animationLocation.getNamespace() + ":" + animationLocation.getPath().substring(this.folder.length(), animationLocation.getPath().length() - 5), e);
+            return new AnimationData[0];
+        }
+    }
 }
@@ -6,9 +6,11 @@ import com.mojang.math.Vector3f;
 import io.github.ocelot.modelanima.api.client.animation.AnimatedModel;
 import io.github.ocelot.modelanima.api.client.animation.AnimatedModelPart;
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import io.github.ocelot.modelanima.api.client.metrics.FrameMetrics;
 import io.github.ocelot.modelanima.api.common.animation.AnimationData;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
 import io.github.ocelot.molangcompiler.api.MolangRuntime;
 import net.minecraft.client.model.Model;
 import net.minecraft.client.model.geom.ModelPart;
@@ -32,6 +34,8 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
     private static final Vector3f POSITION = new Vector3f();
     private static final Vector3f ROTATION = new Vector3f();
     private static final Vector3f SCALE = new Vector3f();
+    // Expressions are counted here and reported once per call, so the metrics flag is not read for every expression
+    private static int resolvedExpressions;
 
     private final Map<String, AnimatedModelPart.AnimationPose> transformations;
     private final Map<String, BoneModelPart> modelParts;
@@ -138,7 +142,8 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
     @Override
     public void resetTransformation()
     {
-        this.modelParts.values().forEach(renderer -> renderer.resetTransform(true));
+        for (BoneModelPart part : this.modelParts.values())
+            part.resetTransform(true);
     }
 
     @Override
@@ -195,14 +200,20 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
         if (animations.length == 0)
             return;
 
+        long startTime = FrameMetrics.startTimer();
+        FrameMetrics.increment(FrameMetrics.Counter.ANIMATIONS_EVALUATED, animations.length);
         runtime.setQuery("delta_time", Animation::getPartialTickTime);
         runtime.setQuery("life_time", animationTime);
 
         animationTime %= getAnimationLength(animationTime, animations);
 
-        this.transformations.values().forEach(AnimatedModelPart.AnimationPose::reset);
+        for (AnimatedModelPart.AnimationPose pose : this.transformations.values())
+            pose.reset();
+        resolvedExpressions = 0;
         for (AnimationData animation : animations)
         {
+            // Each animation gets its own runtime so nothing one animation's expressions do can affect another
+            MolangRuntime environment = runtime.create(0);
             float localAnimationTime = animationTime;
             if (localAnimationTime > animation.getAnimationLength())
             {
@@ -218,19 +229,22 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
                 POSITION.set(0, 0, 0);
                 ROTATION.set(0, 0, 0);
                 SCALE.set(1, 1, 1);
-                get(localAnimationTime, runtime, boneAnimation.getPositionFrames(), POSITION);
-                get(localAnimationTime, runtime, boneAnimation.getRotationFrames(), ROTATION);
-                get(localAnimationTime, runtime, boneAnimation.getScaleFrames(), SCALE);
+                get(localAnimationTime, environment, boneAnimation.getPositionFrames(), POSITION);
+                get(localAnimationTime, environment, boneAnimation.getRotationFrames(), ROTATION);
+                get(localAnimationTime, environment, boneAnimation.getScaleFrames(), SCALE);
 
                 this.transformations.computeIfAbsent(boneAnimation.getName(), key -> new AnimatedModelPart.AnimationPose()).add(POSITION.x() * blendWeight, POSITION.y() * blendWeight, POSITION.z() * blendWeight, ROTATION.x() * blendWeight, ROTATION.y() * blendWeight, ROTATION.z() * blendWeight, (SCALE.x() - 1) * blendWeight, (SCALE.y() - 1) * blendWeight, (SCALE.z() - 1) * blendWeight);
             }
         }
-        this.transformations.forEach((name, pose) ->
+        for (Map.Entry<String, AnimatedModelPart.AnimationPose> entry : this.transformations.entrySet())
         {
-            AnimatedModelPart.AnimationPose p = this.modelParts.get(name).getAnimationPose();
+            AnimatedModelPart.AnimationPose pose = entry.getValue();
+            AnimatedModelPart.AnimationPose p = this.modelParts.get(entry.getKey()).getAnimationPose();
             p.reset();
             p.add(pose.getPosition().x(), pose.getPosition().y(), pose.getPosition().z(), pose.getRotation().x(), pose.getRotation().y(), pose.getRotation().z(), pose.getScale().x() - 1, pose.getScale().y() - 1, pose.getScale().z() - 1);
-        });
+        }
+        FrameMetrics.increment(FrameMetrics.Counter.EXPRESSIONS_RESOLVED, resolvedExpressions);
+        FrameMetrics.stopTimer(FrameMetrics.Timer.APPLY_ANIMATIONS, startTime);
     }
 
     @Override
@@ -266,14 +280,22 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
         return Integer.MAX_VALUE;
     }
 
-    private static void get(float animationTime, MolangRuntime.Builder runtime, AnimationData.KeyFrame[] frames, Vector3f result)
+    /**
+     * Samples the specified channel the same way animations are applied to the model.
+     *
+     * @param animationTime The time into the animation
+     * @param runtime       The runtime to resolve expressions with
+     * @param frames        The frames of the channel sorted by time
+     * @param result        The vector to store the sampled value in
+     */
+    public static void get(float animationTime, MolangRuntime runtime, AnimationData.KeyFrame[] frames, Vector3f result)
     {
         if (frames.length == 1)
         {
             // TODO figure out what "this" is supposed to be
-            float x = frames[0].getTransformPostX().safeResolve(runtime.create(0));
-            float y = frames[0].getTransformPostY().safeResolve(runtime.create(0));
-            float z = frames[0].getTransformPostZ().safeResolve(runtime.create(0));
+            float x = resolve(frames[0].getTransformPostX(), runtime);
+            float y = resolve(frames[0].getTransformPostY(), runtime);
+            float z = resolve(frames[0].getTransformPostZ(), runtime);
             result.set(x, y, z);
             return;
         }
@@ -299,39 +321,45 @@ public class BedrockGeometryModel extends Model implements GeometryModel, Animat
         }
     }
 
-    private static void lerp(float progress, MolangRuntime.Builder runtime, @Nullable AnimationData.KeyFrame from, AnimationData.KeyFrame to, Vector3f result)
+    private static void lerp(float progress, MolangRuntime runtime, @Nullable AnimationData.KeyFrame from, AnimationData.KeyFrame to, Vector3f result)
     {
-        float fromX = from == null ? 0 : from.getTransformPostX().safeResolve(runtime.create(0));
-        float fromY = from == null ? 0 : from.getTransformPostY().safeResolve(runtime.create(0));
-        float fromZ = from == null ? 0 : from.getTransformPostZ().safeResolve(runtime.create(0));
+        float fromX = from == null ? 0 : resolve(from.getTransformPostX(), runtime);
+        float fromY = from == null ? 0 : resolve(from.getTransformPostY(), runtime);
+        float fromZ = from == null ? 0 : resolve(from.getTransformPostZ(), runtime);
 
-        float x = Mth.lerp(progress, fromX, to.getTransformPreX().safeResolve(runtime.create(0)));
-        float y = Mth.lerp(progress, fromY, to.getTransformPreY().safeResolve(runtime.create(0)));
-        float z = Mth.lerp(progress, fromZ, to.getTransformPreZ().safeResolve(runtime.create(0)));
+        float x = Mth.lerp(progress, fromX, resolve(to.getTransformPreX(), runtime));
+        float y = Mth.lerp(progress, fromY, resolve(to.getTransformPreY(), runtime));
+        float z = Mth.lerp(progress, fromZ, resolve(to.getTransformPreZ(), runtime));
         result.set(x, y, z);
     }
 
-    private static void catmullRom(float progress, MolangRuntime.Builder runtime, @Nullable AnimationData.KeyFrame before, @Nullable AnimationData.KeyFrame from, AnimationData.KeyFrame to, @Nullable AnimationData.KeyFrame after, Vector3f result)
+    private static void catmullRom(float progress, MolangRuntime runtime, @Nullable AnimationData.KeyFrame before, @Nullable AnimationData.KeyFrame from, AnimationData.KeyFrame to, @Nullable AnimationData.KeyFrame after, Vector3f result)
     {
-        float fromX = from == null ? 0 : from.getTransformPostX().safeResolve(runtime.create(0));
-        float fromY = from == null ? 0 : from.getTransformPostY().safeResolve(runtime.create(0));
-        float fromZ = from == null ? 0 : from.getTransformPostZ().safeResolve(runtime.create(0));
+        float fromX = from == null ? 0 : resolve(from.getTransformPostX(), runtime);
+        float fromY = from == null ? 0 : resolve(from.getTransformPostY(), runtime);
+        float fromZ = from == null ? 0 : resolve(from.getTransformPostZ(), runtime);
 
-        float beforeX = before == null ? fromX : before.getTransformPostX().safeResolve(runtime.create(0));
-        float beforeY = before == null ? fromY : before.getTransformPostY().safeResolve(runtime.create(0));
-        float beforeZ = before == null ? fromZ : before.getTransformPostZ().safeResolve(runtime.create(0));
+        float beforeX = before == null ? fromX : resolve(before.getTransformPostX(), runtime);
+        float beforeY = before == null ? fromY : resolve(before.getTransformPostY(), runtime);
+        float beforeZ = before == null ? fromZ : resolve(before.getTransformPostZ(), runtime);
 
-        float toX = to.getTransformPreX().safeResolve(runtime.create(0));
-        float toY = to.getTransformPreY().safeResolve(runtime.create(0));
-        float toZ = to.getTransformPreZ().safeResolve(runtime.create(0));
+        float toX = resolve(to.getTransformPreX(), runtime);
+        float toY = resolve(to.getTransformPreY(), runtime);
+        float toZ = resolve(to.getTransformPreZ(), runtime);
 
-        float afterX = after == null ? toX : after.getTransformPreX().safeResolve(runtime.create(0));
-        float afterY = after == null ? toY : after.getTransformPreY().safeResolve(runtime.create(0));
-        float afterZ = after == null ? toZ : after.getTransformPreZ().safeResolve(runtime.create(0));
+        float afterX = after == null ? toX : resolve(after.getTransformPreX(), runtime);
+        float afterY = after == null ? toY : resolve(after.getTransformPreY(), runtime);
+        float afterZ = after == null ? toZ : resolve(after.getTransformPreZ(), runtime);
 
         result.set(catmullRom(beforeX, fromX, toX, afterX, progress), catmullRom(beforeY, fromY, toY, afterY, progress), catmullRom(beforeZ, fromZ, toZ, afterZ, progress));
     }
 
+    private static float resolve(MolangExpression expression, MolangRuntime runtime)
+    {
+        resolvedExpressions++;
+        return expression.safeResolve(runtime);
+    }
+
     private static float catmullRom(float p0, float p1, float p2, float p3, float t)
     {
         return 0.5F * ((2 * p1) + (-p0 + p2) * t + (2 * p0 - 5 * p1 + 4 * p2 - p3) * t * t + (-p0 + 3 * p1 - 3 * p2 + p3) * t * t * t);
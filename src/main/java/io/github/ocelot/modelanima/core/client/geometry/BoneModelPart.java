@@ -7,6 +7,7 @@ import com.mojang.math.Matrix4f;
 import com.mojang.math.Vector3f;
 import com.mojang.math.Vector4f;
 import io.github.ocelot.modelanima.api.client.animation.AnimatedModelPart;
+import io.github.ocelot.modelanima.api.client.metrics.FrameMetrics;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import it.unimi.dsi.fastutil.objects.Object2ObjectArrayMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
@@ -30,11 +31,13 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
 
     private final BedrockGeometryModel parent;
     private final GeometryModelData.Bone bone;
-    private final Set<BoneModelPart> children;
+    private final ObjectList<BoneModelPart> children;
     private final Map<String, ObjectList<Quad>> quads;
     private final ObjectList<Polygon> polygons;
     private final Matrix4f copyPosition;
     private final Matrix3f copyNormal;
+    private final Matrix4f savedPose;
+    private final Matrix3f savedNormal;
     private final AnimatedModelPart.AnimationPose animationPose;
     private boolean copyVanilla;
 
@@ -43,11 +46,13 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
         super(parent, 0, 0);
         this.parent = parent;
         this.bone = bone;
-        this.children = new HashSet<>();
+        this.children = new ObjectArrayList<>();
         this.quads = new Object2ObjectArrayMap<>();
         this.polygons = new ObjectArrayList<>();
         this.copyPosition = new Matrix4f();
         this.copyNormal = new Matrix3f();
+        this.savedPose = new Matrix4f();
+        this.savedNormal = new Matrix3f();
         this.animationPose = new AnimationPose();
         this.resetTransform(false);
         Arrays.stream(bone.getCubes()).forEach(this::addCube);
@@ -182,7 +187,8 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
         this.copyNormal.setIdentity();
         this.animationPose.reset();
         if (resetChildren)
-            this.children.forEach(boneModelPart -> boneModelPart.resetTransform(true));
+            for (BoneModelPart child : this.children)
+                child.resetTransform(true);
         this.copyVanilla = false;
     }
 
@@ -191,7 +197,8 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
     {
         if (part instanceof BoneModelPart)
         {
-            this.children.add((BoneModelPart) part);
+            if (!this.children.contains(part))
+                this.children.add((BoneModelPart) part);
         }
         else
         {
@@ -206,19 +213,26 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
 
         if (this.visible && (!this.quads.isEmpty() || !this.polygons.isEmpty() || !this.children.isEmpty()))
         {
-            matrixStack.pushPose();
+            // The pose is restored by hand afterwards, since pushPose allocates two matrices for every bone
+            PoseStack.Pose pose = matrixStack.last();
+            this.savedPose.setIdentity();
+            this.savedPose.multiply(pose.pose());
+            this.savedNormal.setIdentity();
+            this.savedNormal.mul(pose.normal());
             this.translateAndRotate(matrixStack);
 
             if (this.copyVanilla)
                 matrixStack.translate(-this.x / 16.0F, -this.y / 16.0F, -this.z / 16.0F);
 
-            Matrix4f matrix4f = matrixStack.last().pose();
-            Matrix3f matrix3f = matrixStack.last().normal().copy();
-            Collection<Quad> quads = this.quads.get(this.parent.getActiveMaterial());
+            Matrix4f matrix4f = pose.pose();
+            Matrix3f matrix3f = pose.normal();
+            ObjectList<Quad> quads = this.quads.get(this.parent.getActiveMaterial());
             if (quads != null)
             {
-                for (Quad quad : quads)
+                FrameMetrics.increment(FrameMetrics.Counter.VERTICES_EMITTED, quads.size() * 4L);
+                for (int i = 0; i < quads.size(); i++)
                 {
+                    Quad quad = quads.get(i);
                     NORMAL_VECTOR.set(-quad.normal.x(), quad.normal.y(), -quad.normal.z());
                     NORMAL_VECTOR.transform(matrix3f);
                     for (Vertex vertex : quad.vertices)
@@ -229,11 +243,13 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
             }
             if ("poly_mesh.texture".equals(this.parent.getActiveMaterial()))
             {
-                for (Polygon polygon : this.polygons)
+                FrameMetrics.increment(FrameMetrics.Counter.VERTICES_EMITTED, this.polygons.size() * 4L);
+                for (int i = 0; i < this.polygons.size(); i++)
                 {
-                    for (int i = 0; i < 4; i++)
+                    Polygon polygon = this.polygons.get(i);
+                    for (int j = 0; j < 4; j++)
                     {
-                        int index = Mth.clamp(i, 0, polygon.vertices.length - 1);
+                        int index = Mth.clamp(j, 0, polygon.vertices.length - 1);
                         Vertex vertex = polygon.vertices[index];
                         Vector3f normal = polygon.normals[index];
                         NORMAL_VECTOR.set(normal.x(), normal.y(), normal.z());
@@ -243,10 +259,13 @@ public class BoneModelPart extends ModelPart implements AnimatedModelPart
                 }
             }
 
-            for (ModelPart part : this.children)
-                part.render(matrixStack, builder, packedLight, packedOverlay, red, green, blue, alpha);
+            for (int i = 0; i < this.children.size(); i++)
+                this.children.get(i).render(matrixStack, builder, packedLight, packedOverlay, red, green, blue, alpha);
 
-            matrixStack.popPose();
+            pose.pose().setIdentity();
+            pose.pose().multiply(this.savedPose);
+            pose.normal().setIdentity();
+            pose.normal().mul(this.savedNormal);
         }
     }
 
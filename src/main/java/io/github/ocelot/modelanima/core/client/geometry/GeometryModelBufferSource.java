@@ -2,6 +2,7 @@ package io.github.ocelot.modelanima.core.client.geometry;
 
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import io.github.ocelot.modelanima.api.client.metrics.FrameMetrics;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
 import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
@@ -10,6 +11,7 @@ import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
 import org.jetbrains.annotations.ApiStatus;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -17,6 +19,8 @@ import java.util.Optional;
 @ApiStatus.Internal
 public class GeometryModelBufferSource extends MultiBufferSource.BufferSource
 {
+    private static final GeometryModelTexture.TextureLayer[] LAYERS = GeometryModelTexture.TextureLayer.values();
+
     private final Map<Integer, Map<RenderType, BufferBuilder>> builders;
 
     private GeometryModelTexture.TextureLayer layer;
@@ -41,21 +45,22 @@ public class GeometryModelBufferSource extends MultiBufferSource.BufferSource
         return builder;
     }
 
-    private Optional<BufferBuilder> getBuilderRaw(RenderType arg)
+    @Nullable
+    private BufferBuilder getBuilderRaw(RenderType arg)
     {
-        for (GeometryModelTexture.TextureLayer layer : GeometryModelTexture.TextureLayer.values())
+        for (GeometryModelTexture.TextureLayer layer : LAYERS)
         {
-            Map<RenderType, BufferBuilder> buffers = this.builders.get(layer.ordinal());
-            if (buffers.containsKey(arg))
-                return Optional.of(buffers.get(arg));
+            BufferBuilder builder = this.builders.get(layer.ordinal()).get(arg);
+            if (builder != null)
+                return builder;
         }
-        return Optional.empty();
+        return null;
     }
 
     @Override
     public void endBatch()
     {
-        for (GeometryModelTexture.TextureLayer layer : GeometryModelTexture.TextureLayer.values())
+        for (GeometryModelTexture.TextureLayer layer : LAYERS)
             for (RenderType lv : this.builders.get(layer.ordinal()).keySet())
                 this.endBatch(lv);
     }
@@ -63,14 +68,13 @@ public class GeometryModelBufferSource extends MultiBufferSource.BufferSource
     @Override
     public void endBatch(RenderType renderType)
     {
-        this.getBuilderRaw(renderType).ifPresent(lv ->
+        BufferBuilder builder = this.getBuilderRaw(renderType);
+        if (builder != null && this.startedBuffers.remove(builder))
         {
-            if (this.startedBuffers.remove(lv))
-            {
-                renderType.end(lv, 0, 0, 0);
-                this.lastState = Optional.empty();
-            }
-        });
+            renderType.end(builder, 0, 0, 0);
+            FrameMetrics.increment(FrameMetrics.Counter.DRAW_CALLS, 1);
+            this.lastState = Optional.empty();
+        }
     }
 
     public void setLayer(GeometryModelTexture.TextureLayer layer)
@@ -8,6 +8,10 @@ import net.minecraft.client.renderer.RenderType;
 import net.minecraft.resources.ResourceLocation;
 import org.jetbrains.annotations.ApiStatus;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
 import static org.lwjgl.opengl.GL11.*;
 
 /**
@@ -33,6 +37,12 @@ public final class GeometryRenderTypes extends RenderType
         }
     };
 
+    private static final Map<ResourceLocation, RenderType[]> SOLID = new HashMap<>();
+    private static final Map<ResourceLocation, RenderType[]> CUTOUT = new HashMap<>();
+    private static final Map<ResourceLocation, RenderType[]> CUTOUT_CULL = new HashMap<>();
+    private static final Map<ResourceLocation, RenderType[]> TRANSLUCENT = new HashMap<>();
+    private static final Map<ResourceLocation, RenderType[]> TRANSLUCENT_CULL = new HashMap<>();
+
     private GeometryRenderTypes(String nameIn, VertexFormat formatIn, int drawModeIn, int bufferSizeIn, boolean useDelegateIn, boolean needsSortingIn, Runnable setupTaskIn, Runnable clearTaskIn)
     {
         super(nameIn, formatIn, drawModeIn, bufferSizeIn, useDelegateIn, needsSortingIn, setupTaskIn, clearTaskIn);
@@ -40,31 +50,66 @@ public final class GeometryRenderTypes extends RenderType
 
     public static RenderType getGeometrySolid(GeometryModelTexture texture, ResourceLocation locationIn)
     {
-        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(texture.isSmoothShading() ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
+        return get(SOLID, texture, locationIn, GeometryRenderTypes::createSolid);
+    }
+
+    private static RenderType createSolid(boolean smoothShading, ResourceLocation locationIn)
+    {
+        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(smoothShading ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
         return create("geometry_solid", DefaultVertexFormat.NEW_ENTITY, 7, 256, true, false, rendertype$state);
     }
 
     public static RenderType getGeometryCutout(GeometryModelTexture texture, ResourceLocation locationIn)
     {
-        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(texture.isSmoothShading() ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setCullState(NO_CULL).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
+        return get(CUTOUT, texture, locationIn, GeometryRenderTypes::createCutout);
+    }
+
+    private static RenderType createCutout(boolean smoothShading, ResourceLocation locationIn)
+    {
+        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(smoothShading ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setCullState(NO_CULL).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
         return create("geometry_cutout", DefaultVertexFormat.NEW_ENTITY, 7, 256, true, false, rendertype$state);
     }
 
     public static RenderType getGeometryCutoutCull(GeometryModelTexture texture, ResourceLocation locationIn)
     {
-        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(texture.isSmoothShading() ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
+        return get(CUTOUT_CULL, texture, locationIn, GeometryRenderTypes::createCutoutCull);
+    }
+
+    private static RenderType createCutoutCull(boolean smoothShading, ResourceLocation locationIn)
+    {
+        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(NO_TRANSPARENCY).setDiffuseLightingState(smoothShading ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
         return create("geometry_cutout_cull", DefaultVertexFormat.NEW_ENTITY, 7, 256, true, false, rendertype$state);
     }
 
     public static RenderType getGeometryTranslucent(GeometryModelTexture texture, ResourceLocation locationIn)
     {
-        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(TRANSLUCENT_TRANSPARENCY).setDiffuseLightingState(texture.isSmoothShading() ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setCullState(NO_CULL).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
+        return get(TRANSLUCENT, texture, locationIn, GeometryRenderTypes::createTranslucent);
+    }
+
+    private static RenderType createTranslucent(boolean smoothShading, ResourceLocation locationIn)
+    {
+        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(TRANSLUCENT_TRANSPARENCY).setDiffuseLightingState(smoothShading ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setCullState(NO_CULL).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
         return create("geometry_translucent", DefaultVertexFormat.NEW_ENTITY, 7, 256, true, true, rendertype$state);
     }
 
     public static RenderType getGeometryTranslucentCull(GeometryModelTexture texture, ResourceLocation locationIn)
     {
-        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(TRANSLUCENT_TRANSPARENCY).setDiffuseLightingState(texture.isSmoothShading() ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
+        return get(TRANSLUCENT_CULL, texture, locationIn, GeometryRenderTypes::createTranslucentCull);
+    }
+
+    private static RenderType createTranslucentCull(boolean smoothShading, ResourceLocation locationIn)
+    {
+        RenderType.CompositeState rendertype$state = RenderType.CompositeState.builder().setTextureState(new RenderStateShard.TextureStateShard(locationIn, false, false)).setTransparencyState(TRANSLUCENT_TRANSPARENCY).setDiffuseLightingState(smoothShading ? SMOOTH_LIGHTING : DIFFUSE_LIGHTING).setAlphaState(DEFAULT_ALPHA).setLightmapState(LIGHTMAP).setOverlayState(OVERLAY).createCompositeState(true);
         return create("geometry_translucent_cull", DefaultVertexFormat.NEW_ENTITY, 7, 256, true, true, rendertype$state);
     }
+
+    // Render types are requested for every layer of every model each frame, so only create each combination once
+    private static RenderType get(Map<ResourceLocation, RenderType[]> cache, GeometryModelTexture texture, ResourceLocation location, BiFunction<Boolean, ResourceLocation, RenderType> factory)
+    {
+        RenderType[] renderTypes = cache.computeIfAbsent(location, key -> new RenderType[2]);
+        int index = texture.isSmoothShading() ? 1 : 0;
+        if (renderTypes[index] == null)
+            renderTypes[index] = factory.apply(texture.isSmoothShading(), location);
+        return renderTypes[index];
+    }
 }
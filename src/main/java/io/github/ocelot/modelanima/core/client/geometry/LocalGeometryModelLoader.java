@@ -1,20 +1,25 @@
 package io.github.ocelot.modelanima.core.client.geometry;
 
 import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
 import io.github.ocelot.modelanima.api.common.util.BackgroundLoader;
+import io.github.ocelot.modelanima.core.client.util.CompiledDataCache;
+import io.github.ocelot.modelanima.core.client.util.ResourceContentCache;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.ApiStatus;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -27,46 +32,104 @@ public final class LocalGeometryModelLoader implements BackgroundLoader<Map<Reso
     private static final Logger LOGGER = LogManager.getLogger();
     private static final String FOLDER = "models/geometry/";
 
+    private final ResourceContentCache<GeometryModelData[]> fileCache;
+    private Map<GeometryModelData, GeometryModel> createdModels;
+
+    public LocalGeometryModelLoader()
+    {
+        this.fileCache = new ResourceContentCache<>();
+        this.createdModels = new IdentityHashMap<>();
+    }
+
     @Override
     public CompletableFuture<Map<ResourceLocation, GeometryModel>> reload(ResourceManager resourceManager, Executor backgroundExecutor, Executor gameExecutor)
     {
+        ReloadMetrics.Session metrics = ReloadMetrics.getSession(ReloadMetrics.Source.GEOMETRY);
         return CompletableFuture.supplyAsync(() ->
         {
-            Map<ResourceLocation, GeometryModelData> modelLocations = new HashMap<>();
-            for (ResourceLocation modelLocation : resourceManager.listResources(FOLDER, name -> name.endsWith(".json")))
+            long startTime = metrics.startTimer();
+            Collection<ResourceLocation> resourceLocations = resourceManager.listResources(FOLDER, name -> name.endsWith(".json"));
+            metrics.stopTimer(ReloadMetrics.Phase.LIST_RESOURCES, startTime);
+            return resourceLocations;
+        }, backgroundExecutor).thenComposeAsync(resourceLocations ->
+        {
+            // Sort so files are always merged in the same order regardless of which finishes first
+            ResourceLocation[] files = resourceLocations.stream().sorted().toArray(ResourceLocation[]::new);
+            List<CompletableFuture<GeometryModelData[]>> futures = new ArrayList<>(files.length);
+            for (ResourceLocation modelLocation : files)
+                futures.add(CompletableFuture.supplyAsync(() -> this.loadFile(resourceManager, modelLocation, metrics), backgroundExecutor));
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApplyAsync(unused ->
             {
-                try (Resource resource = resourceManager.getResource(modelLocation))
+                Map<ResourceLocation, GeometryModelData> modelLocations = new HashMap<>();
+                for (int i = 0; i < files.length; i++)
                 {
-                    GeometryModelData[] models = GeometryModelParser.parseModel(IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8));
-                    for (GeometryModelData model : models)
+                    for (GeometryModelData model : futures.get(i).join())
                     {
-                        ResourceLocation id = new ResourceLocation(modelLocation.getNamespace(), model.getDescription().getIdentifier());
+                        ResourceLocation id = new ResourceLocation(files[i].getNamespace(), model.getDescription().getIdentifier());
                         if (modelLocations.put(id, model) != null)
                             LOGGER.warn("Duplicate geometry model with id '" + id + "'");
                     }
                 }
-                catch (Exception e)
-                {
-                    LOGGER.error("Failed to load geometry file '" + modelLocation.getNamespace() + ":" + modelLocation.getPath().substring(FOLDER.length(), modelLocation.getPath().length() - 5) + "'", e);
-                }
-            }
-            LOGGER.info("Loaded " + modelLocations.size() + " geometry models.");
-            return modelLocations;
+                this.fileCache.retain(Arrays.asList(files));
+                LOGGER.info("Loaded " + modelLocations.size() + " geometry models.");
+                return modelLocations;
+            }, backgroundExecutor);
         }, backgroundExecutor).thenApplyAsync(modelLocations ->
         {
+            // Models from unchanged files keep the same data instance, so the previously created model can be reused
+            long startTime = metrics.startTimer();
+            Map<GeometryModelData, GeometryModel> createdModels = new IdentityHashMap<>();
             Map<ResourceLocation, GeometryModel> models = new HashMap<>();
             modelLocations.forEach((name, model) ->
             {
                 try
                 {
-                    models.put(name, model.create());
+                    GeometryModel geometryModel = this.createdModels.get(model);
+                    if (geometryModel == null)
+                        geometryModel = model.create();
+                    createdModels.put(model, geometryModel);
+                    models.put(name, geometryModel);
                 }
                 catch (Exception e)
                 {
                     LOGGER.error("Failed to create model: " + name, e);
                 }
             });
+            this.createdModels = createdModels;
+            metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime);
             return models;
         }, gameExecutor);
     }
+
+    private GeometryModelData[] loadFile(ResourceManager resourceManager, ResourceLocation modelLocation, ReloadMetrics.Session metrics)
+    {
+        long startTime = metrics.startTimer();
+        try (Resource resource = resourceManager.getResource(modelLocation))
+        {
+            byte[] data = IOUtils.toByteArray(resource.getInputStream());
+            String hash = DigestUtils.md5Hex(data);
+            GeometryModelData[] models = this.fileCache.get(modelLocation, hash);
+            if (models != null)
+            {
+                metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime, modelLocation.toString(), resource.getSourceName());
+                return models;
+            }
+
+            models = CompiledDataCache.getGeometry(hash);
+            if (models == null)
+            {
+                models = GeometryModelParser.parseModel(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+                CompiledDataCache.putGeometry(hash, models);
+            }
+            this.fileCache.put(modelLocation, hash, models);
+            metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime, modelLocation.toString(), resource.getSourceName());
+            return models;
+        }
+        catch (Exception e)
+        {
+            this.fileCache.remove(modelLocation);
+            LOGGER.error("Failed to load geometry file '" + modelLocation.getNamespace() + ":" + modelLocation.getPath().substring(FOLDER.length(), modelLocation.getPath().length() - 5) + "'", e);
+            return new GeometryModelData[0];
+        }
+    }
 }
@@ -1,32 +1,37 @@
 package io.github.ocelot.modelanima.core.client.texture;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.JsonObject;
 import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.client.texture.GeometryAtlasTexture;
+import io.github.ocelot.modelanima.api.client.texture.GeometryTextureManager;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
 import io.github.ocelot.modelanima.api.client.FileCache;
+import io.github.ocelot.modelanima.core.client.util.DecodedTextureCache;
 import io.github.ocelot.modelanima.core.client.util.HashedTextureCache;
+import io.github.ocelot.modelanima.core.client.util.OnlineFetcher;
 import io.github.ocelot.modelanima.core.client.util.TimedTextureCache;
 import net.minecraft.ReportedException;
 import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
+import net.minecraft.client.renderer.texture.StitcherException;
 import net.minecraft.client.renderer.texture.TextureAtlas;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.renderer.texture.TextureManager;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.server.Bootstrap;
 import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.metadata.MetadataSectionSerializer;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.GsonHelper;
-import net.minecraft.util.Mth;
+import net.minecraft.util.profiling.InactiveProfiler;
 import net.minecraft.util.profiling.ProfilerFiller;
 import org.apache.commons.codec.binary.Base32;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -36,12 +41,11 @@ import org.jetbrains.annotations.ApiStatus;
 import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,32 +53,73 @@ import java.util.stream.Stream;
  * @author Ocelot
  */
 @ApiStatus.Internal
-public class GeometryTextureSpriteUploader extends SimplePreparableReloadListener<TextureAtlas.Preparations> implements GeometryAtlasTexture, AutoCloseable
+public class GeometryTextureSpriteUploader extends SimplePreparableReloadListener<GeometryTextureSpriteUploader.Preparations> implements GeometryAtlasTexture, AutoCloseable
 {
     public static final ResourceLocation ATLAS_LOCATION = new ResourceLocation(ModelAnima.MOD_ID, "textures/atlas/geometry.png");
+    public static final ResourceLocation ONLINE_ATLAS_LOCATION = new ResourceLocation(ModelAnima.MOD_ID, "textures/atlas/geometry_online.png");
     private static final Logger LOGGER = LogManager.getLogger();
-    private final TextureAtlas textureAtlas;
-    private final Set<GeometryModelTexture> textures;
+    private static final int PAGE_SPRITES = Math.max(1, Integer.getInteger(ModelAnima.MOD_ID + ".atlasPageSprites", 256));
+    private static final boolean DEMAND_RESIDENCY = Boolean.getBoolean(ModelAnima.MOD_ID + ".demandResidency");
+    private static final boolean DECODED_TEXTURE_CACHE = Boolean.getBoolean(ModelAnima.MOD_ID + ".decodedTextureCache");
+    private static final long RESIDENCY_GRACE_PERIOD = TimeUnit.SECONDS.toMillis(Long.getLong(ModelAnima.MOD_ID + ".residencyGraceSeconds", 120L));
+    private static final long USE_RESOLUTION = 1000;
+    private static final int RESIDENCY_UPDATE_TICKS = 20;
+    private final TextureManager textureManager;
+    private final TextureAtlas onlineTextureAtlas;
+    private final Map<ResourceLocation, Long> lastUsed;
+    private final Map<ResourceLocation, Integer> retained;
+    private volatile Set<GeometryModelTexture> textures;
+    private volatile Map<ResourceLocation, GeometryModelTextureTable> tables;
+    private volatile Map<GeometryModelTextureTable, ResourceLocation> tableLocations;
+    private Set<ResourceLocation> residentTables;
     private String[] hashTables;
+    private FileCache onlineCache;
+    private FileCache hashedOnlineCache;
+    private String[] hashedOnlineCacheTables;
+    private volatile StitchedPages stitched;
+    private int reloadGeneration;
+    private Map<ResourceLocation, String> localHashes;
+    private Set<GeometryModelTexture> onlineTextures;
+    private int onlineGeneration;
+    private int residencyTicks;
+    private boolean updatingResidency;
 
     public GeometryTextureSpriteUploader(TextureManager textureManager)
     {
-        this.textureAtlas = new TextureAtlas(ATLAS_LOCATION);
-        this.textures = new HashSet<>();
+        this.textureManager = textureManager;
+        this.onlineTextureAtlas = new TextureAtlas(ONLINE_ATLAS_LOCATION);
+        this.lastUsed = new ConcurrentHashMap<>();
+        this.retained = new ConcurrentHashMap<>();
+        this.textures = Collections.emptySet();
+        this.tables = Collections.emptyMap();
+        this.tableLocations = Collections.emptyMap();
+        this.residentTables = Collections.emptySet();
         this.hashTables = new String[0];
-        textureManager.register(this.textureAtlas.location(), this.textureAtlas);
+        this.onlineCache = null;
+        this.hashedOnlineCache = null;
+        this.hashedOnlineCacheTables = null;
+        this.reloadGeneration = 0;
+        this.localHashes = Collections.emptyMap();
+        this.onlineTextures = Collections.emptySet();
+        this.onlineGeneration = 0;
+        this.residencyTicks = 0;
+        this.updatingResidency = false;
+
+        TextureAtlas atlas = new TextureAtlas(ATLAS_LOCATION);
+        this.stitched = new StitchedPages(Collections.singletonList(atlas), Collections.singletonList(null), Collections.emptyMap());
+        textureManager.register(atlas.location(), atlas);
+        textureManager.register(this.onlineTextureAtlas.location(), this.onlineTextureAtlas);
     }
 
-    @SuppressWarnings("unused")
-    private void beginStitch(long startTime, Stopwatch stopwatch)
+    private static ResourceLocation getPageLocation(int page)
     {
-        stopwatch.start();
+        return page == 0 ? ATLAS_LOCATION : new ResourceLocation(ModelAnima.MOD_ID, "textures/atlas/geometry_" + page + ".png");
     }
 
-    private void endStitch(Stopwatch stopwatch)
+    private void endStitch(Stopwatch stopwatch, Set<GeometryModelTexture> textures)
     {
         stopwatch.stop();
-        LOGGER.debug("Took " + stopwatch + " to process " + this.textures.size() + " geometry textures");
+        LOGGER.debug("Took " + stopwatch + " to process " + textures.size() + " geometry textures");
     }
 
     @Override
@@ -86,66 +131,683 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
     @Override
     public TextureAtlasSprite getSprite(ResourceLocation location)
     {
-        return this.textureAtlas.getSprite(location);
+        // Online textures use the missing texture from the main atlas until they have been stitched into the online atlas
+        TextureAtlasSprite onlineSprite = this.onlineTextureAtlas.getSprite(location);
+        if (onlineSprite != null && !MissingTextureAtlasSprite.getLocation().equals(onlineSprite.getName()))
+            return onlineSprite;
+        StitchedPages stitched = this.stitched;
+        Integer page = stitched.assignments.get(location);
+        return stitched.pages.get(page != null ? page : 0).getSprite(location);
     }
 
-    @Override
-    protected TextureAtlas.Preparations prepare(ResourceManager resourceManager, ProfilerFiller profiler)
+    // Hashes every local texture and its metadata in parallel so edits can be detected without decoding the images. Textures with a known hash are not read again
+    private static Map<ResourceLocation, String> hashLocalTextures(Set<GeometryModelTexture> textures, ResourceManager resourceManager, Map<ResourceLocation, String> knownHashes, ReloadMetrics.Session metrics)
     {
-        try (OnlineRepository onlineRepository = new OnlineRepository(this.hashTables))
+        Map<ResourceLocation, CompletableFuture<String>> hashes = new HashMap<>();
+        for (GeometryModelTexture texture : textures)
         {
-            profiler.startTick();
-            profiler.push("stitching");
-            Stopwatch stopwatch = Stopwatch.createUnstarted();
-            this.beginStitch(System.currentTimeMillis(), stopwatch);
-            TextureAtlas.Preparations sheetData = this.textureAtlas.prepareToStitch(new OnlineResourceManager(resourceManager, onlineRepository, this.textures.stream().filter(texture -> texture.getType() == GeometryModelTexture.Type.ONLINE).collect(Collectors.toSet())), this.textures.stream().filter(texture -> texture.getType() == GeometryModelTexture.Type.LOCATION || texture.getType() == GeometryModelTexture.Type.ONLINE).map(GeometryModelTexture::getLocation).distinct(), profiler, Minecraft.getInstance().options.mipmapLevels);
-            this.endStitch(stopwatch);
-            profiler.pop();
-            profiler.endTick();
-            return sheetData;
+            if (texture.getType() != GeometryModelTexture.Type.LOCATION || hashes.containsKey(texture.getLocation()))
+                continue;
+
+            String knownHash = knownHashes.get(texture.getLocation());
+            if (knownHash != null)
+            {
+                hashes.put(texture.getLocation(), CompletableFuture.completedFuture(knownHash));
+                continue;
+            }
+
+            ResourceLocation imageLocation = getImageLocation(texture.getLocation());
+            ResourceLocation metadataLocation = new ResourceLocation(imageLocation.getNamespace(), imageLocation.getPath() + ".mcmeta");
+            hashes.put(texture.getLocation(), CompletableFuture.supplyAsync(() -> hashResource(resourceManager, imageLocation, metrics) + hashResource(resourceManager, metadataLocation, metrics), Util.backgroundExecutor()));
+        }
+        return hashes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join()));
+    }
+
+    private static ResourceLocation getImageLocation(ResourceLocation location)
+    {
+        return new ResourceLocation(location.getNamespace(), "textures/" + location.getPath() + ".png");
+    }
+
+    private static String hashResource(ResourceManager resourceManager, ResourceLocation location, ReloadMetrics.Session metrics)
+    {
+        if (!resourceManager.hasResource(location))
+            return "missing";
+        long startTime = metrics.startTimer();
+        try (Resource resource = resourceManager.getResource(location))
+        {
+            String hash = DigestUtils.md5Hex(resource.getInputStream());
+            metrics.stopTimer(ReloadMetrics.Phase.HASH_VERIFICATION, startTime, location.toString(), resource.getSourceName());
+            return hash;
+        }
+        catch (Exception e)
+        {
+            return "error";
         }
     }
 
+    // Textures keep the page they were stitched on, so adding or removing one only restitches the pages that changed
+    private static Map<ResourceLocation, Integer> assignPages(StitchedPages stitched, Collection<ResourceLocation> locations)
+    {
+        Map<ResourceLocation, Integer> assignments = new HashMap<>();
+        List<Integer> pageSizes = new ArrayList<>(Collections.nCopies(stitched.pages.size(), 0));
+        List<ResourceLocation> added = new ArrayList<>();
+        for (ResourceLocation location : locations)
+        {
+            Integer page = stitched.assignments.get(location);
+            if (page == null)
+            {
+                added.add(location);
+                continue;
+            }
+            assignments.put(location, page);
+            pageSizes.set(page, pageSizes.get(page) + 1);
+        }
+
+        Collections.sort(added);
+        for (ResourceLocation location : added)
+        {
+            int page = 0;
+            for (int i = 1; i < pageSizes.size(); i++)
+                if (pageSizes.get(i) < pageSizes.get(page))
+                    page = i;
+            if (pageSizes.get(page) >= PAGE_SPRITES)
+            {
+                page = pageSizes.size();
+                pageSizes.add(0);
+            }
+            assignments.put(location, page);
+            pageSizes.set(page, pageSizes.get(page) + 1);
+        }
+        return assignments;
+    }
+
     @Override
-    protected void apply(TextureAtlas.Preparations sheetData, ResourceManager resourceManager, ProfilerFiller profiler)
+    protected Preparations prepare(ResourceManager resourceManager, ProfilerFiller profiler)
     {
+        // Each reload claims a new generation, so anything prepared before it started is discarded, including residency updates already in flight
+        int generation;
+        StitchedPages stitched;
+        synchronized (this)
+        {
+            generation = ++this.reloadGeneration;
+            stitched = this.stitched;
+        }
+        // Resource packs may have changed, so every texture is hashed again
+        return this.prepare(resourceManager, profiler, generation, stitched, Collections.emptyMap(), ReloadMetrics.getSession(ReloadMetrics.Source.TEXTURE));
+    }
+
+    private Preparations prepare(ResourceManager resourceManager, ProfilerFiller profiler, int generation, StitchedPages stitched, Map<ResourceLocation, String> knownHashes, ReloadMetrics.Session metrics)
+    {
+        // Online textures are stitched separately after the reload, so only local textures are placed on pages
+        int mipmapLevels = Minecraft.getInstance().options.mipmapLevels;
+        // The textures can be swapped by a residency update at any time, so they are only read once
+        Set<GeometryModelTexture> allTextures = this.textures;
+        Map<ResourceLocation, String> hashes = hashLocalTextures(allTextures, resourceManager, knownHashes, metrics);
+        Map<ResourceLocation, Integer> assignments = assignPages(stitched, hashes.keySet());
+        DecodedResourceManager decodedResourceManager = DECODED_TEXTURE_CACHE ? new DecodedResourceManager(resourceManager, hashes) : null;
+        ResourceManager stitchResourceManager = decodedResourceManager != null ? decodedResourceManager : resourceManager;
+
+        List<Set<GeometryModelTexture>> pageTextures = new ArrayList<>();
+        int pageCount = Math.max(stitched.pages.size(), assignments.values().stream().mapToInt(page -> page + 1).max().orElse(0));
+        for (int i = 0; i < pageCount; i++)
+            pageTextures.add(new HashSet<>());
+        for (GeometryModelTexture texture : allTextures)
+            if (texture.getType() == GeometryModelTexture.Type.LOCATION)
+                pageTextures.get(assignments.get(texture.getLocation())).add(texture);
+
+        Preparations preparations = new Preparations(generation, stitched, allTextures, assignments, knownHashes, hashes, metrics);
         profiler.startTick();
-        profiler.push("upload");
-        this.textureAtlas.reload(sheetData);
+        profiler.push("stitching");
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<Integer> pending = new ArrayList<>();
+        for (int page = 0; page < pageTextures.size(); page++)
+            pending.add(page);
+        while (!pending.isEmpty())
+        {
+            // Every changed page is stitched at the same time. Pages that do not fit are split and stitched again in the next round
+            Map<Integer, AtlasState> states = new HashMap<>();
+            Map<Integer, CompletableFuture<TextureAtlas.Preparations>> futures = new TreeMap<>();
+            for (int page : pending)
+            {
+                Set<GeometryModelTexture> textures = pageTextures.get(page);
+                AtlasState state = new AtlasState(textures, textures.stream().map(GeometryModelTexture::getLocation).distinct().collect(Collectors.toMap(location -> location, hashes::get)), mipmapLevels);
+                if (page < stitched.states.size() && state.equals(stitched.states.get(page)))
+                    continue;
+
+                TextureAtlas atlas = page < stitched.pages.size() ? stitched.pages.get(page) : preparations.newPages.computeIfAbsent(page, i -> new TextureAtlas(getPageLocation(i)));
+                states.put(page, state);
+                futures.put(page, CompletableFuture.supplyAsync(() ->
+                {
+                    long startTime = metrics.startTimer();
+                    TextureAtlas.Preparations sheetData = atlas.prepareToStitch(stitchResourceManager, textures.stream().map(GeometryModelTexture::getLocation).distinct(), InactiveProfiler.INSTANCE, mipmapLevels);
+                    metrics.stopTimer(ReloadMetrics.Phase.STITCH, startTime);
+                    return sheetData;
+                }, Util.backgroundExecutor()));
+            }
+
+            pending = new ArrayList<>();
+            for (Map.Entry<Integer, CompletableFuture<TextureAtlas.Preparations>> entry : futures.entrySet())
+            {
+                int page = entry.getKey();
+                try
+                {
+                    preparations.sheets.put(page, entry.getValue().join());
+                    preparations.states.put(page, states.get(page));
+                }
+                catch (CompletionException e)
+                {
+                    if (!(e.getCause() instanceof ReportedException) || !(e.getCause().getCause() instanceof StitcherException))
+                        throw e;
+
+                    // The page does not fit in the maximum texture size, so half of its textures are moved to a new page
+                    Set<GeometryModelTexture> textures = pageTextures.get(page);
+                    List<ResourceLocation> locations = textures.stream().map(GeometryModelTexture::getLocation).distinct().sorted().collect(Collectors.toList());
+                    pending.add(page);
+                    if (locations.size() <= 1)
+                    {
+                        LOGGER.error("Geometry texture '" + locations.get(0) + "' is too large to fit in an atlas");
+                        assignments.remove(locations.get(0));
+                        textures.clear();
+                        continue;
+                    }
+
+                    Set<ResourceLocation> moved = new HashSet<>(locations.subList(locations.size() / 2, locations.size()));
+                    int newPage = pageTextures.size();
+                    LOGGER.debug("Geometry atlas page " + page + " is too large, moving " + moved.size() + " textures to page " + newPage);
+                    moved.forEach(location -> assignments.put(location, newPage));
+                    pageTextures.add(textures.stream().filter(texture -> moved.contains(texture.getLocation())).collect(Collectors.toSet()));
+                    textures.removeIf(texture -> moved.contains(texture.getLocation()));
+                    pending.add(newPage);
+                }
+            }
+        }
+        this.endStitch(stopwatch, allTextures);
         profiler.pop();
         profiler.endTick();
+        if (decodedResourceManager != null)
+            decodedResourceManager.storeDecoded();
+
+        if (preparations.sheets.isEmpty())
+        {
+            LOGGER.debug("Geometry textures are unchanged, skipping stitch");
+        }
+        else
+        {
+            LOGGER.debug("Stitched " + preparations.sheets.size() + " of " + pageTextures.size() + " geometry atlas pages");
+        }
+        return preparations;
+    }
+
+    @Override
+    protected void apply(Preparations preparations, ResourceManager resourceManager, ProfilerFiller profiler)
+    {
+        if (this.upload(preparations, profiler))
+            this.loadOnlineTextures(resourceManager, preparations.textures);
+    }
+
+    // Uploads the stitched pages, unless a newer reload has started or the pages changed since the preparations were made
+    private synchronized boolean upload(Preparations preparations, ProfilerFiller profiler)
+    {
+        if (preparations.generation != this.reloadGeneration || preparations.stitched != this.stitched)
+        {
+            LOGGER.debug("Discarding outdated geometry atlas preparations");
+            return false;
+        }
+
+        Map<ResourceLocation, String> localHashes = new HashMap<>(preparations.knownHashes);
+        localHashes.putAll(preparations.hashes);
+        this.localHashes = localHashes;
+
+        if (!preparations.sheets.isEmpty())
+        {
+            profiler.startTick();
+            profiler.push("upload");
+            ReloadMetrics.Session metrics = preparations.metrics;
+            long startTime = metrics.startTimer();
+            StitchedPages stitched = this.stitched;
+            List<TextureAtlas> pages = new ArrayList<>(stitched.pages);
+            List<AtlasState> states = new ArrayList<>(stitched.states);
+            preparations.newPages.values().forEach(atlas ->
+            {
+                pages.add(atlas);
+                states.add(null);
+                this.textureManager.register(atlas.location(), atlas);
+            });
+            preparations.sheets.forEach((page, sheetData) ->
+            {
+                pages.get(page).reload(sheetData);
+                states.set(page, preparations.states.get(page));
+            });
+            this.stitched = new StitchedPages(pages, states, preparations.assignments);
+            metrics.stopTimer(ReloadMetrics.Phase.UPLOAD, startTime);
+            profiler.pop();
+            profiler.endTick();
+        }
+        return true;
+    }
+
+    private static Set<GeometryModelTexture> getOnlineTextures(Set<GeometryModelTexture> textures)
+    {
+        return textures.stream().filter(texture -> texture.getType() == GeometryModelTexture.Type.ONLINE).collect(Collectors.toSet());
+    }
+
+    // Online textures are downloaded after the reload so slow hosts never hold it up. The previous online atlas stays in use until the new one is ready
+    private void loadOnlineTextures(ResourceManager resourceManager, Set<GeometryModelTexture> textures)
+    {
+        int generation = ++this.onlineGeneration;
+        Set<GeometryModelTexture> onlineTextures = getOnlineTextures(textures);
+        this.onlineTextures = onlineTextures;
+        if (onlineTextures.isEmpty())
+        {
+            this.onlineTextureAtlas.clearTextureData();
+            return;
+        }
+
+        ReloadMetrics.Session metrics = ReloadMetrics.begin(ReloadMetrics.Source.ONLINE_TEXTURE);
+        int mipmapLevels = Minecraft.getInstance().options.mipmapLevels;
+        OnlineResourceManager onlineResourceManager = new OnlineResourceManager(resourceManager, this.createOnlineRepository(), metrics, onlineTextures);
+        onlineResourceManager.whenDownloaded().thenApplyAsync(__ ->
+        {
+            long startTime = metrics.startTimer();
+            TextureAtlas.Preparations sheetData = this.onlineTextureAtlas.prepareToStitch(onlineResourceManager, onlineTextures.stream().map(GeometryModelTexture::getLocation).distinct(), InactiveProfiler.INSTANCE, mipmapLevels);
+            metrics.stopTimer(ReloadMetrics.Phase.STITCH, startTime);
+            onlineResourceManager.storeDecoded();
+            return sheetData;
+        }, Util.backgroundExecutor()).thenAcceptAsync(sheetData ->
+        {
+            // A newer reload has already started loading its own online textures
+            if (generation != this.onlineGeneration)
+                return;
+
+            long startTime = metrics.startTimer();
+            this.onlineTextureAtlas.reload(sheetData);
+            metrics.stopTimer(ReloadMetrics.Phase.UPLOAD, startTime);
+            metrics.finish();
+            LOGGER.debug("Stitched " + onlineTextures.size() + " online geometry textures");
+        }, Minecraft.getInstance()).exceptionally(t ->
+        {
+            LOGGER.error("Failed to load online geometry textures", t);
+            return null;
+        });
+    }
+
+    // The caches outlive each reload so a reload started while the last one is still downloading joins its requests instead of fetching again
+    private OnlineRepository createOnlineRepository()
+    {
+        Executor executor = OnlineFetcher.get().getExecutor();
+        if (this.onlineCache == null)
+            this.onlineCache = new TimedTextureCache(executor, 1, TimeUnit.DAYS);
+        if (this.hashedOnlineCache == null || !Arrays.equals(this.hashTables, this.hashedOnlineCacheTables))
+        {
+            this.hashedOnlineCache = new HashedTextureCache(executor, this.hashTables);
+            this.hashedOnlineCacheTables = this.hashTables.clone();
+        }
+        return new OnlineRepository(this.hashedOnlineCache, this.onlineCache);
     }
 
     @Override
     public void close()
     {
-        this.textureAtlas.clearTextureData();
+        synchronized (this)
+        {
+            this.reloadGeneration++;
+        }
+        this.onlineGeneration++;
+        StitchedPages stitched = this.stitched;
+        stitched.pages.forEach(TextureAtlas::clearTextureData);
+        this.onlineTextureAtlas.clearTextureData();
+        this.stitched = new StitchedPages(stitched.pages, Collections.nCopies(stitched.pages.size(), null), Collections.emptyMap());
     }
 
     public GeometryTextureSpriteUploader setTextures(Map<ResourceLocation, GeometryModelTextureTable> textures, String[] hashTables)
     {
-        this.textures.clear();
-        this.textures.addAll(textures.values().stream().flatMap(table -> table.getTextures().stream().flatMap(Arrays::stream)).collect(Collectors.toSet()));
+        Map<GeometryModelTextureTable, ResourceLocation> tableLocations = new IdentityHashMap<>();
+        textures.forEach((location, table) -> tableLocations.put(table, location));
+        this.tables = textures;
+        this.tableLocations = tableLocations;
         this.hashTables = hashTables;
+        this.residentTables = DEMAND_RESIDENCY ? this.getResidentTables() : textures.keySet();
+        this.textures = collectTextures(textures, this.residentTables);
         return this;
     }
 
+    private static Set<GeometryModelTexture> collectTextures(Map<ResourceLocation, GeometryModelTextureTable> tables, Set<ResourceLocation> locations)
+    {
+        return locations.stream().map(tables::get).filter(Objects::nonNull).flatMap(table -> table.getTextures().stream().flatMap(Arrays::stream)).collect(Collectors.toSet());
+    }
+
+    /**
+     * Records that the specified texture table was rendered, so its textures are stitched if they are not already.
+     *
+     * @param textures The table being rendered
+     */
+    public void markUsed(GeometryModelTextureTable textures)
+    {
+        if (!DEMAND_RESIDENCY)
+            return;
+
+        ResourceLocation location = this.tableLocations.get(textures);
+        if (location == null)
+            return;
+
+        // Only updated once in a while so rendering every frame does not allocate
+        long now = Util.getMillis();
+        Long lastUsed = this.lastUsed.get(location);
+        if (lastUsed == null || now - lastUsed > USE_RESOLUTION)
+            this.lastUsed.put(location, now);
+    }
+
+    /**
+     * Keeps the textures of the specified texture table stitched even when nothing renders with it.
+     *
+     * @param location The location of the texture table
+     */
+    public void retain(ResourceLocation location)
+    {
+        this.retained.merge(location, 1, Integer::sum);
+    }
+
+    /**
+     * Releases a texture table previously retained with {@link #retain(ResourceLocation)}.
+     *
+     * @param location The location of the texture table
+     */
+    public void release(ResourceLocation location)
+    {
+        this.retained.computeIfPresent(location, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Set<ResourceLocation> getResidentTables()
+    {
+        long now = Util.getMillis();
+        this.lastUsed.values().removeIf(time -> now - time > RESIDENCY_GRACE_PERIOD);
+
+        Set<ResourceLocation> resident = new HashSet<>(this.retained.keySet());
+        resident.addAll(this.lastUsed.keySet());
+        resident.retainAll(this.tables.keySet());
+        return resident;
+    }
+
+    /**
+     * Stitches texture tables that have started being used and evicts the ones that have not been used for a while. Only has an effect when demand residency is enabled.
+     */
+    public void tickResidency()
+    {
+        // Resource pack reloads show the loading overlay until they finish, so it also covers reloads that were not started by the texture manager
+        if (!DEMAND_RESIDENCY || this.updatingResidency || GeometryTextureManager.isReloading() || Minecraft.getInstance().getOverlay() != null || ++this.residencyTicks < RESIDENCY_UPDATE_TICKS)
+            return;
+        this.residencyTicks = 0;
+
+        Set<ResourceLocation> resident = this.getResidentTables();
+        if (resident.equals(this.residentTables))
+            return;
+
+        LOGGER.debug("Updating resident geometry textures from " + this.residentTables.size() + " to " + resident.size() + " texture tables");
+        this.residentTables = resident;
+        this.textures = collectTextures(this.tables, resident);
+        this.updatingResidency = true;
+
+        // Only the pages with added or removed textures are stitched again. A reload that starts in the meantime makes the result outdated
+        ResourceManager resourceManager = Minecraft.getInstance().getResourceManager();
+        int generation;
+        StitchedPages stitched;
+        Map<ResourceLocation, String> knownHashes;
+        synchronized (this)
+        {
+            generation = this.reloadGeneration;
+            stitched = this.stitched;
+            knownHashes = this.localHashes;
+        }
+        // Resources cannot change outside a reload, so textures hashed before are not read again. The update is not part of a reload, so it is timed on its own
+        ReloadMetrics.Session metrics = ReloadMetrics.detached(ReloadMetrics.Source.TEXTURE);
+        CompletableFuture.supplyAsync(() -> this.prepare(resourceManager, InactiveProfiler.INSTANCE, generation, stitched, knownHashes, metrics), Util.backgroundExecutor()).thenAcceptAsync(preparations ->
+        {
+            // Online textures are only downloaded again when tables using them started or stopped being resident
+            if (this.upload(preparations, InactiveProfiler.INSTANCE) && !getOnlineTextures(preparations.textures).equals(this.onlineTextures))
+                this.loadOnlineTextures(resourceManager, preparations.textures);
+        }, Minecraft.getInstance()).whenComplete((__, t) ->
+        {
+            this.updatingResidency = false;
+            if (t != null)
+                LOGGER.error("Failed to update resident geometry textures", t);
+        });
+    }
+
+    static class Preparations
+    {
+        private final int generation;
+        private final StitchedPages stitched;
+        private final Set<GeometryModelTexture> textures;
+        private final Map<ResourceLocation, Integer> assignments;
+        private final Map<Integer, TextureAtlas> newPages;
+        private final Map<Integer, TextureAtlas.Preparations> sheets;
+        private final Map<Integer, AtlasState> states;
+        private final Map<ResourceLocation, String> knownHashes;
+        private final Map<ResourceLocation, String> hashes;
+        private final ReloadMetrics.Session metrics;
+
+        private Preparations(int generation, StitchedPages stitched, Set<GeometryModelTexture> textures, Map<ResourceLocation, Integer> assignments, Map<ResourceLocation, String> knownHashes, Map<ResourceLocation, String> hashes, ReloadMetrics.Session metrics)
+        {
+            this.generation = generation;
+            this.stitched = stitched;
+            this.textures = textures;
+            this.assignments = assignments;
+            this.knownHashes = knownHashes;
+            this.hashes = hashes;
+            this.metrics = metrics;
+            this.newPages = new TreeMap<>();
+            this.sheets = new HashMap<>();
+            this.states = new HashMap<>();
+        }
+    }
+
+    // Pages are only ever replaced as a whole, so preparing a stitch on another thread always sees a consistent set
+    private static class StitchedPages
+    {
+        private final List<TextureAtlas> pages;
+        private final List<AtlasState> states;
+        private final Map<ResourceLocation, Integer> assignments;
+
+        private StitchedPages(List<TextureAtlas> pages, List<AtlasState> states, Map<ResourceLocation, Integer> assignments)
+        {
+            this.pages = Collections.unmodifiableList(new ArrayList<>(pages));
+            this.states = Collections.unmodifiableList(new ArrayList<>(states));
+            this.assignments = Collections.unmodifiableMap(new HashMap<>(assignments));
+        }
+    }
+
+    private static class AtlasState
+    {
+        private final Set<GeometryModelTexture> textures;
+        private final Map<ResourceLocation, String> localHashes;
+        private final int mipmapLevels;
+
+        private AtlasState(Set<GeometryModelTexture> textures, Map<ResourceLocation, String> localHashes, int mipmapLevels)
+        {
+            this.textures = new HashSet<>(textures);
+            this.localHashes = localHashes;
+            this.mipmapLevels = mipmapLevels;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AtlasState that = (AtlasState) o;
+            return mipmapLevels == that.mipmapLevels && textures.equals(that.textures) && localHashes.equals(that.localHashes);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(textures, localHashes, mipmapLevels);
+        }
+    }
+
+    // Serves local textures from the decoded texture cache, keeping their metadata from the original resource
+    private static class DecodedResourceManager implements ResourceManager
+    {
+        private final ResourceManager parent;
+        private final Map<ResourceLocation, String> hashes;
+        private final Map<String, ResourceLocation> misses;
+
+        private DecodedResourceManager(ResourceManager parent, Map<ResourceLocation, String> textureHashes)
+        {
+            this.parent = parent;
+            this.hashes = new HashMap<>();
+            this.misses = new ConcurrentHashMap<>();
+            textureHashes.forEach((location, hash) ->
+            {
+                if (!hash.startsWith("missing") && !hash.startsWith("error"))
+                    this.hashes.put(getImageLocation(location), hash);
+            });
+        }
+
+        // Textures that were decoded from the original image are decoded again in the background so the next launch can use the cache
+        private void storeDecoded()
+        {
+            this.misses.forEach((hash, location) -> Util.backgroundExecutor().execute(() ->
+            {
+                try (Resource resource = this.parent.getResource(location))
+                {
+                    DecodedTextureCache.put(hash, resource.getInputStream());
+                }
+                catch (Exception e)
+                {
+                    LOGGER.debug("Failed to read geometry texture '" + location + "'", e);
+                }
+            }));
+        }
+
+        @Override
+        public Set<String> getNamespaces()
+        {
+            return this.parent.getNamespaces();
+        }
+
+        @Override
+        public Resource getResource(ResourceLocation resourceLocation) throws IOException
+        {
+            String hash = this.hashes.get(resourceLocation);
+            if (hash != null)
+            {
+                Path file = DecodedTextureCache.get(hash);
+                if (file != null)
+                {
+                    InputStream stream = new FileInputStream(file.toFile());
+                    try
+                    {
+                        return new DecodedResource(this.parent.getResource(resourceLocation), stream);
+                    }
+                    catch (IOException e)
+                    {
+                        stream.close();
+                        throw e;
+                    }
+                }
+                this.misses.put(hash, resourceLocation);
+            }
+            return this.parent.getResource(resourceLocation);
+        }
+
+        @Override
+        public boolean hasResource(ResourceLocation resourceLocation)
+        {
+            return this.parent.hasResource(resourceLocation);
+        }
+
+        @Override
+        public List<Resource> getResources(ResourceLocation resourceLocation) throws IOException
+        {
+            return this.parent.getResources(resourceLocation);
+        }
+
+        @Override
+        public Collection<ResourceLocation> listResources(String path, Predicate<String> filter)
+        {
+            return this.parent.listResources(path, filter);
+        }
+
+        @Override
+        public Stream<PackResources> listPacks()
+        {
+            return this.parent.listPacks();
+        }
+
+        private static class DecodedResource implements Resource
+        {
+            private final Resource parent;
+            private final InputStream stream;
+
+            private DecodedResource(Resource parent, InputStream stream)
+            {
+                this.parent = parent;
+                this.stream = stream;
+            }
+
+            @Override
+            public ResourceLocation getLocation()
+            {
+                return this.parent.getLocation();
+            }
+
+            @Override
+            public InputStream getInputStream()
+            {
+                return this.stream;
+            }
+
+            @Nullable
+            @Override
+            public <T> T getMetadata(MetadataSectionSerializer<T> serializer)
+            {
+                return this.parent.getMetadata(serializer);
+            }
+
+            @Override
+            public String getSourceName()
+            {
+                return this.parent.getSourceName();
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    this.stream.close();
+                }
+                finally
+                {
+                    this.parent.close();
+                }
+            }
+        }
+    }
+
     private static class OnlineResourceManager implements ResourceManager
     {
         private final ResourceManager parent;
         private final OnlineRepository repository;
+        private final ReloadMetrics.Session metrics;
         private final Set<String> uncached;
-        private final Map<String, Pair<CompletableFuture<Path>, CompletableFuture<JsonObject>>> onlineLocations;
+        private final Map<String, String> decodedHashes;
+        private final Map<String, byte[]> decodedMisses;
+        private final Map<String, Pair<CompletableFuture<byte[]>, CompletableFuture<JsonObject>>> onlineLocations;
 
-        private OnlineResourceManager(ResourceManager parent, OnlineRepository repository, Set<GeometryModelTexture> onlineTextures)
+        private OnlineResourceManager(ResourceManager parent, OnlineRepository repository, ReloadMetrics.Session metrics, Set<GeometryModelTexture> onlineTextures)
         {
             this.parent = parent;
             this.repository = repository;
+            this.metrics = metrics;
             this.uncached = onlineTextures.stream().filter(texture -> !texture.canCache()).map(GeometryModelTexture::getData).collect(Collectors.toSet());
+            this.decodedHashes = new ConcurrentHashMap<>();
+            this.decodedMisses = new ConcurrentHashMap<>();
             this.onlineLocations = onlineTextures.stream().map(GeometryModelTexture::getData).distinct().collect(Collectors.toMap(url -> url, this::updateCache));
         }
 
-        private Pair<CompletableFuture<Path>, CompletableFuture<JsonObject>> updateCache(String url)
+        private Pair<CompletableFuture<byte[]>, CompletableFuture<JsonObject>> updateCache(String url)
         {
             String metadataUrl;
             String extension = FilenameUtils.getExtension(url);
@@ -159,14 +821,22 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
                 metadataUrl = urlParts[0] + extension + ".mcmeta" + urlParts[1];
             }
 
-            CompletableFuture<Path> texturePath = this.repository.requestResource(url, !this.uncached.contains(url), false);
-            CompletableFuture<JsonObject> metadataPath = this.repository.requestResource(metadataUrl, false, true).thenApplyAsync(path ->
+            // The texture is read into memory once so the stitcher can read it as many times as it needs without opening the file again
+            long startTime = this.metrics.startTimer();
+            CompletableFuture<byte[]> textureData = this.repository.requestResource(url, !this.uncached.contains(url), false).thenApplyAsync(OnlineResourceManager::read, Util.ioPool()).thenApply(data ->
+            {
+                if (DECODED_TEXTURE_CACHE && data != null)
+                    this.decodedHashes.put(url, DigestUtils.md5Hex(data));
+                return data;
+            });
+            textureData.whenComplete((data, t) -> this.metrics.stopTimer(ReloadMetrics.Phase.ONLINE_FETCH, startTime, url, ModelAnima.MOD_ID + "_online"));
+            CompletableFuture<JsonObject> metadata = this.repository.requestResource(metadataUrl, false, true).thenApplyAsync(path ->
             {
-                InputStream stream = read(CompletableFuture.completedFuture(path));
-                if (stream == null)
+                byte[] data = read(path);
+                if (data == null)
                     return null;
 
-                try (BufferedReader bufferedreader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+                try (BufferedReader bufferedreader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8)))
                 {
                     return GsonHelper.parse(bufferedreader);
                 }
@@ -176,7 +846,28 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
 
                 return null;
             }, Util.ioPool());
-            return Pair.of(texturePath, metadataPath);
+            return Pair.of(textureData, metadata);
+        }
+
+        // Textures that were decoded from the downloaded image are decoded again in the background so the next launch can use the cache
+        private void storeDecoded()
+        {
+            // Entries are removed as they are handed off so the downloaded images are not kept alive by this manager after the reload
+            Iterator<Map.Entry<String, byte[]>> iterator = this.decodedMisses.entrySet().iterator();
+            while (iterator.hasNext())
+            {
+                Map.Entry<String, byte[]> entry = iterator.next();
+                String hash = entry.getKey();
+                byte[] data = entry.getValue();
+                iterator.remove();
+                Util.backgroundExecutor().execute(() -> DecodedTextureCache.put(hash, new ByteArrayInputStream(data)));
+            }
+        }
+
+        // Completes once every texture and its metadata has either downloaded or failed
+        private CompletableFuture<Void> whenDownloaded()
+        {
+            return CompletableFuture.allOf(this.onlineLocations.values().stream().flatMap(pair -> Stream.of(pair.getLeft(), pair.getRight())).toArray(CompletableFuture[]::new)).handle((__, t) -> null);
         }
 
         @Override
@@ -194,12 +885,21 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
                 if (!this.onlineLocations.containsKey(url))
                     throw new IOException("Failed to fetch texture data from '" + url + "'");
 
-                Pair<CompletableFuture<Path>, CompletableFuture<JsonObject>> files = this.onlineLocations.get(url);
-                InputStream textureStream = read(files.getLeft());
-                if (textureStream == null)
+                Pair<CompletableFuture<byte[]>, CompletableFuture<JsonObject>> files = this.onlineLocations.get(url);
+                byte[] textureData = join(files.getLeft());
+                if (textureData == null)
                     throw new IOException("Failed to fetch texture data from '" + url + "'");
 
-                return new OnlineResource(url, resourceLocation, textureStream, files.getRight().join());
+                JsonObject metadata = files.getRight().join();
+                String hash = this.decodedHashes.get(url);
+                if (hash != null)
+                {
+                    Path file = DecodedTextureCache.get(hash);
+                    if (file != null)
+                        return new OnlineResource(url, resourceLocation, new FileInputStream(file.toFile()), metadata);
+                    this.decodedMisses.put(hash, textureData);
+                }
+                return new OnlineResource(url, resourceLocation, new ByteArrayInputStream(textureData), metadata);
             }
             return this.parent.getResource(resourceLocation);
         }
@@ -238,16 +938,32 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
         }
 
         @Nullable
-        private static InputStream read(CompletableFuture<Path> pathFuture)
+        private static byte[] read(@Nullable Path path)
         {
+            if (path == null)
+                return null;
+
             try
             {
-                Path path = pathFuture.join();
-                return path == null ? null : new FileInputStream(path.toFile());
+                return Files.readAllBytes(path);
             }
             catch (Exception e)
             {
-                LOGGER.error("Took too long to fetch texture data", e);
+                LOGGER.error("Failed to read texture data from '" + path + "'", e);
+                return null;
+            }
+        }
+
+        @Nullable
+        private static byte[] join(CompletableFuture<byte[]> dataFuture)
+        {
+            try
+            {
+                return dataFuture.join();
+            }
+            catch (Exception e)
+            {
+                LOGGER.error("Failed to fetch texture data", e);
                 return null;
             }
         }
@@ -312,19 +1028,16 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
         }
     }
 
-    private static class OnlineRepository implements AutoCloseable
+    private static class OnlineRepository
     {
-        private final ExecutorService executor;
         private final FileCache hashedCache;
         private final FileCache cache;
         private final Map<String, CompletableFuture<Path>> resources;
 
-        private OnlineRepository(String[] hashTableUrls)
+        private OnlineRepository(FileCache hashedCache, FileCache cache)
         {
-            AtomicInteger idGenerator = new AtomicInteger();
-            this.executor = createOnlineWorker(idGenerator::getAndIncrement);
-            this.hashedCache = new HashedTextureCache(this.executor, hashTableUrls);
-            this.cache = new TimedTextureCache(this.executor, 1, TimeUnit.DAYS);
+            this.hashedCache = hashedCache;
+            this.cache = cache;
             this.resources = new HashMap<>();
         }
 
@@ -332,69 +1045,5 @@ public class GeometryTextureSpriteUploader extends SimplePreparableReloadListene
         {
             return this.resources.computeIfAbsent(url, key -> cache ? this.hashedCache.requestResource(url, ignoreMissing) : this.cache.requestResource(url, ignoreMissing));
         }
-
-        private static ExecutorService createOnlineWorker(Supplier<Integer> idGenerator)
-        {
-            int i = Mth.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 7);
-            ExecutorService executorservice;
-            if (i <= 0)
-            {
-                executorservice = MoreExecutors.newDirectExecutorService();
-            }
-            else
-            {
-                executorservice = new ForkJoinPool(i, pool ->
-                {
-                    ForkJoinWorkerThread forkjoinworkerthread = new ForkJoinWorkerThread(pool)
-                    {
-                        @Override
-                        protected void onTermination(@Nullable Throwable t)
-                        {
-                            if (t != null)
-                            {
-                                LOGGER.warn("{} died", this.getName(), t);
-                            }
-                            else
-                            {
-                                LOGGER.debug("{} shutdown", this.getName());
-                            }
-
-                            super.onTermination(t);
-                        }
-                    };
-                    forkjoinworkerthread.setName("Worker-Geometry Online Fetcher-" + idGenerator.get());
-                    return forkjoinworkerthread;
-                }, (thread, throwable) ->
-                {
-                    if (throwable instanceof CompletionException)
-                        throwable = throwable.getCause();
-
-                    if (throwable instanceof ReportedException)
-                    {
-                        Bootstrap.realStdoutPrintln(((ReportedException) throwable).getReport().getFriendlyReport());
-                        System.exit(-1);
-                    }
-
-                    LOGGER.error("Caught exception in thread " + thread, throwable);
-                }, true);
-            }
-
-            return executorservice;
-        }
-
-        @Override
-        public void close()
-        {
-            this.executor.shutdown();
-            try
-            {
-                if (!this.executor.awaitTermination(10, TimeUnit.SECONDS))
-                    LOGGER.warn("Took more than 10 seconds to terminate online worker");
-            }
-            catch (Exception e)
-            {
-                LOGGER.error("Failed to terminate online worker", e);
-            }
-        }
     }
-}
\ No newline at end of file
+}
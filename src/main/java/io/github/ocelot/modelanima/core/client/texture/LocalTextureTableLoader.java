@@ -1,19 +1,25 @@
 package io.github.ocelot.modelanima.core.client.texture;
 
 import com.google.gson.Gson;
+import io.github.ocelot.modelanima.api.client.metrics.ReloadMetrics;
 import io.github.ocelot.modelanima.api.client.texture.TextureTableLoader;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
 import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
+import io.github.ocelot.modelanima.core.client.util.ResourceContentCache;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.util.profiling.ProfilerFiller;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.ApiStatus;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -29,6 +35,7 @@ public class LocalTextureTableLoader implements TextureTableLoader
     private static final Logger LOGGER = LogManager.getLogger();
     private static final Gson GSON = new Gson();
     private final Map<ResourceLocation, GeometryModelTextureTable> textures;
+    private final ResourceContentCache<GeometryModelTextureTable> fileCache;
     private final String folder;
     private String[] hashTables;
 
@@ -40,6 +47,7 @@ public class LocalTextureTableLoader implements TextureTableLoader
     public LocalTextureTableLoader(@Nullable String folder)
     {
         this.textures = new HashMap<>();
+        this.fileCache = new ResourceContentCache<>();
         this.folder = folder == null || folder.isEmpty() ? "" : folder + "/";
         this.hashTables = new String[0];
     }
@@ -62,22 +70,38 @@ public class LocalTextureTableLoader implements TextureTableLoader
     {
         return CompletableFuture.supplyAsync(() ->
         {
+            ReloadMetrics.Session metrics = ReloadMetrics.getSession(ReloadMetrics.Source.TEXTURE);
             Map<ResourceLocation, GeometryModelTextureTable> textureLocations = new HashMap<>();
-            for (ResourceLocation textureTableLocation : resourceManager.listResources(this.folder, name -> name.endsWith(".json")))
+            long listStartTime = metrics.startTimer();
+            Collection<ResourceLocation> files = resourceManager.listResources(this.folder, name -> name.endsWith(".json"));
+            metrics.stopTimer(ReloadMetrics.Phase.LIST_RESOURCES, listStartTime);
+            for (ResourceLocation textureTableLocation : files)
             {
                 ResourceLocation textureTableName = new ResourceLocation(textureTableLocation.getNamespace(), textureTableLocation.getPath().substring(this.folder.length(), textureTableLocation.getPath().length() - 5));
                 if (textureTableName.getPath().equals("hash_tables"))
                     continue;
 
+                long startTime = metrics.startTimer();
                 try (Resource resource = resourceManager.getResource(textureTableLocation))
                 {
-                    textureLocations.put(textureTableName, GeometryModelParser.parseTextures(new InputStreamReader(resource.getInputStream())));
+                    byte[] data = IOUtils.toByteArray(resource.getInputStream());
+                    String hash = DigestUtils.md5Hex(data);
+                    GeometryModelTextureTable table = this.fileCache.get(textureTableLocation, hash);
+                    if (table == null)
+                    {
+                        table = GeometryModelParser.parseTextures(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+                        this.fileCache.put(textureTableLocation, hash, table);
+                    }
+                    textureLocations.put(textureTableName, table);
+                    metrics.stopTimer(ReloadMetrics.Phase.PARSE, startTime, textureTableLocation.toString(), resource.getSourceName());
                 }
                 catch (Exception e)
                 {
+                    this.fileCache.remove(textureTableLocation);
                     LOGGER.error("Failed to load texture table '" + textureTableName + "'", e);
                 }
             }
+            this.fileCache.retain(files);
             LOGGER.info("Loaded " + textureLocations.size() + " model texture tables.");
             return textureLocations;
         }, backgroundExecutor).thenAcceptBothAsync(CompletableFuture.supplyAsync(() ->
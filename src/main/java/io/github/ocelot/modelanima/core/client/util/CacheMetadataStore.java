@@ -0,0 +1,276 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * <p>Stores cache metadata as an append-only log of changes with an in-memory index.</p>
+ * <p>Each change is appended as a single line, so updates never rewrite other entries and a crash can at most lose the line being written. Once most of the log is outdated it is compacted into a new file that atomically replaces the old one.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class CacheMetadataStore
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new Gson();
+    private static final int MIN_COMPACT_RECORDS = 1024;
+
+    private final Path file;
+    private final NavigableMap<String, JsonPrimitive> index;
+    private final Object writeLock;
+    private Writer writer;
+    private int records;
+
+    public CacheMetadataStore(Path file)
+    {
+        this.file = file;
+        // Sorted so every key sharing a prefix can be found without scanning the whole index
+        this.index = new ConcurrentSkipListMap<>();
+        this.writeLock = new Object();
+        this.writer = null;
+        this.records = 0;
+        this.load();
+    }
+
+    private void load()
+    {
+        if (!Files.exists(this.file))
+            return;
+
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8))
+        {
+            JsonParser parser = new JsonParser();
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.isEmpty())
+                    continue;
+
+                try
+                {
+                    JsonObject record = parser.parse(line).getAsJsonObject();
+                    String key = record.get("key").getAsString();
+                    JsonElement value = record.get("value");
+                    if (value != null && value.isJsonPrimitive())
+                    {
+                        this.index.put(key, value.getAsJsonPrimitive());
+                    }
+                    else
+                    {
+                        this.index.remove(key);
+                    }
+                    this.records++;
+                }
+                catch (Exception e)
+                {
+                    // A record cut off by a crash is simply dropped
+                    skipped++;
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOGGER.error("Failed to read cache metadata from '" + this.file + "'", e);
+        }
+
+        if (skipped > 0)
+            LOGGER.warn("Skipped " + skipped + " corrupt cache metadata record(s)");
+        LOGGER.debug("Read " + this.index.size() + " cache metadata entries from " + this.records + " records");
+        if (skipped > 0 || this.shouldCompact())
+            this.compact();
+    }
+
+    private boolean shouldCompact()
+    {
+        return this.records > MIN_COMPACT_RECORDS && this.records > this.index.size() * 2;
+    }
+
+    private void append(String key, @Nullable JsonPrimitive value) throws IOException
+    {
+        if (this.writer == null)
+        {
+            Files.createDirectories(this.file.getParent());
+            this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        this.writer.write(createRecord(key, value));
+        this.writer.write('\n');
+        this.writer.flush();
+        this.records++;
+    }
+
+    private static String createRecord(String key, @Nullable JsonPrimitive value)
+    {
+        JsonObject record = new JsonObject();
+        record.addProperty("key", key);
+        if (value != null)
+            record.add("value", value);
+        return GSON.toJson(record);
+    }
+
+    /**
+     * Fetches the value stored under the specified key.
+     *
+     * @param key The key to get
+     * @return The value or <code>null</code> if there is no value for the key
+     */
+    @Nullable
+    public JsonPrimitive get(String key)
+    {
+        return this.index.get(key);
+    }
+
+    /**
+     * Sets the value stored under the specified key.
+     *
+     * @param key   The key to set
+     * @param value The new value
+     */
+    public void put(String key, String value)
+    {
+        this.put(key, new JsonPrimitive(value));
+    }
+
+    /**
+     * Sets the value stored under the specified key.
+     *
+     * @param key   The key to set
+     * @param value The new value
+     */
+    public void put(String key, long value)
+    {
+        this.put(key, new JsonPrimitive(value));
+    }
+
+    private void put(String key, JsonPrimitive value)
+    {
+        synchronized (this.writeLock)
+        {
+            if (value.equals(this.index.put(key, value)))
+                return;
+            this.write(key, value);
+        }
+    }
+
+    /**
+     * Removes the value stored under the specified key.
+     *
+     * @param key The key to remove
+     */
+    public void remove(String key)
+    {
+        synchronized (this.writeLock)
+        {
+            if (this.index.remove(key) != null)
+                this.write(key, null);
+        }
+    }
+
+    /**
+     * Removes the value stored under the specified key and every key that starts with the key followed by a <code>.</code>.
+     *
+     * @param key The key to remove
+     */
+    public void removeWithPrefix(String key)
+    {
+        synchronized (this.writeLock)
+        {
+            this.remove(key);
+            String prefix = key + ".";
+            for (String indexKey : this.index.subMap(prefix, prefix + Character.MAX_VALUE).keySet())
+                this.remove(indexKey);
+        }
+    }
+
+    /**
+     * Sets all the specified values at once and compacts the log.
+     *
+     * @param values The values to set
+     */
+    public void putAll(Map<String, JsonPrimitive> values)
+    {
+        synchronized (this.writeLock)
+        {
+            this.index.putAll(values);
+            this.compact();
+        }
+    }
+
+    private void write(String key, @Nullable JsonPrimitive value)
+    {
+        try
+        {
+            this.append(key, value);
+            if (this.shouldCompact())
+                this.compact();
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Failed to write cache metadata to '" + this.file + "'", e);
+        }
+    }
+
+    /**
+     * Rewrites the log so it only contains the current values.
+     */
+    public void compact()
+    {
+        synchronized (this.writeLock)
+        {
+            Path tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            try
+            {
+                Files.createDirectories(this.file.getParent());
+                try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+                {
+                    for (Map.Entry<String, JsonPrimitive> entry : this.index.entrySet())
+                    {
+                        writer.write(createRecord(entry.getKey(), entry.getValue()));
+                        writer.write('\n');
+                    }
+                }
+
+                if (this.writer != null)
+                {
+                    this.writer.close();
+                    this.writer = null;
+                }
+                try
+                {
+                    Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                LOGGER.debug("Compacted " + this.records + " cache metadata records into " + this.index.size());
+                this.records = this.index.size();
+            }
+            catch (IOException e)
+            {
+                LOGGER.error("Failed to compact cache metadata in '" + this.file + "'", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import com.google.gson.JsonPrimitive;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Evicts cached files that have not been used for too long, then the least recently used files until the cache fits in its size limit. A cache spread over several folders shares one size limit.</p>
+ * <p>Each cache entry is a file named by its metadata key. The time it was last used is read from <code>key + {@link #LAST_ACCESS_SUFFIX}</code> in the metadata store, falling back to the time the file was last modified.</p>
+ * <p>Files ending in {@link #TEMP_SUFFIX} that have not been modified for an hour are left over from interrupted downloads and are deleted as well.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class CacheSweeper
+{
+    public static final String LAST_ACCESS_SUFFIX = ".lastAccess";
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    private static final long TEMP_FILE_AGE = TimeUnit.HOURS.toMillis(1);
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private CacheSweeper()
+    {
+    }
+
+    /**
+     * Evicts entries from the specified cache folder.
+     *
+     * @param folder       The folder containing the cached files
+     * @param metadata     The metadata store for the cache
+     * @param maxBytes     The maximum total size of all entries
+     * @param maxAgeMillis The maximum time since an entry was last used
+     * @return The result of the sweep
+     */
+    public static Result sweep(Path folder, CacheMetadataStore metadata, long maxBytes, long maxAgeMillis)
+    {
+        return sweep(metadata, maxBytes, maxAgeMillis, Collections.emptySet(), folder);
+    }
+
+    /**
+     * Evicts entries from the specified cache folders, which share a single size limit.
+     *
+     * @param metadata     The metadata store for the cache
+     * @param maxBytes     The maximum total size of all entries in all folders
+     * @param maxAgeMillis The maximum time since an entry was last used
+     * @param retained     The keys of entries that must not be evicted. The set is locked while each entry is checked and deleted, so a cache can hand out a file while holding the lock without it being deleted
+     * @param folders      The folders containing the cached files
+     * @return The result of the sweep
+     */
+    public static Result sweep(CacheMetadataStore metadata, long maxBytes, long maxAgeMillis, Set<String> retained, Path... folders)
+    {
+        long startTime = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        for (Path folder : folders)
+        {
+            if (!Files.isDirectory(folder))
+                continue;
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, Files::isRegularFile))
+            {
+                for (Path file : stream)
+                {
+                    String key = file.getFileName().toString();
+                    if (key.endsWith(TEMP_SUFFIX))
+                    {
+                        deleteTempFile(file);
+                        continue;
+                    }
+                    if (!isEntry(key))
+                        continue;
+
+                    JsonPrimitive lastAccess = metadata.get(key + LAST_ACCESS_SUFFIX);
+                    entries.add(new Entry(file, key, Files.size(file), lastAccess != null && lastAccess.isNumber() ? lastAccess.getAsLong() : Files.getLastModifiedTime(file).toMillis()));
+                }
+            }
+            catch (IOException e)
+            {
+                LOGGER.error("Failed to list cache folder '" + folder + "'", e);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long totalBytes = 0;
+        for (Entry entry : entries)
+            totalBytes += entry.size;
+
+        int evictedFiles = 0;
+        long evictedBytes = 0;
+        entries.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+        for (Entry entry : entries)
+        {
+            // Empty files were left behind as placeholders for failed downloads by older versions
+            if (entry.size > 0 && now - entry.lastAccess <= maxAgeMillis && totalBytes - evictedBytes <= maxBytes)
+                continue;
+
+            synchronized (retained)
+            {
+                if (retained.contains(entry.key))
+                    continue;
+
+                try
+                {
+                    Files.deleteIfExists(entry.file);
+                    metadata.removeWithPrefix(entry.key);
+                    evictedFiles++;
+                    evictedBytes += entry.size;
+                }
+                catch (IOException e)
+                {
+                    LOGGER.error("Failed to evict cached file '" + entry.file + "'", e);
+                }
+            }
+        }
+
+        Result result = new Result(entries.size() - evictedFiles, totalBytes - evictedBytes, evictedFiles, evictedBytes, System.nanoTime() - startTime);
+        LOGGER.info("Evicted " + evictedFiles + " cached files (" + evictedBytes + " bytes), " + result.getFiles() + " files (" + result.getBytes() + " bytes) remain. Took " + result.getNanos() / 1_000_000 + "ms");
+        return result;
+    }
+
+    private static void deleteTempFile(Path file)
+    {
+        try
+        {
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > TEMP_FILE_AGE)
+                Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Failed to delete temporary file '" + file + "'", e);
+        }
+    }
+
+    // Entries are named by the hex hash of their key, other files belong to other caches
+    private static boolean isEntry(String name)
+    {
+        if (name.length() != 32)
+            return false;
+        for (int i = 0; i < name.length(); i++)
+            if (Character.digit(name.charAt(i), 16) == -1)
+                return false;
+        return true;
+    }
+
+    private static class Entry
+    {
+        private final Path file;
+        private final String key;
+        private final long size;
+        private final long lastAccess;
+
+        private Entry(Path file, String key, long size, long lastAccess)
+        {
+            this.file = file;
+            this.key = key;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * <p>The outcome of a single sweep.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Result
+    {
+        private final int files;
+        private final long bytes;
+        private final int evictedFiles;
+        private final long evictedBytes;
+        private final long nanos;
+
+        private Result(int files, long bytes, int evictedFiles, long evictedBytes, long nanos)
+        {
+            this.files = files;
+            this.bytes = bytes;
+            this.evictedFiles = evictedFiles;
+            this.evictedBytes = evictedBytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The number of files left in the cache
+         */
+        public int getFiles()
+        {
+            return files;
+        }
+
+        /**
+         * @return The size of all files left in the cache
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return The number of files evicted
+         */
+        public int getEvictedFiles()
+        {
+            return evictedFiles;
+        }
+
+        /**
+         * @return The size of all files evicted
+         */
+        public long getEvictedBytes()
+        {
+            return evictedBytes;
+        }
+
+        /**
+         * @return The time the sweep took in nanoseconds
+         */
+        public long getNanos()
+        {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import com.google.gson.JsonPrimitive;
+import com.mojang.math.Vector3f;
+import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryCache;
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
+import io.github.ocelot.modelanima.core.common.util.MolangConstantPool;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
+import net.minecraft.Util;
+import net.minecraft.core.Direction;
+import net.minecraft.world.phys.Vec2;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Stores fully parsed geometry and animation files in a binary format keyed by the hash of the source file.</p>
+ *
+ * <p>Animations are only stored when every expression in the file is a constant, since compiled MoLang can not be written back out.</p>
+ *
+ * <p>Entries are never deleted when a source file changes, since another file with the same content may still use them. Entries that have not been used for a while are evicted on startup like the rest of the cache.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class CompiledDataCache
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Path FOLDER = GeometryCache.getCacheFolder().resolve("compiled");
+    private static final long ACCESS_RESOLUTION = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_BYTES = Long.getLong(ModelAnima.MOD_ID + ".compiledDataCache.maxBytes", 64L * 1024 * 1024);
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(Long.getLong(ModelAnima.MOD_ID + ".cache.maxAgeDays", 30L));
+    private static final CacheMetadataStore METADATA = new CacheMetadataStore(FOLDER.resolve("metadata.log"));
+    private static final int MAGIC = 0x4D41_4343; // MACC
+    private static final int VERSION = 2;
+    private static final byte GEOMETRY = 0;
+    private static final byte ANIMATION = 1;
+
+    static
+    {
+        Util.backgroundExecutor().execute(() -> CacheSweeper.sweep(FOLDER, METADATA, MAX_BYTES, MAX_AGE));
+    }
+
+    private CompiledDataCache()
+    {
+    }
+
+    // Files are named by the hash of the key so the sweeper recognizes them
+    private static String getName(String hash, byte type)
+    {
+        return DigestUtils.md5Hex(hash + (type == GEOMETRY ? ".geo" : ".anim"));
+    }
+
+    /**
+     * Reads the geometry stored for the specified source hash.
+     *
+     * @param hash The hash of the source file
+     * @return The models in the file or <code>null</code> if they are not cached
+     */
+    @Nullable
+    public static GeometryModelData[] getGeometry(String hash)
+    {
+        ByteBuffer buffer = read(hash, GEOMETRY);
+        if (buffer == null)
+            return null;
+
+        try
+        {
+            GeometryModelData[] models = new GeometryModelData[buffer.getInt()];
+            for (int i = 0; i < models.length; i++)
+                models[i] = readModel(buffer);
+            return models;
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Discarding corrupt compiled geometry '" + hash + "'", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes geometry for the specified source hash.
+     *
+     * @param hash   The hash of the source file
+     * @param models The models parsed from the file
+     */
+    public static void putGeometry(String hash, GeometryModelData[] models)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream os = new DataOutputStream(bytes);
+            os.writeInt(models.length);
+            for (GeometryModelData model : models)
+                writeModel(os, model);
+            write(hash, GEOMETRY, bytes.toByteArray());
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Failed to write compiled geometry '" + hash + "'", e);
+        }
+    }
+
+    /**
+     * Reads the animations stored for the specified source hash.
+     *
+     * @param hash The hash of the source file
+     * @return The animations in the file or <code>null</code> if they are not cached
+     */
+    @Nullable
+    public static AnimationData[] getAnimations(String hash)
+    {
+        ByteBuffer buffer = read(hash, ANIMATION);
+        if (buffer == null)
+            return null;
+
+        try
+        {
+            AnimationData[] animations = new AnimationData[buffer.getInt()];
+            for (int i = 0; i < animations.length; i++)
+                animations[i] = readAnimation(buffer);
+            return animations;
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Discarding corrupt compiled animation '" + hash + "'", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes animations for the specified source hash. Nothing is written if any of the animations use non-constant expressions.
+     *
+     * @param hash       The hash of the source file
+     * @param animations The animations parsed from the file
+     */
+    public static void putAnimations(String hash, AnimationData[] animations)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream os = new DataOutputStream(bytes);
+            os.writeInt(animations.length);
+            for (AnimationData animation : animations)
+                if (!writeAnimation(os, animation))
+                    return;
+            write(hash, ANIMATION, bytes.toByteArray());
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Failed to write compiled animation '" + hash + "'", e);
+        }
+    }
+
+    @Nullable
+    private static ByteBuffer read(String hash, byte type)
+    {
+        String name = getName(hash, type);
+        Path file = FOLDER.resolve(name);
+        if (!Files.exists(file))
+            return null;
+
+        try
+        {
+            // Read into the heap instead of mapping, since a live mapping stops the file from being replaced or deleted on Windows
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < 9 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.get() != type)
+                return null;
+            markAccessed(name);
+            return buffer;
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Failed to read compiled data '" + file + "'", e);
+            return null;
+        }
+    }
+
+    private static void write(String hash, byte type, byte[] data) throws IOException
+    {
+        String name = getName(hash, type);
+        Path file = FOLDER.resolve(name);
+        Files.createDirectories(FOLDER);
+
+        Path temp = Files.createTempFile(FOLDER, name, CacheSweeper.TEMP_SUFFIX);
+        try
+        {
+            ByteBuffer header = ByteBuffer.allocate(9);
+            header.putInt(MAGIC).putInt(VERSION).put(type).flip();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                while (header.hasRemaining())
+                    channel.write(header);
+                ByteBuffer body = ByteBuffer.wrap(data);
+                while (body.hasRemaining())
+                    channel.write(body);
+            }
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            markAccessed(name);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Only recorded once in a while so data read on every reload does not flood the metadata log
+    private static void markAccessed(String name)
+    {
+        long now = System.currentTimeMillis();
+        JsonPrimitive lastAccess = METADATA.get(name + CacheSweeper.LAST_ACCESS_SUFFIX);
+        if (lastAccess == null || !lastAccess.isNumber() || now - lastAccess.getAsLong() > ACCESS_RESOLUTION)
+            METADATA.put(name + CacheSweeper.LAST_ACCESS_SUFFIX, now);
+    }
+
+    private static GeometryModelData readModel(ByteBuffer buffer)
+    {
+        GeometryModelData.Description description = new GeometryModelData.Description(readString(buffer), buffer.getFloat(), buffer.getFloat(), readVector(buffer), buffer.getInt(), buffer.getInt(), readBoolean(buffer));
+        GeometryModelData.Bone[] bones = new GeometryModelData.Bone[buffer.getInt()];
+        for (int i = 0; i < bones.length; i++)
+        {
+            String name = readString(buffer);
+            boolean reset2588 = readBoolean(buffer);
+            boolean neverRender2588 = readBoolean(buffer);
+            String parent = readBoolean(buffer) ? readString(buffer) : null;
+            Vector3f pivot = readVector(buffer);
+            Vector3f rotation = readVector(buffer);
+            Vector3f bindPoseRotation2588 = readVector(buffer);
+            boolean mirror = readBoolean(buffer);
+            float inflate = buffer.getFloat();
+            boolean debug = readBoolean(buffer);
+
+            GeometryModelData.Cube[] cubes = new GeometryModelData.Cube[buffer.getInt()];
+            for (int j = 0; j < cubes.length; j++)
+            {
+                Vector3f origin = readVector(buffer);
+                Vector3f size = readVector(buffer);
+                Vector3f cubeRotation = readVector(buffer);
+                Vector3f cubePivot = readVector(buffer);
+                boolean overrideInflate = readBoolean(buffer);
+                float cubeInflate = buffer.getFloat();
+                boolean overrideMirror = readBoolean(buffer);
+                boolean cubeMirror = readBoolean(buffer);
+                GeometryModelData.CubeUV[] uvs = new GeometryModelData.CubeUV[Direction.values().length];
+                for (int k = 0; k < uvs.length; k++)
+                    if (readBoolean(buffer))
+                        uvs[k] = new GeometryModelData.CubeUV(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), readString(buffer));
+                cubes[j] = new GeometryModelData.Cube(origin, size, cubeRotation, cubePivot, overrideInflate, cubeInflate, overrideMirror, cubeMirror, uvs);
+            }
+
+            GeometryModelData.Locator[] locators = new GeometryModelData.Locator[buffer.getInt()];
+            for (int j = 0; j < locators.length; j++)
+                locators[j] = new GeometryModelData.Locator(readString(buffer), readVector(buffer));
+
+            GeometryModelData.PolyMesh polyMesh = null;
+            if (readBoolean(buffer))
+            {
+                boolean normalizedUvs = readBoolean(buffer);
+                Vector3f[] positions = new Vector3f[buffer.getInt()];
+                for (int j = 0; j < positions.length; j++)
+                    positions[j] = readVector(buffer);
+                Vector3f[] normals = new Vector3f[buffer.getInt()];
+                for (int j = 0; j < normals.length; j++)
+                    normals[j] = readVector(buffer);
+                Vec2[] uvs = new Vec2[buffer.getInt()];
+                for (int j = 0; j < uvs.length; j++)
+                    uvs[j] = new Vec2(buffer.getFloat(), buffer.getFloat());
+                GeometryModelData.PolyType polyType = GeometryModelData.PolyType.values()[buffer.get()];
+                GeometryModelData.Poly[] polys = new GeometryModelData.Poly[buffer.getInt()];
+                for (int j = 0; j < polys.length; j++)
+                    polys[j] = new GeometryModelData.Poly(readInts(buffer, polyType.getVertices()), readInts(buffer, polyType.getVertices()), readInts(buffer, polyType.getVertices()));
+                polyMesh = new GeometryModelData.PolyMesh(normalizedUvs, positions, normals, uvs, polys, polyType);
+            }
+
+            bones[i] = new GeometryModelData.Bone(name, reset2588, neverRender2588, parent, pivot, rotation, bindPoseRotation2588, mirror, inflate, debug, cubes, locators, polyMesh);
+        }
+        return new GeometryModelData(description, bones);
+    }
+
+    private static void writeModel(DataOutputStream os, GeometryModelData model) throws IOException
+    {
+        GeometryModelData.Description description = model.getDescription();
+        writeString(os, description.getIdentifier());
+        os.writeFloat(description.getVisibleBoundsWidth());
+        os.writeFloat(description.getVisibleBoundsHeight());
+        writeVector(os, description.getVisibleBoundsOffset());
+        os.writeInt(description.getTextureWidth());
+        os.writeInt(description.getTextureHeight());
+        os.writeBoolean(description.isPreserveModelPose2588());
+
+        os.writeInt(model.getBones().length);
+        for (GeometryModelData.Bone bone : model.getBones())
+        {
+            writeString(os, bone.getName());
+            os.writeBoolean(bone.isReset2588());
+            os.writeBoolean(bone.isNeverRender2588());
+            os.writeBoolean(bone.getParent() != null);
+            if (bone.getParent() != null)
+                writeString(os, bone.getParent());
+            writeVector(os, bone.getPivot());
+            writeVector(os, bone.getRotation());
+            writeVector(os, bone.getBindPoseRotation2588());
+            os.writeBoolean(bone.isMirror());
+            os.writeFloat(bone.getInflate());
+            os.writeBoolean(bone.isDebug());
+
+            os.writeInt(bone.getCubes().length);
+            for (GeometryModelData.Cube cube : bone.getCubes())
+            {
+                writeVector(os, cube.getOrigin());
+                writeVector(os, cube.getSize());
+                writeVector(os, cube.getRotation());
+                writeVector(os, cube.getPivotX());
+                os.writeBoolean(cube.isOverrideInflate());
+                os.writeFloat(cube.getInflate());
+                os.writeBoolean(cube.isOverrideMirror());
+                os.writeBoolean(cube.isMirror());
+                for (GeometryModelData.CubeUV uv : cube.getUVs())
+                {
+                    os.writeBoolean(uv != null);
+                    if (uv == null)
+                        continue;
+                    os.writeFloat(uv.getU());
+                    os.writeFloat(uv.getV());
+                    os.writeFloat(uv.getUSize());
+                    os.writeFloat(uv.getVSize());
+                    writeString(os, uv.getMaterialInstance());
+                }
+            }
+
+            os.writeInt(bone.getLocators().length);
+            for (GeometryModelData.Locator locator : bone.getLocators())
+            {
+                writeString(os, locator.getIdentifier());
+                writeVector(os, locator.getPosition());
+            }
+
+            GeometryModelData.PolyMesh polyMesh = bone.getPolyMesh();
+            os.writeBoolean(polyMesh != null);
+            if (polyMesh != null)
+            {
+                os.writeBoolean(polyMesh.isNormalizedUvs());
+                os.writeInt(polyMesh.getPositions().length);
+                for (Vector3f position : polyMesh.getPositions())
+                    writeVector(os, position);
+                os.writeInt(polyMesh.getNormals().length);
+                for (Vector3f normal : polyMesh.getNormals())
+                    writeVector(os, normal);
+                os.writeInt(polyMesh.getUvs().length);
+                for (Vec2 uv : polyMesh.getUvs())
+                {
+                    os.writeFloat(uv.x);
+                    os.writeFloat(uv.y);
+                }
+                os.writeByte(polyMesh.getPolyType().ordinal());
+                os.writeInt(polyMesh.getPolys().length);
+                for (GeometryModelData.Poly poly : polyMesh.getPolys())
+                {
+                    writeInts(os, poly.getPositions());
+                    writeInts(os, poly.getNormals());
+                    writeInts(os, poly.getUVs());
+                }
+            }
+        }
+    }
+
+    private static AnimationData readAnimation(ByteBuffer buffer)
+    {
+        String name = readString(buffer);
+        AnimationData.Loop loop = AnimationData.Loop.values()[buffer.get()];
+        float blendWeight = buffer.getFloat();
+        float animationLength = buffer.getFloat();
+        boolean overridePreviousAnimation = readBoolean(buffer);
+
+        AnimationData.BoneAnimation[] bones = new AnimationData.BoneAnimation[buffer.getInt()];
+        for (int i = 0; i < bones.length; i++)
+            bones[i] = new AnimationData.BoneAnimation(readString(buffer), readFrames(buffer), readFrames(buffer), readFrames(buffer));
+
+        AnimationData.SoundEffect[] soundEffects = new AnimationData.SoundEffect[buffer.getInt()];
+        for (int i = 0; i < soundEffects.length; i++)
+            soundEffects[i] = new AnimationData.SoundEffect(buffer.getFloat(), readString(buffer), MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()), readBoolean(buffer));
+
+        AnimationData.ParticleEffect[] particleEffects = new AnimationData.ParticleEffect[buffer.getInt()];
+        for (int i = 0; i < particleEffects.length; i++)
+            particleEffects[i] = new AnimationData.ParticleEffect(buffer.getFloat(), readString(buffer), readString(buffer));
+
+        AnimationData.TimelineEffect[] timelineEffects = new AnimationData.TimelineEffect[buffer.getInt()];
+        for (int i = 0; i < timelineEffects.length; i++)
+            timelineEffects[i] = new AnimationData.TimelineEffect(buffer.getFloat(), readString(buffer));
+
+        return new AnimationData(name, loop, blendWeight, animationLength, overridePreviousAnimation, bones, soundEffects, particleEffects, timelineEffects);
+    }
+
+    private static AnimationData.KeyFrame[] readFrames(ByteBuffer buffer)
+    {
+        AnimationData.KeyFrame[] frames = new AnimationData.KeyFrame[buffer.getInt()];
+        for (int i = 0; i < frames.length; i++)
+        {
+            float time = buffer.getFloat();
+            AnimationData.LerpMode lerpMode = AnimationData.LerpMode.values()[buffer.get()];
+            frames[i] = new AnimationData.KeyFrame(time, lerpMode, MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()), MolangConstantPool.of(buffer.getFloat()));
+        }
+        return frames;
+    }
+
+    private static boolean writeAnimation(DataOutputStream os, AnimationData animation) throws IOException
+    {
+        writeString(os, animation.getName());
+        os.writeByte(animation.getLoop().ordinal());
+        os.writeFloat(animation.getBlendWeight());
+        os.writeFloat(animation.getAnimationLength());
+        os.writeBoolean(animation.isOverridePreviousAnimation());
+
+        os.writeInt(animation.getBoneAnimations().length);
+        for (AnimationData.BoneAnimation bone : animation.getBoneAnimations())
+        {
+            writeString(os, bone.getName());
+            if (!writeFrames(os, bone.getPositionFrames()) || !writeFrames(os, bone.getRotationFrames()) || !writeFrames(os, bone.getScaleFrames()))
+                return false;
+        }
+
+        os.writeInt(animation.getSoundEffects().length);
+        for (AnimationData.SoundEffect soundEffect : animation.getSoundEffects())
+        {
+            os.writeFloat(soundEffect.getTime());
+            writeString(os, soundEffect.getEffect());
+            if (!writeConstant(os, soundEffect.getPitch()) || !writeConstant(os, soundEffect.getVolume()))
+                return false;
+            os.writeBoolean(soundEffect.isLoop());
+        }
+
+        os.writeInt(animation.getParticleEffects().length);
+        for (AnimationData.ParticleEffect particleEffect : animation.getParticleEffects())
+        {
+            os.writeFloat(particleEffect.getTime());
+            writeString(os, particleEffect.getEffect());
+            writeString(os, particleEffect.getLocator());
+        }
+
+        os.writeInt(animation.getTimelineEffects().length);
+        for (AnimationData.TimelineEffect timelineEffect : animation.getTimelineEffects())
+        {
+            os.writeFloat(timelineEffect.getTime());
+            writeString(os, timelineEffect.getData());
+        }
+        return true;
+    }
+
+    private static boolean writeFrames(DataOutputStream os, AnimationData.KeyFrame[] frames) throws IOException
+    {
+        os.writeInt(frames.length);
+        for (AnimationData.KeyFrame frame : frames)
+        {
+            os.writeFloat(frame.getTime());
+            os.writeByte(frame.getLerpMode().ordinal());
+            if (!writeConstant(os, frame.getTransformPreX()) || !writeConstant(os, frame.getTransformPreY()) || !writeConstant(os, frame.getTransformPreZ()) ||
+                    !writeConstant(os, frame.getTransformPostX()) || !writeConstant(os, frame.getTransformPostY()) || !writeConstant(os, frame.getTransformPostZ()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean writeConstant(DataOutputStream os, MolangExpression expression) throws IOException
+    {
+        Float value = MolangConstantPool.getValue(expression);
+        if (value == null)
+            return false;
+        os.writeFloat(value);
+        return true;
+    }
+
+    private static boolean readBoolean(ByteBuffer buffer)
+    {
+        return buffer.get() != 0;
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream os, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        os.writeInt(bytes.length);
+        os.write(bytes);
+    }
+
+    private static Vector3f readVector(ByteBuffer buffer)
+    {
+        return new Vector3f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    }
+
+    private static void writeVector(DataOutputStream os, Vector3f vector) throws IOException
+    {
+        os.writeFloat(vector.x());
+        os.writeFloat(vector.y());
+        os.writeFloat(vector.z());
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length)
+    {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++)
+            values[i] = buffer.getInt();
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream os, int[] values) throws IOException
+    {
+        for (int value : values)
+            os.writeInt(value);
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import com.google.gson.JsonPrimitive;
+import com.mojang.blaze3d.platform.NativeImage;
+import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryCache;
+import net.minecraft.Util;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Stores decoded geometry textures keyed by the hash of the source image, so later launches do not have to run the real inflate and row filters of the original PNG.</p>
+ *
+ * <p>The stitcher only reads images from PNG streams, so the pixels are written with {@link UncompressedPngWriter}. Reading one back still goes through the PNG decoder, but its deflate blocks are stored and every row uses the None filter, so inflating and unfiltering are both plain copies.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class DecodedTextureCache
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Path FOLDER = GeometryCache.getCacheFolder().resolve("decoded");
+    private static final long ACCESS_RESOLUTION = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_BYTES = Long.getLong(ModelAnima.MOD_ID + ".decodedTextureCache.maxBytes", 512L * 1024 * 1024);
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(Long.getLong(ModelAnima.MOD_ID + ".cache.maxAgeDays", 30L));
+    private static final CacheMetadataStore METADATA = new CacheMetadataStore(FOLDER.resolve("metadata.log"));
+
+    static
+    {
+        Util.backgroundExecutor().execute(() -> CacheSweeper.sweep(FOLDER, METADATA, MAX_BYTES, MAX_AGE));
+    }
+
+    private DecodedTextureCache()
+    {
+    }
+
+    // Files are named by the hash of the key so the sweeper recognizes them no matter how the key was made
+    private static String getName(String hash)
+    {
+        return DigestUtils.md5Hex(hash);
+    }
+
+    /**
+     * Fetches the decoded texture stored for the specified source hash.
+     *
+     * @param hash The hash of the source image
+     * @return The uncompressed PNG or <code>null</code> if the texture is not cached
+     */
+    @Nullable
+    public static Path get(String hash)
+    {
+        String name = getName(hash);
+        Path file = FOLDER.resolve(name);
+        if (!Files.isRegularFile(file))
+            return null;
+
+        markAccessed(name);
+        return file;
+    }
+
+    /**
+     * Decodes the specified image and stores it for the specified source hash.
+     *
+     * @param hash   The hash of the source image
+     * @param stream The stream of the source image
+     */
+    public static void put(String hash, InputStream stream)
+    {
+        String name = getName(hash);
+        Path file = FOLDER.resolve(name);
+        if (Files.exists(file))
+            return;
+
+        try (NativeImage image = NativeImage.read(NativeImage.Format.RGBA, stream))
+        {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            // The pixels are copied out in one go and laid back out in memory order, which is already RGBA
+            byte[] rgba = new byte[width * height * 4];
+            ByteBuffer.wrap(rgba).order(ByteOrder.nativeOrder()).asIntBuffer().put(image.getPixelsRGBA());
+            write(file, name, width, height, rgba);
+            markAccessed(name);
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Failed to write decoded texture '" + hash + "'", e);
+        }
+    }
+
+    private static void write(Path file, String name, int width, int height, byte[] rgba) throws IOException
+    {
+        Files.createDirectories(FOLDER);
+        Path temp = Files.createTempFile(FOLDER, name, CacheSweeper.TEMP_SUFFIX);
+        try
+        {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp)))
+            {
+                UncompressedPngWriter.write(os, width, height, rgba);
+            }
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Only recorded once in a while so frequently used textures do not flood the metadata log
+    private static void markAccessed(String name)
+    {
+        long now = System.currentTimeMillis();
+        JsonPrimitive lastAccess = METADATA.get(name + CacheSweeper.LAST_ACCESS_SUFFIX);
+        if (lastAccess == null || !lastAccess.isNumber() || now - lastAccess.getAsLong() > ACCESS_RESOLUTION)
+            METADATA.put(name + CacheSweeper.LAST_ACCESS_SUFFIX, now);
+    }
+}
@@ -43,7 +43,7 @@ public class HashedTextureCache implements FileCache
             }
             catch (Exception e)
             {
-                LOGGER.error("Failed to load hash table from '" + it + "'");
+                LOGGER.error("Failed to load hash table from '" + it + "': " + e.getMessage());
             }
         }, executor)).toArray(CompletableFuture[]::new)).handleAsync((__, t) ->
         {
@@ -63,7 +63,7 @@ public class HashedTextureCache implements FileCache
     @Override
     public CompletableFuture<Path> requestResource(String url, boolean ignoreMissing)
     {
-        return this.hashes.thenApplyAsync(hashes ->
+        return this.hashes.thenCompose(hashes -> OnlineFetcher.get().request(this, url, () ->
         {
             try
             {
@@ -78,7 +78,7 @@ public class HashedTextureCache implements FileCache
                         catch (IOException e)
                         {
                             if (!ignoreMissing)
-                                LOGGER.error("Failed to read data from '" + url + "'");
+                                LOGGER.error("Failed to read data from '" + url + "': " + e.getMessage());
                             return null;
                         }
                     });
@@ -94,6 +94,6 @@ public class HashedTextureCache implements FileCache
                     LOGGER.error("Failed to fetch resource from '" + url + "'", e);
                 return null;
             }
-        }, this.executor);
+        }, this.executor));
     }
 }
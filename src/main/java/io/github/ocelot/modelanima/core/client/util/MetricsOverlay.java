@@ -0,0 +1,50 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import io.github.ocelot.modelanima.api.client.metrics.FrameMetrics;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.List;
+
+/**
+ * <p>Completes {@link FrameMetrics} frames and shows the last frame on the debug screen while metrics are enabled.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class MetricsOverlay
+{
+    private MetricsOverlay()
+    {
+    }
+
+    public static void init()
+    {
+        MinecraftForge.EVENT_BUS.addListener(MetricsOverlay::renderTick);
+        MinecraftForge.EVENT_BUS.addListener(MetricsOverlay::renderDebugText);
+    }
+
+    private static void renderTick(TickEvent.RenderTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END)
+            FrameMetrics.endFrame();
+    }
+
+    private static void renderDebugText(RenderGameOverlayEvent.Text event)
+    {
+        if (!FrameMetrics.isEnabled() || !Minecraft.getInstance().options.renderDebug)
+            return;
+
+        FrameMetrics.Frame frame = FrameMetrics.getLastFrame();
+        List<String> lines = event.getLeft();
+        lines.add("");
+        lines.add("[ModelAnima]");
+        for (FrameMetrics.Counter counter : FrameMetrics.Counter.values())
+            lines.add(counter.getDisplayName() + ": " + frame.get(counter));
+        for (FrameMetrics.Timer timer : FrameMetrics.Timer.values())
+            lines.add(String.format("%s: %.3f ms", timer.getDisplayName(), frame.getNanos(timer) / 1_000_000.0));
+    }
+}
@@ -0,0 +1,349 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.api.client.FileCache;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.conn.EofSensorWatcher;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * <p>Downloads online resources through a single pooled HTTP client so connections to the same host are kept alive and reused.</p>
+ * <p>Requests for a URL that the same cache is already fetching join the existing request instead of downloading it again.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class OnlineFetcher implements AutoCloseable
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static OnlineFetcher instance;
+
+    private final ExecutorService executor;
+    private final CloseableHttpClient client;
+    private final int timeout;
+    private final int connectionRequestTimeout;
+    private final Map<RequestKey, CompletableFuture<Path>> requests;
+
+    public OnlineFetcher(int threads, int maxConnectionsPerHost, int timeout, int connectionRequestTimeout)
+    {
+        AtomicInteger idGenerator = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "Worker-Geometry Online Fetcher-" + idGenerator.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> LOGGER.error("Caught exception in thread " + t, e));
+            return thread;
+        });
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(threads, maxConnectionsPerHost));
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        // Requests queued behind the per host limit get much longer than the connection itself, but a stream that is never closed can't hold up every worker forever
+        this.client = HttpClients.custom()
+                .setUserAgent(FileCache.USER_AGENT)
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(timeout).setSocketTimeout(timeout).setConnectionRequestTimeout(connectionRequestTimeout).build())
+                .build();
+        this.timeout = timeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.requests = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return The fetcher shared by all online textures
+     */
+    public static synchronized OnlineFetcher get()
+    {
+        if (instance == null)
+        {
+            int threads = Integer.getInteger(ModelAnima.MOD_ID + ".online.threads", Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 7)));
+            int maxConnectionsPerHost = Integer.getInteger(ModelAnima.MOD_ID + ".online.maxConnectionsPerHost", 4);
+            int timeout = Integer.getInteger(ModelAnima.MOD_ID + ".online.timeout", 10000);
+            int connectionRequestTimeout = Integer.getInteger(ModelAnima.MOD_ID + ".online.connectionRequestTimeout", 60000);
+            instance = new OnlineFetcher(Math.max(1, threads), Math.max(1, maxConnectionsPerHost), Math.max(0, timeout), Math.max(0, connectionRequestTimeout));
+        }
+        return instance;
+    }
+
+    /**
+     * @return The executor online requests should be run on. The amount of threads bounds how many downloads run at once
+     */
+    public Executor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Runs the specified task to fetch a URL, unless the specified cache is already fetching the URL. Caches have their own rules for when a file is fresh, so requests from different caches are never joined.
+     *
+     * @param cache    The cache requesting the URL
+     * @param url      The url being fetched
+     * @param task     The task that downloads the URL
+     * @param executor The executor to run the task on
+     * @return A future for the result of the request already in flight or the new request
+     */
+    public CompletableFuture<Path> request(FileCache cache, String url, Supplier<Path> task, Executor executor)
+    {
+        RequestKey key = new RequestKey(cache, url);
+        CompletableFuture<Path> existing = this.requests.get(key);
+        if (existing != null)
+            return existing;
+
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        existing = this.requests.putIfAbsent(key, future);
+        if (existing != null)
+            return existing;
+
+        try
+        {
+            CompletableFuture.supplyAsync(task, executor).whenComplete((path, t) ->
+            {
+                // Removed before completing so anything requested afterwards checks the cache again
+                this.requests.remove(key, future);
+                if (t != null)
+                {
+                    future.completeExceptionally(t);
+                }
+                else
+                {
+                    future.complete(path);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.requests.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Opens a GET stream to the specified URL. The connection is returned to the pool when the stream is closed.
+     *
+     * @param url The url to open a stream to
+     * @return The opened stream to the resource
+     * @throws IOException If the request fails, times out or does not respond with <code>200 OK</code>
+     */
+    public InputStream open(String url) throws IOException
+    {
+        InputStream stream = this.open(url, null, null).getStream();
+        if (stream == null)
+            throw new IOException("Unexpected 304 Not Modified from '" + url + "'");
+        return stream;
+    }
+
+    /**
+     * Opens a conditional GET stream to the specified URL. If the resource has not changed since the specified validators were recorded, no data is transferred.
+     *
+     * @param url          The url to open a stream to
+     * @param eTag         The <code>ETag</code> of the copy already downloaded or <code>null</code> to not send one
+     * @param lastModified The <code>Last-Modified</code> date of the copy already downloaded or <code>null</code> to not send one
+     * @return The response to the request
+     * @throws IOException If the request fails, times out or does not respond with <code>200 OK</code> or <code>304 Not Modified</code>
+     */
+    public Response open(String url, @Nullable String eTag, @Nullable String lastModified) throws IOException
+    {
+        HttpGet get = new HttpGet(url);
+        if (eTag != null)
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        if (lastModified != null)
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        CloseableHttpResponse response;
+        try
+        {
+            response = this.client.execute(get);
+        }
+        catch (ConnectionPoolTimeoutException e)
+        {
+            LOGGER.warn("Timed out after " + this.connectionRequestTimeout + "ms waiting for a free connection to '" + url + "'");
+            throw new IOException("Timed out waiting for a free connection to '" + url + "'", e);
+        }
+        catch (ConnectTimeoutException e)
+        {
+            LOGGER.warn("Timed out after " + this.timeout + "ms connecting to '" + url + "'");
+            throw new IOException("Timed out connecting to '" + url + "'", e);
+        }
+        catch (SocketTimeoutException e)
+        {
+            LOGGER.warn("Timed out after " + this.timeout + "ms waiting for a response from '" + url + "'");
+            throw new IOException("Timed out waiting for a response from '" + url + "'", e);
+        }
+
+        StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() == 304 && (eTag != null || lastModified != null))
+        {
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+            // Servers may leave out validators that have not changed
+            return new Response(null, getHeader(response, HttpHeaders.ETAG, eTag), getHeader(response, HttpHeaders.LAST_MODIFIED, lastModified));
+        }
+        if (statusLine.getStatusCode() != 200)
+        {
+            // Consume the body so the connection can be reused
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+            throw new IOException("Failed to connect to '" + url + "'. " + statusLine.getStatusCode() + " " + statusLine.getReasonPhrase());
+        }
+        return new Response(new EofSensorInputStream(response.getEntity().getContent(), new EofSensorWatcher()
+        {
+            @Override
+            public boolean eofDetected(InputStream wrapped)
+            {
+                return true;
+            }
+
+            @Override
+            public boolean streamClosed(InputStream wrapped) throws IOException
+            {
+                response.close();
+                return true;
+            }
+
+            @Override
+            public boolean streamAbort(InputStream wrapped) throws IOException
+            {
+                response.close();
+                return true;
+            }
+        }), getHeader(response, HttpHeaders.ETAG, null), getHeader(response, HttpHeaders.LAST_MODIFIED, null));
+    }
+
+    @Nullable
+    private static String getHeader(HttpResponse response, String name, @Nullable String defaultValue)
+    {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : defaultValue;
+    }
+
+    @Override
+    public void close()
+    {
+        this.executor.shutdown();
+        try
+        {
+            if (!this.executor.awaitTermination(10, TimeUnit.SECONDS))
+                LOGGER.warn("Took more than 10 seconds to terminate online worker");
+            this.client.close();
+        }
+        catch (Exception e)
+        {
+            LOGGER.error("Failed to terminate online worker", e);
+        }
+    }
+
+    private static class RequestKey
+    {
+        private final FileCache cache;
+        private final String url;
+
+        private RequestKey(FileCache cache, String url)
+        {
+            this.cache = cache;
+            this.url = url;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RequestKey that = (RequestKey) o;
+            return this.cache == that.cache && this.url.equals(that.url);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(this.cache) + this.url.hashCode();
+        }
+    }
+
+    /**
+     * <p>The result of a conditional request.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Response implements Closeable
+    {
+        private final InputStream stream;
+        private final String eTag;
+        private final String lastModified;
+
+        public Response(@Nullable InputStream stream, @Nullable String eTag, @Nullable String lastModified)
+        {
+            this.stream = stream;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return The stream to the new data or <code>null</code> if the resource was not modified
+         */
+        @Nullable
+        public InputStream getStream()
+        {
+            return stream;
+        }
+
+        /**
+         * @return Whether the copy already downloaded is still up to date
+         */
+        public boolean isNotModified()
+        {
+            return this.stream == null;
+        }
+
+        /**
+         * @return The <code>ETag</code> of the resource or <code>null</code> if the server did not send one
+         */
+        @Nullable
+        public String getETag()
+        {
+            return eTag;
+        }
+
+        /**
+         * @return The <code>Last-Modified</code> date of the resource or <code>null</code> if the server did not send one
+         */
+        @Nullable
+        public String getLastModified()
+        {
+            return lastModified;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (this.stream != null)
+                this.stream.close();
+        }
+    }
+}
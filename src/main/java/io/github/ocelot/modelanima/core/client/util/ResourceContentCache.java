@@ -0,0 +1,87 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Remembers what each resource was parsed into last reload so unchanged files can be skipped.</p>
+ *
+ * @param <T> The type of data parsed from each resource
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class ResourceContentCache<T>
+{
+    private final Map<ResourceLocation, Entry<T>> entries;
+
+    public ResourceContentCache()
+    {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Fetches the value parsed from the specified resource if the content has not changed.
+     *
+     * @param location The location of the resource
+     * @param hash     The hash of the current resource content
+     * @return The previously parsed value or <code>null</code> if the resource is new or changed
+     */
+    @Nullable
+    public T get(ResourceLocation location, String hash)
+    {
+        Entry<T> entry = this.entries.get(location);
+        return entry != null && entry.hash.equals(hash) ? entry.value : null;
+    }
+
+    /**
+     * Records the value parsed from the specified resource.
+     *
+     * @param location The location of the resource
+     * @param hash     The hash of the resource content
+     * @param value    The value parsed
+     */
+    public void put(ResourceLocation location, String hash, T value)
+    {
+        this.entries.put(location, new Entry<>(hash, value));
+    }
+
+    /**
+     * Forgets the specified resource.
+     *
+     * @param location The location of the resource
+     */
+    public void remove(ResourceLocation location)
+    {
+        this.entries.remove(location);
+    }
+
+    /**
+     * Forgets all resources not in the specified collection.
+     *
+     * @param locations The resources that still exist
+     */
+    public void retain(Collection<ResourceLocation> locations)
+    {
+        Set<ResourceLocation> keep = new HashSet<>(locations);
+        this.entries.keySet().removeIf(location -> !keep.contains(location));
+    }
+
+    private static class Entry<T>
+    {
+        private final String hash;
+        private final T value;
+
+        private Entry(String hash, T value)
+        {
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import io.github.ocelot.modelanima.ModelAnima;
+import io.github.ocelot.modelanima.api.client.animation.AnimationManager;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModelManager;
+import io.github.ocelot.modelanima.api.client.texture.GeometryTextureManager;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.Unit;
+import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
+import net.minecraftforge.fml.loading.moddiscovery.ModFileInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>Watches unpacked resource packs and mod folders for changes and reloads the affected managers in the background.</p>
+ * <p>Only enabled when the <code>modelanima.watchResources</code> system property is set to <code>true</code>.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class ResourceWatcher implements Runnable
+{
+    public static final String PROPERTY = ModelAnima.MOD_ID + ".watchResources";
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long DEBOUNCE_TIME = 500;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys;
+
+    private ResourceWatcher(WatchService watchService)
+    {
+        this.watchService = watchService;
+        this.keys = new HashMap<>();
+    }
+
+    public static void init(IEventBus bus)
+    {
+        if (!Boolean.getBoolean(PROPERTY))
+            return;
+        bus.addListener(FMLClientSetupEvent.class, event -> start());
+    }
+
+    private static void start()
+    {
+        Set<Path> roots = new HashSet<>();
+
+        File[] packs = Minecraft.getInstance().getResourcePackDirectory().listFiles(File::isDirectory);
+        if (packs != null)
+            for (File pack : packs)
+                roots.add(pack.toPath().resolve("assets"));
+
+        // Mods run from an IDE are loaded from their output folders instead of jars
+        for (ModFileInfo modFile : ModList.get().getModFiles())
+        {
+            Path path = modFile.getFile().getFilePath();
+            if (Files.isDirectory(path))
+                roots.add(path.resolve("assets"));
+        }
+
+        try
+        {
+            ResourceWatcher watcher = new ResourceWatcher(FileSystems.getDefault().newWatchService());
+            for (Path root : roots)
+                if (Files.isDirectory(root))
+                    watcher.registerAll(root);
+
+            Thread thread = new Thread(watcher, "ModelAnima Resource Watcher");
+            thread.setDaemon(true);
+            thread.start();
+            LOGGER.info("Watching " + watcher.keys.size() + " resource directories for changes");
+        }
+        catch (Exception e)
+        {
+            LOGGER.error("Failed to start resource watcher", e);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException
+    {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                keys.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                Set<Target> targets = EnumSet.noneOf(Target.class);
+
+                // Editors usually write files in several steps, so keep collecting until things settle
+                WatchKey key = this.watchService.take();
+                while (key != null)
+                {
+                    this.processEvents(key, targets);
+                    key = this.watchService.poll(DEBOUNCE_TIME, TimeUnit.MILLISECONDS);
+                }
+
+                if (!targets.isEmpty())
+                    Minecraft.getInstance().execute(() -> targets.forEach(Target::reload));
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException ignored)
+        {
+        }
+    }
+
+    private void processEvents(WatchKey key, Set<Target> targets)
+    {
+        Path dir = this.keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (dir == null || event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                targets.addAll(EnumSet.allOf(Target.class));
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path))
+            {
+                try
+                {
+                    this.registerAll(path);
+                }
+                catch (IOException e)
+                {
+                    LOGGER.error("Failed to watch '" + path + "'", e);
+                }
+            }
+
+            Target target = Target.get(path);
+            if (target != null)
+                targets.add(target);
+        }
+
+        if (!key.reset())
+            this.keys.remove(key);
+    }
+
+    private enum Target
+    {
+        GEOMETRY("models/geometry/", GeometryModelManager::isReloading, () -> GeometryModelManager.reload(false)),
+        ANIMATION("animations/", AnimationManager::isReloading, () -> AnimationManager.reload(false)),
+        TEXTURE("textures/", GeometryTextureManager::isReloading, () -> GeometryTextureManager.reload(false));
+
+        private final String folder;
+        private final Supplier<Boolean> reloading;
+        private final Supplier<CompletableFuture<Unit>> reloader;
+
+        Target(String folder, Supplier<Boolean> reloading, Supplier<CompletableFuture<Unit>> reloader)
+        {
+            this.folder = folder;
+            this.reloading = reloading;
+            this.reloader = reloader;
+        }
+
+        private void reload()
+        {
+            LOGGER.info("Detected changes in " + this.folder + ", reloading");
+            // A reload already in progress may have read the old files, so run again once it finishes
+            if (this.reloading.get())
+                this.reloader.get().thenRunAsync(this.reloader::get, Minecraft.getInstance());
+            else
+                this.reloader.get();
+        }
+
+        // Paths are in the form assets/<namespace>/<folder>/...
+        @Nullable
+        private static Target get(Path path)
+        {
+            String file = path.toString().replace(File.separatorChar, '/');
+            int assets = file.lastIndexOf("/assets/");
+            if (assets == -1)
+                return null;
+            int namespaceEnd = file.indexOf('/', assets + 8);
+            if (namespaceEnd == -1)
+                return null;
+
+            String relative = file.substring(namespaceEnd + 1);
+            for (Target target : values())
+                if (relative.startsWith(target.folder) || (relative + "/").equals(target.folder))
+                    return target;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.ocelot.modelanima.core.client.util;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import io.github.ocelot.modelanima.api.client.ResourceHandle;
+import net.minecraft.resources.ResourceLocation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Holds an immutable snapshot of loaded values that is swapped out all at once on reload, so it can be read from any thread without locking.</p>
+ *
+ * @param <T> The type of value stored
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class SnapshotRegistry<T>
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_MISSES = 1024;
+
+    private final String name;
+    private final T empty;
+    private final Set<ResourceLocation> misses;
+    private final AtomicBoolean missesSuppressed;
+    private final Map<ResourceLocation, Handle<T>> handles;
+    private volatile Map<ResourceLocation, T> snapshot;
+
+    public SnapshotRegistry(String name, T empty)
+    {
+        this.name = name;
+        this.empty = empty;
+        this.misses = ConcurrentHashMap.newKeySet();
+        this.missesSuppressed = new AtomicBoolean();
+        this.handles = CacheBuilder.newBuilder().weakValues().<ResourceLocation, Handle<T>>build().asMap();
+        this.snapshot = ImmutableMap.of();
+    }
+
+    /**
+     * Fetches the value with the specified name, warning the first time an unknown name is requested.
+     *
+     * @param location The name of the value
+     * @return The value found or the empty value if there was no value
+     */
+    public T get(ResourceLocation location)
+    {
+        return this.get(this.snapshot, location);
+    }
+
+    private T get(Map<ResourceLocation, T> snapshot, ResourceLocation location)
+    {
+        T value = snapshot.get(location);
+        if (value != null)
+            return value;
+
+        // Only remember a limited number of misses so bad lookups can't grow the set forever
+        if (this.misses.size() < MAX_MISSES)
+        {
+            if (this.misses.add(location))
+                LOGGER.warn("Unknown " + this.name + " with key '" + location + "'");
+        }
+        else if (!this.misses.contains(location) && this.missesSuppressed.compareAndSet(false, true))
+        {
+            LOGGER.warn("Logged " + MAX_MISSES + " unknown " + this.name + " keys, further misses will not be logged until the next reload");
+        }
+        return this.empty;
+    }
+
+    /**
+     * Fetches a handle to the value with the specified name. The same handle is returned for every call with the same name as long as it is still referenced.
+     *
+     * @param location The name of the value
+     * @return A handle that resolves to the current value
+     */
+    public ResourceHandle<T> handle(ResourceLocation location)
+    {
+        // Check first to avoid allocating the lambda when the handle already exists
+        ResourceHandle<T> handle = this.handles.get(location);
+        return handle != null ? handle : this.handles.computeIfAbsent(location, key -> new Handle<>(this, key));
+    }
+
+    /**
+     * Replaces all values with the specified values.
+     *
+     * @param values The new values
+     * @return The number of values that are new, removed or a different instance than before
+     */
+    public int replace(Map<ResourceLocation, T> values)
+    {
+        Map<ResourceLocation, T> old = this.snapshot;
+        int changed = 0;
+        for (Map.Entry<ResourceLocation, T> entry : values.entrySet())
+            if (old.get(entry.getKey()) != entry.getValue())
+                changed++;
+        for (ResourceLocation location : old.keySet())
+            if (!values.containsKey(location))
+                changed++;
+
+        this.snapshot = ImmutableMap.copyOf(values);
+        this.misses.clear();
+        this.missesSuppressed.set(false);
+        return changed;
+    }
+
+    /**
+     * @return All values currently loaded
+     */
+    public Collection<T> values()
+    {
+        return this.snapshot.values();
+    }
+
+    private static class Handle<T> implements ResourceHandle<T>
+    {
+        private final SnapshotRegistry<T> registry;
+        private final ResourceLocation location;
+        private volatile Binding<T> binding;
+
+        private Handle(SnapshotRegistry<T> registry, ResourceLocation location)
+        {
+            this.registry = registry;
+            this.location = location;
+            this.binding = new Binding<>(null, registry.empty);
+        }
+
+        @Override
+        public ResourceLocation getLocation()
+        {
+            return location;
+        }
+
+        @Override
+        public T get()
+        {
+            // The snapshot instance changes on every reload, so it doubles as the generation to check against
+            Map<ResourceLocation, T> snapshot = this.registry.snapshot;
+            Binding<T> binding = this.binding;
+            if (binding.snapshot != snapshot)
+            {
+                binding = new Binding<>(snapshot, this.registry.get(snapshot, this.location));
+                this.binding = binding;
+            }
+            return binding.value;
+        }
+
+        @Override
+        public boolean isPresent()
+        {
+            return this.get() != this.registry.empty;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ResourceHandle{" + this.location + "}";
+        }
+    }
+
+    private static class Binding<T>
+    {
+        private final Map<ResourceLocation, T> snapshot;
+        private final T value;
+
+        private Binding(Map<ResourceLocation, T> snapshot, T value)
+        {
+            this.snapshot = snapshot;
+            this.value = value;
+        }
+    }
+}
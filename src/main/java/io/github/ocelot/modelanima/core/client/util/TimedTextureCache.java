@@ -34,20 +34,20 @@ public class TimedTextureCache implements FileCache
     @Override
     public CompletableFuture<Path> requestResource(String url, boolean ignoreMissing)
     {
-        return CompletableFuture.supplyAsync(() ->
+        return OnlineFetcher.get().request(this, url, () ->
         {
             try
             {
-                return GeometryCache.getPath(url, this.cacheTime, this.cacheTimeUnit, s ->
+                return GeometryCache.getPath(url, this.cacheTime, this.cacheTimeUnit, (s, eTag, lastModified) ->
                 {
                     try
                     {
-                        return FileCache.get(url);
+                        return OnlineFetcher.get().open(url, eTag, lastModified);
                     }
                     catch (IOException e)
                     {
                         if (!ignoreMissing)
-                            LOGGER.error("Failed to read data from '" + url + "'");
+                            LOGGER.error("Failed to read data from '" + url + "': " + e.getMessage());
                         return null;
                     }
                 });
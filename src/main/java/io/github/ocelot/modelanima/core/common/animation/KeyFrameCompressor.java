@@ -0,0 +1,107 @@
+package io.github.ocelot.modelanima.core.common.animation;
+
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.core.common.util.MolangConstantPool;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Removes key frames that can be reproduced by linearly interpolating their neighbours. The frames of a compressed channel are stored with quantized constants so they can be shared with other channels.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class KeyFrameCompressor
+{
+    public static final AnimationData.KeyFrame[] EMPTY = new AnimationData.KeyFrame[0];
+    private static final float TOLERANCE = 1.0F / 256.0F;
+
+    private KeyFrameCompressor()
+    {
+    }
+
+    /**
+     * Compresses the specified channel. Only channels made entirely of constant, linearly interpolated frames are compressed.
+     *
+     * @param frames The frames sorted by time
+     * @return The frames required to reproduce the channel
+     */
+    public static AnimationData.KeyFrame[] compress(AnimationData.KeyFrame[] frames)
+    {
+        if (frames.length == 0)
+            return EMPTY;
+        if (frames.length < 3)
+            return frames;
+
+        for (AnimationData.KeyFrame frame : frames)
+            if (frame.getLerpMode() != AnimationData.LerpMode.LINEAR || !isConstant(frame))
+                return frames;
+
+        List<AnimationData.KeyFrame> result = new ArrayList<>(frames.length);
+        result.add(quantize(frames[0]));
+        int anchor = 0;
+        for (int i = 1; i < frames.length - 1; i++)
+        {
+            if (!canSkip(frames, anchor, i + 1))
+            {
+                result.add(quantize(frames[i]));
+                anchor = i;
+            }
+        }
+        result.add(quantize(frames[frames.length - 1]));
+        return result.size() == frames.length ? frames : result.toArray(EMPTY);
+    }
+
+    // Compressing is already lossy, so the kept frames can share constants that are within 1/2048 of their value
+    private static AnimationData.KeyFrame quantize(AnimationData.KeyFrame frame)
+    {
+        return new AnimationData.KeyFrame(frame.getTime(), frame.getLerpMode(), quantize(frame.getTransformPreX()), quantize(frame.getTransformPreY()), quantize(frame.getTransformPreZ()), quantize(frame.getTransformPostX()), quantize(frame.getTransformPostY()), quantize(frame.getTransformPostZ()));
+    }
+
+    private static MolangExpression quantize(MolangExpression expression)
+    {
+        // Every frame was checked to be constant before compressing
+        return MolangConstantPool.quantized(MolangConstantPool.getValue(expression));
+    }
+
+    // Checks whether every frame between start and end lies on the line from start to end
+    private static boolean canSkip(AnimationData.KeyFrame[] frames, int start, int end)
+    {
+        AnimationData.KeyFrame from = frames[start];
+        AnimationData.KeyFrame to = frames[end];
+        float duration = to.getTime() - from.getTime();
+        if (duration <= 0)
+            return false;
+
+        for (int i = start + 1; i < end; i++)
+        {
+            AnimationData.KeyFrame frame = frames[i];
+            float progress = (frame.getTime() - from.getTime()) / duration;
+            if (!matches(progress, from.getTransformPostX(), to.getTransformPreX(), frame.getTransformPreX(), frame.getTransformPostX()) ||
+                    !matches(progress, from.getTransformPostY(), to.getTransformPreY(), frame.getTransformPreY(), frame.getTransformPostY()) ||
+                    !matches(progress, from.getTransformPostZ(), to.getTransformPreZ(), frame.getTransformPreZ(), frame.getTransformPostZ()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isConstant(AnimationData.KeyFrame frame)
+    {
+        return MolangConstantPool.getValue(frame.getTransformPreX()) != null && MolangConstantPool.getValue(frame.getTransformPreY()) != null && MolangConstantPool.getValue(frame.getTransformPreZ()) != null &&
+                MolangConstantPool.getValue(frame.getTransformPostX()) != null && MolangConstantPool.getValue(frame.getTransformPostY()) != null && MolangConstantPool.getValue(frame.getTransformPostZ()) != null;
+    }
+
+    private static boolean matches(float progress, MolangExpression from, MolangExpression to, MolangExpression pre, MolangExpression post)
+    {
+        // Every frame was checked to be constant before compressing
+        float fromValue = MolangConstantPool.getValue(from);
+        float toValue = MolangConstantPool.getValue(to);
+        float preValue = MolangConstantPool.getValue(pre);
+        float postValue = MolangConstantPool.getValue(post);
+        float expected = fromValue + (toValue - fromValue) * progress;
+        return Math.abs(expected - preValue) <= TOLERANCE && Math.abs(expected - postValue) <= TOLERANCE;
+    }
+}
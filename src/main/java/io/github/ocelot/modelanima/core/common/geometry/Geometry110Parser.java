@@ -1,16 +1,17 @@
 package io.github.ocelot.modelanima.core.common.geometry;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import com.mojang.math.Vector3f;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import io.github.ocelot.modelanima.api.common.util.JSONTupleParser;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
 import net.minecraft.core.Direction;
 import net.minecraft.util.GsonHelper;
 import org.jetbrains.annotations.ApiStatus;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * @author Ocelot
@@ -18,6 +19,31 @@ import java.util.Set;
 @ApiStatus.Internal
 public class Geometry110Parser
 {
+    /**
+     * Reads models from the remaining entries of the root object. The reader is left before the end of the root object.
+     *
+     * @param reader The reader positioned after <code>format_version</code>
+     * @return The models read
+     */
+    public static GeometryModelData[] parseModel(JsonReader reader) throws IOException, JsonParseException
+    {
+        GeometryModelData data = null;
+        while (reader.hasNext())
+        {
+            String key = reader.nextName();
+            if (!key.startsWith("geometry."))
+            {
+                reader.skipValue();
+                continue;
+            }
+            if (data != null)
+                throw new JsonSyntaxException("1.8.0 does not allow multiple geometry definitions per file.");
+
+            data = readGeometry(reader, key.substring(9));
+        }
+        return data != null ? new GeometryModelData[]{data} : new GeometryModelData[0];
+    }
+
     public static GeometryModelData[] parseModel(JsonElement json) throws JsonParseException
     {
         JsonObject jsonObject = json.getAsJsonObject();
@@ -134,8 +160,12 @@ public class Geometry110Parser
         if (!cubeJson.has("uv"))
             return new GeometryModelData.CubeUV[6];
 
+        return createBoxUV(JSONTupleParser.getFloat(cubeJson, "uv", 2, () -> new float[2]), size);
+    }
+
+    static GeometryModelData.CubeUV[] createBoxUV(float[] uv, float[] size)
+    {
         GeometryModelData.CubeUV[] uvs = new GeometryModelData.CubeUV[6];
-        float[] uv = JSONTupleParser.getFloat(cubeJson, "uv", 2, () -> new float[2]);
         uvs[Direction.NORTH.get3DDataValue()] = new GeometryModelData.CubeUV(uv[0] + size[2], uv[1] + size[2], size[0], size[1], "texture");
         uvs[Direction.EAST.get3DDataValue()] = new GeometryModelData.CubeUV(uv[0], uv[1] + size[2], size[2], size[1], "texture");
         uvs[Direction.SOUTH.get3DDataValue()] = new GeometryModelData.CubeUV(uv[0] + size[0] + size[2] * 2, uv[1] + size[2], size[0], size[1], "texture");
@@ -144,4 +174,213 @@ public class Geometry110Parser
         uvs[Direction.DOWN.get3DDataValue()] = new GeometryModelData.CubeUV(uv[0] + size[0] + size[2], uv[1], size[0], size[2], "texture");
         return uvs;
     }
+
+    private static GeometryModelData readGeometry(JsonReader reader, String identifier) throws IOException, JsonParseException
+    {
+        float visibleBoundsWidth = 0;
+        float visibleBoundsHeight = 0;
+        float[] visibleBoundsOffset = new float[3];
+        int textureWidth = 256;
+        int textureHeight = 256;
+        boolean preserveModelPose2588 = false;
+        GeometryModelData.Bone[] bones = new GeometryModelData.Bone[0];
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "visible_bounds_width":
+                    visibleBoundsWidth = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_height":
+                    visibleBoundsHeight = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_offset":
+                    visibleBoundsOffset = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "texturewidth":
+                    textureWidth = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "textureheight":
+                    textureHeight = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "preserve_model_pose":
+                    preserveModelPose2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "bones":
+                    bones = readBones(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (textureWidth == 0)
+            throw new JsonSyntaxException("Texture width must not be zero");
+        if (textureHeight == 0)
+            throw new JsonSyntaxException("Texture height must not be zero");
+        return new GeometryModelData(new GeometryModelData.Description(identifier, visibleBoundsWidth, visibleBoundsHeight, new Vector3f(visibleBoundsOffset), textureWidth, textureHeight, preserveModelPose2588), bones);
+    }
+
+    private static GeometryModelData.Bone[] readBones(JsonReader reader) throws IOException, JsonParseException
+    {
+        Set<String> usedNames = new HashSet<>();
+        List<GeometryModelData.Bone> bones = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            GeometryModelData.Bone bone = readBone(reader);
+            if (!usedNames.add(bone.getName()))
+                throw new JsonSyntaxException("Duplicate bone: " + bone.getName());
+            bones.add(bone);
+        }
+        reader.endArray();
+        return bones.toArray(new GeometryModelData.Bone[0]);
+    }
+
+    private static GeometryModelData.Bone readBone(JsonReader reader) throws IOException, JsonParseException
+    {
+        String boneName = null;
+        boolean reset2588 = false;
+        boolean neverRender2588 = false;
+        String parent = null;
+        float[] pivot = new float[3];
+        float[] rotation = new float[3];
+        boolean mirror = false;
+        float inflate = 0;
+        boolean debug = false;
+        GeometryModelData.Cube[] cubes = new GeometryModelData.Cube[0];
+        GeometryModelData.Locator[] locators = new GeometryModelData.Locator[0];
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "name":
+                    boneName = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "reset":
+                    reset2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "neverrender":
+                    neverRender2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "parent":
+                    parent = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "pivot":
+                    pivot = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "rotation":
+                    rotation = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "mirror":
+                    mirror = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "inflate":
+                    inflate = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "debug":
+                    debug = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "cubes":
+                    cubes = readCubes(reader);
+                    break;
+                case "locators":
+                    locators = readLocators(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (boneName == null)
+            throw new JsonSyntaxException("Missing name, expected to find a string");
+        return new GeometryModelData.Bone(boneName, reset2588, neverRender2588, parent, new Vector3f(pivot), new Vector3f(rotation), new Vector3f(), mirror, inflate, debug, cubes, locators, null);
+    }
+
+    private static GeometryModelData.Cube[] readCubes(JsonReader reader) throws IOException, JsonParseException
+    {
+        List<GeometryModelData.Cube> cubes = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+            cubes.add(readCube(reader));
+        reader.endArray();
+        return cubes.toArray(new GeometryModelData.Cube[0]);
+    }
+
+    static GeometryModelData.Locator[] readLocators(JsonReader reader) throws IOException, JsonParseException
+    {
+        List<GeometryModelData.Locator> locators = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String locatorIdentifier = reader.nextName();
+            locators.add(new GeometryModelData.Locator(locatorIdentifier, new Vector3f(JSONTupleParser.readFloat(reader, locatorIdentifier, 3))));
+        }
+        reader.endObject();
+        return locators.toArray(new GeometryModelData.Locator[0]);
+    }
+
+    private static GeometryModelData.Cube readCube(JsonReader reader) throws IOException, JsonParseException
+    {
+        float[] origin = new float[3];
+        float[] size = new float[3];
+        float[] rotation = new float[3];
+        float[] pivot = null;
+        boolean overrideInflate = false;
+        float inflate = 0;
+        boolean overrideMirror = false;
+        boolean mirror = false;
+        float[] uv = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "origin":
+                    origin = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "size":
+                    size = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "rotation":
+                    rotation = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "pivot":
+                    pivot = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "inflate":
+                    overrideInflate = true;
+                    inflate = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "mirror":
+                    overrideMirror = true;
+                    mirror = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "uv":
+                    uv = JSONTupleParser.readFloat(reader, name, 2);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (pivot == null)
+            pivot = new float[]{origin[0] + size[0] / 2F, origin[1] + size[1] / 2F, origin[2] + size[2] / 2F};
+        GeometryModelData.CubeUV[] uvs = uv != null ? createBoxUV(uv, size) : new GeometryModelData.CubeUV[6];
+        return new GeometryModelData.Cube(new Vector3f(origin), new Vector3f(size), new Vector3f(rotation), new Vector3f(pivot), overrideInflate, inflate, overrideMirror, mirror, uvs);
+    }
 }
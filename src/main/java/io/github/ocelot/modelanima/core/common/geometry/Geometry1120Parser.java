@@ -1,14 +1,16 @@
 package io.github.ocelot.modelanima.core.common.geometry;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import com.mojang.math.Vector3f;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import io.github.ocelot.modelanima.api.common.util.JSONTupleParser;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
 import net.minecraft.util.GsonHelper;
 import org.jetbrains.annotations.ApiStatus;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * @author Ocelot
@@ -16,6 +18,36 @@ import java.util.Set;
 @ApiStatus.Internal
 public class Geometry1120Parser
 {
+    /**
+     * Reads models from the remaining entries of the root object. The reader is left before the end of the root object.
+     *
+     * @param reader The reader positioned after <code>format_version</code>
+     * @return The models read
+     */
+    public static GeometryModelData[] parseModel(JsonReader reader) throws IOException, JsonParseException
+    {
+        GeometryModelData[] data = null;
+        while (reader.hasNext())
+        {
+            if (!"minecraft:geometry".equals(reader.nextName()))
+            {
+                reader.skipValue();
+                continue;
+            }
+
+            List<GeometryModelData> models = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext())
+                models.add(readGeometry(reader));
+            reader.endArray();
+            data = models.toArray(new GeometryModelData[0]);
+        }
+
+        if (data == null)
+            throw new JsonSyntaxException("Missing minecraft:geometry, expected to find a JsonArray");
+        return data;
+    }
+
     public static GeometryModelData[] parseModel(JsonElement json) throws JsonParseException
     {
         JsonArray jsonArray = GsonHelper.getAsJsonArray(json.getAsJsonObject(), "minecraft:geometry");
@@ -91,4 +123,176 @@ public class Geometry1120Parser
 
         return new GeometryModelData.Bone(name, reset2588, neverRender2588, parent, new Vector3f(pivot), new Vector3f(rotation), new Vector3f(bindPoseRotation2588), mirror, inflate, debug, cubes, locators, polyMesh);
     }
+
+    private static GeometryModelData readGeometry(JsonReader reader) throws IOException, JsonParseException
+    {
+        GeometryModelData.Description description = null;
+        GeometryModelData.Bone[] bones = new GeometryModelData.Bone[0];
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "description":
+                    description = readDescription(reader);
+                    break;
+                case "bones":
+                    bones = readBones(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (description == null)
+            throw new JsonSyntaxException("Missing description, expected to find a JsonObject");
+        return new GeometryModelData(description, bones);
+    }
+
+    private static GeometryModelData.Description readDescription(JsonReader reader) throws IOException, JsonParseException
+    {
+        String identifier = null;
+        float visibleBoundsWidth = 0;
+        float visibleBoundsHeight = 0;
+        float[] visibleBoundsOffset = new float[3];
+        int textureWidth = 256;
+        int textureHeight = 256;
+        boolean preserveModelPose2588 = false;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "identifier":
+                    identifier = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "visible_bounds_width":
+                    visibleBoundsWidth = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_height":
+                    visibleBoundsHeight = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_offset":
+                    visibleBoundsOffset = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "texture_width":
+                    textureWidth = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "texture_height":
+                    textureHeight = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "preserve_model_pose2588":
+                    preserveModelPose2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (identifier == null)
+            throw new JsonSyntaxException("Missing identifier, expected to find a string");
+        if (textureWidth == 0)
+            throw new JsonSyntaxException("Texture width must not be zero");
+        if (textureHeight == 0)
+            throw new JsonSyntaxException("Texture height must not be zero");
+        return new GeometryModelData.Description(identifier, visibleBoundsWidth, visibleBoundsHeight, new Vector3f(visibleBoundsOffset), textureWidth, textureHeight, preserveModelPose2588);
+    }
+
+    private static GeometryModelData.Bone[] readBones(JsonReader reader) throws IOException, JsonParseException
+    {
+        Set<String> usedNames = new HashSet<>();
+        List<GeometryModelData.Bone> bones = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            GeometryModelData.Bone bone = readBone(reader);
+            if (!usedNames.add(bone.getName()))
+                throw new JsonSyntaxException("Duplicate bone: " + bone.getName());
+            bones.add(bone);
+        }
+        reader.endArray();
+        return bones.toArray(new GeometryModelData.Bone[0]);
+    }
+
+    private static GeometryModelData.Bone readBone(JsonReader reader) throws IOException, JsonParseException
+    {
+        String boneName = null;
+        boolean reset2588 = false;
+        boolean neverRender2588 = false;
+        String parent = null;
+        float[] pivot = new float[3];
+        float[] rotation = new float[3];
+        float[] bindPoseRotation2588 = new float[3];
+        boolean mirror = false;
+        float inflate = 0;
+        boolean debug = false;
+        GeometryModelData.Cube[] cubes = new GeometryModelData.Cube[0];
+        GeometryModelData.Locator[] locators = new GeometryModelData.Locator[0];
+        GeometryModelData.PolyMesh polyMesh = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "name":
+                    boneName = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "reset2588":
+                    reset2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "neverrender2588":
+                    neverRender2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "parent":
+                    parent = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "pivot":
+                    pivot = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "rotation":
+                    rotation = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "bind_pose_rotation2588":
+                    bindPoseRotation2588 = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "mirror":
+                    mirror = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "inflate":
+                    inflate = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "debug":
+                    debug = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "cubes":
+                    cubes = Geometry180Parser.readCubes(reader);
+                    break;
+                case "locators":
+                    locators = Geometry110Parser.readLocators(reader);
+                    break;
+                case "poly_mesh":
+                    polyMesh = Geometry180Parser.readPolyMesh(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        // TODO texture_mesh
+
+        if (boneName == null)
+            throw new JsonSyntaxException("Missing name, expected to find a string");
+        return new GeometryModelData.Bone(boneName, reset2588, neverRender2588, parent, new Vector3f(pivot), new Vector3f(rotation), new Vector3f(bindPoseRotation2588), mirror, inflate, debug, cubes, locators, polyMesh);
+    }
 }
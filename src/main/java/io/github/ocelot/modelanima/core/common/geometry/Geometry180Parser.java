@@ -1,16 +1,21 @@
 package io.github.ocelot.modelanima.core.common.geometry;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.mojang.math.Vector3f;
 import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
 import io.github.ocelot.modelanima.api.common.util.JSONTupleParser;
+import io.github.ocelot.modelanima.core.common.util.JsonReaderHelper;
 import net.minecraft.core.Direction;
 import net.minecraft.util.GsonHelper;
+import net.minecraft.world.phys.Vec2;
 import org.jetbrains.annotations.ApiStatus;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * @author Ocelot
@@ -23,6 +28,31 @@ public class Geometry180Parser
             registerTypeAdapter(GeometryModelData.PolyMesh.class, new GeometryModelData.PolyMesh.Deserializer()).
             create();
 
+    /**
+     * Reads models from the remaining entries of the root object. The reader is left before the end of the root object.
+     *
+     * @param reader The reader positioned after <code>format_version</code>
+     * @return The models read
+     */
+    public static GeometryModelData[] parseModel(JsonReader reader) throws IOException, JsonParseException
+    {
+        GeometryModelData data = null;
+        while (reader.hasNext())
+        {
+            String key = reader.nextName();
+            if (!key.startsWith("geometry."))
+            {
+                reader.skipValue();
+                continue;
+            }
+            if (data != null)
+                throw new JsonSyntaxException("1.8.0 does not allow multiple geometry definitions per file.");
+
+            data = readGeometry(reader, key.substring(9));
+        }
+        return data != null ? new GeometryModelData[]{data} : new GeometryModelData[0];
+    }
+
     public static GeometryModelData[] parseModel(JsonElement json) throws JsonParseException
     {
         JsonObject jsonObject = json.getAsJsonObject();
@@ -154,4 +184,461 @@ public class Geometry180Parser
         }
         throw new JsonSyntaxException("Expected uv to be a JsonArray or JsonObject, was " + GsonHelper.getType(cubeJson.get("uv")));
     }
+
+    private static GeometryModelData readGeometry(JsonReader reader, String identifier) throws IOException, JsonParseException
+    {
+        float visibleBoundsWidth = 0;
+        float visibleBoundsHeight = 0;
+        float[] visibleBoundsOffset = new float[3];
+        int textureWidth = 256;
+        int textureHeight = 256;
+        boolean preserveModelPose2588 = false;
+        GeometryModelData.Bone[] bones = new GeometryModelData.Bone[0];
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "visible_bounds_width":
+                    visibleBoundsWidth = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_height":
+                    visibleBoundsHeight = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "visible_bounds_offset":
+                    visibleBoundsOffset = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "texturewidth":
+                    textureWidth = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "textureheight":
+                    textureHeight = JsonReaderHelper.nextInt(reader, name);
+                    break;
+                case "preserve_model_pose2588":
+                    preserveModelPose2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "bones":
+                    bones = readBones(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (textureWidth == 0)
+            throw new JsonSyntaxException("Texture width must not be zero");
+        if (textureHeight == 0)
+            throw new JsonSyntaxException("Texture height must not be zero");
+        return new GeometryModelData(new GeometryModelData.Description(identifier, visibleBoundsWidth, visibleBoundsHeight, new Vector3f(visibleBoundsOffset), textureWidth, textureHeight, preserveModelPose2588), bones);
+    }
+
+    private static GeometryModelData.Bone[] readBones(JsonReader reader) throws IOException, JsonParseException
+    {
+        Set<String> usedNames = new HashSet<>();
+        List<GeometryModelData.Bone> bones = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            GeometryModelData.Bone bone = readBone(reader);
+            if (!usedNames.add(bone.getName()))
+                throw new JsonSyntaxException("Duplicate bone: " + bone.getName());
+            bones.add(bone);
+        }
+        reader.endArray();
+        return bones.toArray(new GeometryModelData.Bone[0]);
+    }
+
+    private static GeometryModelData.Bone readBone(JsonReader reader) throws IOException, JsonParseException
+    {
+        String boneName = null;
+        boolean reset2588 = false;
+        boolean neverRender2588 = false;
+        String parent = null;
+        float[] pivot = new float[3];
+        float[] rotation = new float[3];
+        float[] bindPoseRotation2588 = new float[3];
+        boolean mirror = false;
+        float inflate = 0;
+        boolean debug = false;
+        GeometryModelData.Cube[] cubes = new GeometryModelData.Cube[0];
+        GeometryModelData.Locator[] locators = new GeometryModelData.Locator[0];
+        GeometryModelData.PolyMesh polyMesh = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "name":
+                    boneName = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "reset":
+                    reset2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "neverrender":
+                    neverRender2588 = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "parent":
+                    parent = JsonReaderHelper.nextString(reader, name);
+                    break;
+                case "pivot":
+                    pivot = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "rotation":
+                    rotation = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "bind_pose_rotation2588":
+                    bindPoseRotation2588 = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "mirror":
+                    mirror = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "inflate":
+                    inflate = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "debug":
+                    debug = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "cubes":
+                    cubes = readCubes(reader);
+                    break;
+                case "locators":
+                    locators = Geometry110Parser.readLocators(reader);
+                    break;
+                case "poly_mesh":
+                    polyMesh = readPolyMesh(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        // TODO texture_mesh
+
+        if (boneName == null)
+            throw new JsonSyntaxException("Missing name, expected to find a string");
+        return new GeometryModelData.Bone(boneName, reset2588, neverRender2588, parent, new Vector3f(pivot), new Vector3f(rotation), new Vector3f(bindPoseRotation2588), mirror, inflate, debug, cubes, locators, polyMesh);
+    }
+
+    static GeometryModelData.Cube[] readCubes(JsonReader reader) throws IOException, JsonParseException
+    {
+        List<GeometryModelData.Cube> cubes = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+            cubes.add(readCube(reader));
+        reader.endArray();
+        return cubes.toArray(new GeometryModelData.Cube[0]);
+    }
+
+    private static GeometryModelData.Cube readCube(JsonReader reader) throws IOException, JsonParseException
+    {
+        float[] origin = new float[3];
+        float[] size = new float[3];
+        float[] rotation = new float[3];
+        float[] pivot = null;
+        boolean overrideInflate = false;
+        float inflate = 0;
+        boolean overrideMirror = false;
+        boolean mirror = false;
+        float[] boxUv = null;
+        GeometryModelData.CubeUV[] faceUvs = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "origin":
+                    origin = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "size":
+                    size = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "rotation":
+                    rotation = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "pivot":
+                    pivot = JSONTupleParser.readFloat(reader, name, 3);
+                    break;
+                case "inflate":
+                    overrideInflate = true;
+                    inflate = JsonReaderHelper.nextFloat(reader, name);
+                    break;
+                case "mirror":
+                    overrideMirror = true;
+                    mirror = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "uv":
+                {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.BEGIN_ARRAY)
+                    {
+                        boxUv = JSONTupleParser.readFloat(reader, name, 2);
+                        faceUvs = null;
+                    }
+                    else if (token == JsonToken.BEGIN_OBJECT)
+                    {
+                        faceUvs = readFaceUVs(reader);
+                        boxUv = null;
+                    }
+                    else
+                    {
+                        throw new JsonSyntaxException("Expected uv to be a JsonArray or JsonObject, was " + token);
+                    }
+                    break;
+                }
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (pivot == null)
+            pivot = new float[]{origin[0] + size[0] / 2F, origin[1] + size[1] / 2F, origin[2] + size[2] / 2F};
+        GeometryModelData.CubeUV[] uvs = faceUvs != null ? faceUvs : boxUv != null ? Geometry110Parser.createBoxUV(boxUv, size) : new GeometryModelData.CubeUV[6];
+        return new GeometryModelData.Cube(new Vector3f(origin), new Vector3f(size), new Vector3f(rotation), new Vector3f(pivot), overrideInflate, inflate, overrideMirror, mirror, uvs);
+    }
+
+    private static GeometryModelData.CubeUV[] readFaceUVs(JsonReader reader) throws IOException, JsonParseException
+    {
+        GeometryModelData.CubeUV[] uvs = new GeometryModelData.CubeUV[6];
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            Direction direction = Direction.byName(reader.nextName());
+            if (direction == null)
+            {
+                reader.skipValue();
+                continue;
+            }
+
+            float[] uv = null;
+            float[] uvSize = new float[2];
+            String material = "texture";
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                switch (name)
+                {
+                    case "uv":
+                        uv = JSONTupleParser.readFloat(reader, name, 2);
+                        break;
+                    case "uv_size":
+                        uvSize = JSONTupleParser.readFloat(reader, name, 2);
+                        break;
+                    case "material_instance":
+                        material = JsonReaderHelper.nextString(reader, name);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (uv == null)
+                throw new JsonSyntaxException("Missing uv, expected to find a JsonArray or JsonPrimitive");
+            uvs[direction.get3DDataValue()] = new GeometryModelData.CubeUV(uv[0], uv[1], uvSize[0], uvSize[1], material);
+        }
+        reader.endObject();
+        return uvs;
+    }
+
+    static GeometryModelData.PolyMesh readPolyMesh(JsonReader reader) throws IOException, JsonParseException
+    {
+        boolean normalizedUvs = false;
+        Vector3f[] positions = new Vector3f[0];
+        Vector3f[] normals = new Vector3f[0];
+        Vec2[] uvs = new Vec2[0];
+        GeometryModelData.Poly[] polys = null;
+        GeometryModelData.PolyType polyType = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+            switch (name)
+            {
+                case "normalized_uvs":
+                    normalizedUvs = JsonReaderHelper.nextBoolean(reader, name);
+                    break;
+                case "positions":
+                    positions = readVectors(reader, name, 3, Vector3f[]::new, v -> new Vector3f(v[0], v[1], v[2]));
+                    break;
+                case "normals":
+                    normals = readVectors(reader, name, 3, Vector3f[]::new, v -> new Vector3f(v[0], v[1], v[2]));
+                    break;
+                case "uvs":
+                    uvs = readVectors(reader, name, 2, Vec2[]::new, v -> new Vec2(v[0], v[1]));
+                    break;
+                case "polys":
+                {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.BEGIN_ARRAY)
+                    {
+                        polys = readPolys(reader);
+                        polyType = polys.length == 0 || polys[0].getPositions().length == 3 ? GeometryModelData.PolyType.TRIANGLES : GeometryModelData.PolyType.QUADS;
+                    }
+                    else if (token == JsonToken.STRING)
+                    {
+                        polys = new GeometryModelData.Poly[0];
+                        polyType = readPolyType(reader.nextString());
+                    }
+                    else
+                    {
+                        throw new JsonSyntaxException("Expected polys to be a JsonArray or String, was " + token);
+                    }
+                    break;
+                }
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (polys == null)
+            throw new JsonSyntaxException("Missing polys, expected to find a JsonArray or String");
+
+        for (GeometryModelData.Poly poly : polys)
+        {
+            if (poly.getPositions().length != polyType.getVertices())
+                throw new JsonSyntaxException("Expected positions to be of length " + polyType.getVertices() + ". Was " + poly.getPositions().length);
+            if (poly.getNormals().length != polyType.getVertices())
+                throw new JsonSyntaxException("Expected normals to be of length " + polyType.getVertices() + ". Was " + poly.getPositions().length);
+            if (poly.getUVs().length != polyType.getVertices())
+                throw new JsonSyntaxException("Expected positions to be of length " + polyType.getVertices() + ". Was " + poly.getPositions().length);
+        }
+
+        return new GeometryModelData.PolyMesh(normalizedUvs, positions, normals, uvs, polys, polyType);
+    }
+
+    private static GeometryModelData.PolyType readPolyType(String name) throws JsonParseException
+    {
+        for (GeometryModelData.PolyType polyType : GeometryModelData.PolyType.values())
+            if (polyType.getName().equalsIgnoreCase(name))
+                return polyType;
+        throw new JsonSyntaxException("Unsupported poly type: " + name + ". Supported poly types: " + Arrays.toString(Arrays.stream(GeometryModelData.PolyType.values()).map(GeometryModelData.PolyType::getName).toArray(String[]::new)));
+    }
+
+    private static GeometryModelData.Poly[] readPolys(JsonReader reader) throws IOException, JsonParseException
+    {
+        List<GeometryModelData.Poly> polys = new ArrayList<>();
+        int[] vertex1 = new int[3];
+        int[] vertex2 = new int[3];
+        int[] vertex3 = new int[3];
+        int[] vertex4 = new int[3];
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            int vertices = 0;
+            reader.beginArray();
+            while (reader.hasNext())
+            {
+                switch (vertices++)
+                {
+                    case 0:
+                        readVertex(reader, vertex1);
+                        break;
+                    case 1:
+                        readVertex(reader, vertex2);
+                        break;
+                    case 2:
+                        readVertex(reader, vertex3);
+                        break;
+                    case 3:
+                        readVertex(reader, vertex4);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endArray();
+
+            if (vertices != 3 && vertices != 4)
+                throw new JsonSyntaxException("Expected 3 or 4 index values, was " + vertices);
+            if (vertices == 4)
+            {
+                polys.add(new GeometryModelData.Poly(new int[]{vertex1[0], vertex2[0], vertex3[0], vertex4[0]}, new int[]{vertex1[1], vertex2[1], vertex3[1], vertex4[1]}, new int[]{vertex1[2], vertex2[2], vertex3[2], vertex4[2]}));
+            }
+            else
+            {
+                polys.add(new GeometryModelData.Poly(new int[]{vertex1[0], vertex2[0], vertex3[0]}, new int[]{vertex1[1], vertex2[1], vertex3[1]}, new int[]{vertex1[2], vertex2[2], vertex3[2]}));
+            }
+        }
+        reader.endArray();
+        return polys.toArray(new GeometryModelData.Poly[0]);
+    }
+
+    private static void readVertex(JsonReader reader, int[] vertex) throws IOException, JsonParseException
+    {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.BEGIN_ARRAY)
+            throw new JsonSyntaxException("Expected vertex to be a JsonArray, was " + token);
+
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            if (size < 3)
+            {
+                vertex[size] = JsonReaderHelper.nextLenientInt(reader, "vertex");
+            }
+            else
+            {
+                reader.skipValue();
+            }
+            size++;
+        }
+        reader.endArray();
+
+        if (size != 3)
+            throw new JsonParseException("Expected 3 vertex values, was " + size);
+    }
+
+    private static <T> T[] readVectors(JsonReader reader, String name, int size, IntFunction<T[]> arrayGenerator, Function<float[], T> generator) throws IOException, JsonParseException
+    {
+        List<T> vectors = new ArrayList<>();
+        float[] values = new float[size];
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            JsonToken token = reader.peek();
+            if (token != JsonToken.BEGIN_ARRAY)
+                throw new JsonSyntaxException("Expected " + name + " to be a JsonArray, was " + token);
+
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext())
+            {
+                if (count < size)
+                {
+                    values[count] = JsonReaderHelper.nextLenientFloat(reader, name);
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+                count++;
+            }
+            reader.endArray();
+
+            if (count != size)
+                throw new JsonParseException("Expected " + size + " " + name + " values, was " + count);
+            vectors.add(generator.apply(values));
+        }
+        reader.endArray();
+        return vectors.toArray(arrayGenerator.apply(0));
+    }
 }
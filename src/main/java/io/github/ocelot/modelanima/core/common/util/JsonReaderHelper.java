@@ -0,0 +1,177 @@
+package io.github.ocelot.modelanima.core.common.util;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * <p>Reads primitive values from a {@link JsonReader} with the same leniency as {@link net.minecraft.util.GsonHelper}.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class JsonReaderHelper
+{
+    private JsonReaderHelper()
+    {
+    }
+
+    /**
+     * Reads the next value as a float. Only numbers are accepted, like {@link net.minecraft.util.GsonHelper#convertToFloat(com.google.gson.JsonElement, String)}.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static float nextFloat(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER)
+            throw new JsonSyntaxException("Expected " + name + " to be a Float, was " + token);
+        return parseFloat(reader.nextString(), name);
+    }
+
+    /**
+     * Reads the next value as a float. Numbers and strings are accepted, like {@link com.google.gson.JsonElement#getAsFloat()}.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static float nextLenientFloat(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING)
+            throw new JsonSyntaxException("Expected " + name + " to be a Float, was " + token);
+        return parseFloat(reader.nextString(), name);
+    }
+
+    private static float parseFloat(String value, String name) throws JsonSyntaxException
+    {
+        // Parse the raw string to get the exact same value as JsonPrimitive#getAsFloat
+        try
+        {
+            return Float.parseFloat(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new JsonSyntaxException("Expected " + name + " to be a Float, was '" + value + "'", e);
+        }
+    }
+
+    /**
+     * Reads the next value as an integer. Only numbers are accepted, like {@link net.minecraft.util.GsonHelper#convertToInt(com.google.gson.JsonElement, String)}.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static int nextInt(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER)
+            throw new JsonSyntaxException("Expected " + name + " to be an Int, was " + token);
+
+        String value = reader.nextString();
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException ignored)
+        {
+        }
+        try
+        {
+            return new BigDecimal(value).intValue();
+        }
+        catch (NumberFormatException e)
+        {
+            throw new JsonSyntaxException("Expected " + name + " to be an Int, was '" + value + "'", e);
+        }
+    }
+
+    /**
+     * Reads the next value as an integer. Numbers and strings are accepted, like {@link com.google.gson.JsonElement#getAsInt()}.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static int nextLenientInt(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER)
+            return nextInt(reader, name);
+        if (token != JsonToken.STRING)
+            throw new JsonSyntaxException("Expected " + name + " to be an Int, was " + token);
+
+        // Strings are not parsed as decimals by JsonPrimitive#getAsInt
+        String value = reader.nextString();
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new JsonSyntaxException("Expected " + name + " to be an Int, was '" + value + "'", e);
+        }
+    }
+
+    /**
+     * Reads the next value as a boolean.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static boolean nextBoolean(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BOOLEAN)
+            return reader.nextBoolean();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING)
+            return Boolean.parseBoolean(reader.nextString());
+        throw new JsonSyntaxException("Expected " + name + " to be a Boolean, was " + token);
+    }
+
+    /**
+     * Reads the next value as a string.
+     *
+     * @param reader The reader to read from
+     * @param name   The name of the value for error messages
+     * @return The parsed value
+     */
+    public static String nextString(JsonReader reader, String name) throws IOException, JsonSyntaxException
+    {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BOOLEAN)
+            return Boolean.toString(reader.nextBoolean());
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING)
+            return reader.nextString();
+        throw new JsonSyntaxException("Expected " + name + " to be a string, was " + token);
+    }
+
+    /**
+     * Converts exceptions thrown by {@link JsonReader} into the exceptions thrown by the tree parsers.
+     *
+     * @param e The exception thrown while reading
+     * @return The exception to throw instead
+     */
+    public static JsonParseException wrap(Exception e)
+    {
+        if (e instanceof JsonParseException)
+            return (JsonParseException) e;
+        if (e instanceof MalformedJsonException || e instanceof IllegalStateException || e instanceof NumberFormatException)
+            return new JsonSyntaxException(e);
+        if (e instanceof IOException)
+            return new JsonIOException(e);
+        return new JsonParseException(e);
+    }
+}
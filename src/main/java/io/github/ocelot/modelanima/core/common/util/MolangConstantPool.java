@@ -0,0 +1,81 @@
+package io.github.ocelot.modelanima.core.common.util;
+
+import com.google.common.cache.CacheBuilder;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * <p>Shares constant MoLang expressions between all parsed animations. Parsed values are kept exact, only the key frame compressor stores quantized values so nearly identical constants resolve to the same instance.</p>
+ *
+ * <p>Constants are only weakly held, so values from models and animations that were replaced by a reload are released with them.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class MolangConstantPool
+{
+    private static final double QUANTIZATION = 1024.0;
+    private static final Map<Integer, MolangExpression> CONSTANTS = CacheBuilder.newBuilder().weakValues().<Integer, MolangExpression>build().asMap();
+    private static final Map<MolangExpression, Float> VALUES = CacheBuilder.newBuilder().weakKeys().<MolangExpression, Float>build().asMap();
+
+    static
+    {
+        CONSTANTS.put(Float.floatToIntBits(0.0F), MolangExpression.ZERO);
+        VALUES.put(MolangExpression.ZERO, 0.0F);
+    }
+
+    private MolangConstantPool()
+    {
+    }
+
+    /**
+     * Fetches a shared constant expression for the specified value.
+     *
+     * @param value The value of the constant
+     * @return An expression that always resolves to the value
+     */
+    public static MolangExpression of(float value)
+    {
+        float constant = value == 0 ? 0.0F : value; // Collapse -0.0 into 0.0
+        return CONSTANTS.computeIfAbsent(Float.floatToIntBits(constant), key ->
+        {
+            MolangExpression expression = MolangExpression.of(constant);
+            VALUES.put(expression, constant);
+            return expression;
+        });
+    }
+
+    /**
+     * Fetches a shared constant expression for the specified value rounded to the nearest 1/1024.
+     *
+     * @param value The value of the constant
+     * @return An expression that always resolves to the quantized value
+     */
+    public static MolangExpression quantized(float value)
+    {
+        return of(quantize(value));
+    }
+
+    /**
+     * Fetches the value of the specified expression if it was created by this pool.
+     *
+     * @param expression The expression to get the value of
+     * @return The constant value or <code>null</code> if the expression is not a pooled constant
+     */
+    @Nullable
+    public static Float getValue(MolangExpression expression)
+    {
+        return VALUES.get(expression);
+    }
+
+    private static float quantize(float value)
+    {
+        if (!Float.isFinite(value))
+            return value;
+        float quantized = (float) (Math.rint(value * QUANTIZATION) / QUANTIZATION);
+        return quantized == 0 ? 0.0F : quantized; // Collapse -0.0 into 0.0
+    }
+}
@@ -0,0 +1,251 @@
+package io.github.ocelot.modelanima;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import io.github.ocelot.modelanima.api.client.animation.AnimatedGeometryEntityModel;
+import io.github.ocelot.modelanima.api.client.animation.AnimatedModel;
+import io.github.ocelot.modelanima.api.client.animation.AnimationManager;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModelManager;
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.animation.AnimationEffectHandler;
+import io.github.ocelot.modelanima.api.common.animation.AnimationEffectSource;
+import io.github.ocelot.modelanima.api.common.animation.AnimationParser;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
+import io.github.ocelot.modelanima.core.client.util.SnapshotRegistry;
+import io.github.ocelot.molangcompiler.api.MolangRuntime;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.decoration.ArmorStand;
+import net.minecraft.world.entity.item.ItemEntity;
+import sun.misc.Unsafe;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks the per-entity render path does not allocate once it has warmed up. Several entities playing different animations take turns on one shared model, like they do in a renderer.
+ * <p>The MoLang library creates a new runtime for every animation that is applied, so applying the animations directly is measured too. Setting up the model must not allocate anything on top of that.</p>
+ * <p>This reaches into the managers and the entity model, so it is run on its own with <code>./gradlew allocationTest</code> instead of as part of <code>check</code>.</p>
+ */
+public class AllocationTest
+{
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+    private static final Path GEOMETRY_FILE = Paths.get("src/test/resources/assets/examplemod/models/geometry/yeti.json");
+    private static final Path ANIMATION_FILE = Paths.get("src/test/resources/assets/examplemod/animations/yeti.json");
+    private static final ResourceLocation MODEL = new ResourceLocation("examplemod", "yeti");
+    private static final ResourceLocation TEXTURE = new ResourceLocation("examplemod", "yeti");
+    private static final ResourceLocation[][] ANIMATIONS = {
+            {new ResourceLocation("examplemod", "yeti.setup"), new ResourceLocation("examplemod", "yeti.throw_snowball")},
+            {new ResourceLocation("examplemod", "yeti.setup"), new ResourceLocation("examplemod", "yeti.attack")},
+            {new ResourceLocation("examplemod", "yeti.setup"), new ResourceLocation("examplemod", "yeti.prepare_snowball")}
+    };
+
+    private static float ticks;
+
+    public static void main(String[] args) throws Exception
+    {
+        GeometryModel model = GeometryModelParser.parseModel(new String(Files.readAllBytes(GEOMETRY_FILE), StandardCharsets.UTF_8))[0].create();
+        Map<ResourceLocation, AnimationData> animations = new HashMap<>();
+        for (AnimationData animation : AnimationParser.parse(new String(Files.readAllBytes(ANIMATION_FILE), StandardCharsets.UTF_8)))
+            animations.put(new ResourceLocation("examplemod", animation.getName()), animation);
+        register(GeometryModelManager.class, "MODELS", Collections.singletonMap(MODEL, model));
+        register(AnimationManager.class, "ANIMATIONS", animations);
+
+        // The entities are never constructed, since that needs a level. None of the queries used by the yeti animations read the entity
+        Entity[] entities = {allocate(ItemEntity.class), allocate(ArmorStand.class), allocate(ItemEntity.class)};
+        AnimatedGeometryEntityModel<Entity> entityModel = new AnimatedGeometryEntityModel<>(MODEL);
+        AnimationEffectHandler effectHandler = new AnimationEffectHandler(new NoopEffectSource());
+        PoseStack matrixStack = new PoseStack();
+        VertexConsumer consumer = new NoopVertexConsumer();
+
+        Checks.check(entityModel.getModel() == model, "entity model renders the registered geometry");
+        for (ResourceLocation[] entityAnimations : ANIMATIONS)
+        {
+            entityModel.setAnimations(entityAnimations);
+            Checks.check(entityModel.getAnimations().length == entityAnimations.length, "entity model resolved " + entityAnimations[1].getPath());
+        }
+        entityModel.setAnimations(ANIMATIONS[0]);
+        AnimationData[] first = entityModel.getAnimations();
+        entityModel.setAnimations(ANIMATIONS[1]);
+        entityModel.getAnimations();
+        entityModel.setAnimations(ANIMATIONS[0]);
+        Checks.check(entityModel.getAnimations() == first, "switching between animation arrays reuses the resolved animations");
+        entityModel.setAnimations(ANIMATIONS[0][0], ANIMATIONS[0][1]);
+        Checks.check(entityModel.getAnimations() == first, "a new array with the same animations reuses the resolved animations");
+
+        // Mirrors AnimatedEntityRenderer.setupRotations
+        long setup = measure(() ->
+        {
+            for (ResourceLocation[] entityAnimations : ANIMATIONS)
+            {
+                entityModel.setTexture(TEXTURE);
+                entityModel.setAnimations(entityAnimations);
+                effectHandler.tick(entityAnimations, ticks / 20.0F);
+            }
+        });
+        long setupAnim = measure(() ->
+        {
+            for (int i = 0; i < entities.length; i++)
+            {
+                entityModel.setAnimations(ANIMATIONS[i]);
+                entityModel.setupAnim(entities[i], 0.0F, 0.0F, ticks, 0.0F, 0.0F);
+            }
+        });
+
+        // Applies the same animations with the runtimes the entity model built, which is what the MoLang library costs on its own
+        Map<Class<?>, MolangRuntime.Builder> runtimes = getField(entityModel, "runtimes");
+        Checks.check(runtimes.size() == 2, "one MoLang runtime was built for each type of entity");
+        AnimationData[][] resolved = new AnimationData[ANIMATIONS.length][];
+        for (int i = 0; i < ANIMATIONS.length; i++)
+        {
+            entityModel.setAnimations(ANIMATIONS[i]);
+            resolved[i] = entityModel.getAnimations().clone();
+        }
+        long applyAnimations = measure(() ->
+        {
+            for (int i = 0; i < entities.length; i++)
+            {
+                model.resetTransformation();
+                ((AnimatedModel) model).applyAnimations(ticks / 20.0F, runtimes.get(entities[i].getClass()), resolved[i]);
+            }
+        });
+        long renderToBuffer = measure(() ->
+        {
+            for (ResourceLocation[] entityAnimations : ANIMATIONS)
+            {
+                // Renderers push a new pose for every entity, which allocates in vanilla, so the pose is reset instead to only measure the model
+                matrixStack.last().pose().setIdentity();
+                matrixStack.last().normal().setIdentity();
+                entityModel.setAnimations(entityAnimations);
+                RenderHarness.render(entityModel, matrixStack, consumer);
+            }
+        });
+        long render = measure(() -> RenderHarness.render(model, matrixStack, consumer));
+
+        Checks.check(setup == 0, "setting the texture and animations and ticking effects allocated " + setup + " bytes per frame");
+        Checks.check(setupAnim - applyAnimations <= 0, "setupAnim allocated nothing besides applying the animations, got " + (setupAnim - applyAnimations) + " bytes per frame on top of the " + applyAnimations + " the MoLang runtimes allocated");
+        Checks.check(renderToBuffer == 0, "rendering the entity model allocated " + renderToBuffer + " bytes per frame");
+        Checks.check(render == 0, "rendering through GeometryModelRenderer allocated " + render + " bytes per frame");
+
+        Checks.finish();
+    }
+
+    // Returns the bytes allocated per frame after warming up. Integer division allows a little slack for the measuring calls themselves
+    private static long measure(Runnable frame)
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            ticks++;
+            frame.run();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            ticks++;
+            frame.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+    }
+
+    // Loads the values into a manager without a resource reload
+    private static <T> void register(Class<?> manager, String field, Map<ResourceLocation, T> values) throws ReflectiveOperationException
+    {
+        SnapshotRegistry<T> registry = getField(manager, null, field);
+        registry.replace(values);
+    }
+
+    private static <T> T getField(Object instance, String name) throws ReflectiveOperationException
+    {
+        return getField(instance.getClass(), instance, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getField(Class<?> type, @Nullable Object instance, String name) throws ReflectiveOperationException
+    {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return (T) field.get(instance);
+    }
+
+    private static <T> T allocate(Class<T> type) throws ReflectiveOperationException
+    {
+        Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return type.cast(((Unsafe) field.get(null)).allocateInstance(type));
+    }
+
+    private static class NoopVertexConsumer implements VertexConsumer
+    {
+        @Override
+        public VertexConsumer vertex(double x, double y, double z)
+        {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer color(int red, int green, int blue, int alpha)
+        {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer uv(float u, float v)
+        {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer overlayCoords(int u, int v)
+        {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer uv2(int u, int v)
+        {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer normal(float x, float y, float z)
+        {
+            return this;
+        }
+
+        @Override
+        public void endVertex()
+        {
+        }
+    }
+
+    private static class NoopEffectSource implements AnimationEffectSource
+    {
+        @Override
+        public void handleSoundEffect(AnimationData animation, AnimationData.SoundEffect soundEffect)
+        {
+        }
+
+        @Override
+        public void handleParticleEffect(AnimationData animation, AnimationData.ParticleEffect particleEffect, double xOffset, double yOffset, double zOffset)
+        {
+        }
+
+        @Override
+        public void handleTimelineEffect(AnimationData animation, AnimationData.TimelineEffect timelineEffect)
+        {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.ocelot.modelanima;
+
+import io.github.ocelot.modelanima.core.client.util.CacheMetadataStore;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checks the cache metadata log survives reopening, a record cut off by a crash and compaction, and that removing a key by prefix leaves other keys alone.
+ */
+public class CacheMetadataStoreTest
+{
+    public static void main(String[] args) throws Exception
+    {
+        Path file = Files.createTempDirectory("modelanima-metadata").resolve("metadata.log");
+
+        CacheMetadataStore store = new CacheMetadataStore(file);
+        store.put("hash", "d41d8cd98f00b204e9800998ecf8427e");
+        store.put("expiration", 1234L);
+        store.put("removed", "value");
+        store.remove("removed");
+        Checks.check(Files.readAllLines(file, StandardCharsets.UTF_8).size() == 4, "each change appended one record");
+
+        // Simulate a crash part way through writing a record
+        Files.write(file, "{\"key\":\"torn\",\"val".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        store = new CacheMetadataStore(file);
+        Checks.check("d41d8cd98f00b204e9800998ecf8427e".equals(store.get("hash").getAsString()), "string value survived reopening");
+        Checks.check(store.get("expiration").getAsLong() == 1234L, "number value survived reopening");
+        Checks.check(store.get("removed") == null && store.get("torn") == null, "removed and torn records are absent");
+        Checks.check(Files.readAllLines(file, StandardCharsets.UTF_8).size() == 2, "torn record was compacted away");
+
+        for (int i = 0; i < 5000; i++)
+            store.put("expiration", i);
+        Checks.check(Files.readAllLines(file, StandardCharsets.UTF_8).size() < 5000, "log was compacted while writing");
+        store = new CacheMetadataStore(file);
+        Checks.check(store.get("expiration").getAsLong() == 4999L, "last value survived compaction");
+        Checks.check(!Files.exists(file.resolveSibling(file.getFileName() + ".tmp")), "no temporary file was left behind");
+
+        store.put("entry", "hash");
+        store.put("entry.etag", "\"v1\"");
+        store.put("entry.lastAccess", 1234L);
+        store.put("entry-other", "kept");
+        store.put("entryx.etag", "kept");
+        store.removeWithPrefix("entry");
+        Checks.check(store.get("entry") == null && store.get("entry.etag") == null && store.get("entry.lastAccess") == null, "key and its suffixed keys were removed");
+        Checks.check(store.get("entry-other") != null && store.get("entryx.etag") != null && store.get("expiration") != null, "keys that only share the start of the name were kept");
+
+        Checks.finish();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.ocelot.modelanima;
+
+import io.github.ocelot.modelanima.core.client.util.CacheMetadataStore;
+import io.github.ocelot.modelanima.core.client.util.CacheSweeper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the cache sweeper evicts empty, expired and least recently used files, deletes abandoned temporary files and leaves everything else alone. Folders swept together share one size limit and retained entries are never evicted.
+ */
+public class CacheSweeperTest
+{
+    private static final String OLD = "00000000000000000000000000000001";
+    private static final String RECENT = "00000000000000000000000000000002";
+    private static final String STALE = "00000000000000000000000000000003";
+    private static final String EMPTY = "00000000000000000000000000000004";
+    private static final String NEWEST = "00000000000000000000000000000005";
+
+    public static void main(String[] args) throws Exception
+    {
+        Path folder = Files.createTempDirectory("modelanima-sweep");
+        CacheMetadataStore metadata = new CacheMetadataStore(folder.resolve("metadata.log"));
+        long now = System.currentTimeMillis();
+
+        write(folder, OLD, 100, now - TimeUnit.HOURS.toMillis(3));
+        write(folder, RECENT, 100, now - TimeUnit.HOURS.toMillis(2));
+        write(folder, STALE, 100, now);
+        write(folder, EMPTY, 0, now);
+        write(folder, NEWEST, 100, now);
+        Files.createDirectories(folder.resolve("compiled"));
+        Files.write(folder.resolve("compiled").resolve("atlas.png"), new byte[1000]);
+        write(folder, "interrupted" + CacheSweeper.TEMP_SUFFIX, 100, now - TimeUnit.HOURS.toMillis(2));
+        write(folder, "downloading" + CacheSweeper.TEMP_SUFFIX, 100, now);
+
+        // Access times in metadata take priority over the file times
+        metadata.put(STALE + CacheSweeper.LAST_ACCESS_SUFFIX, now - TimeUnit.DAYS.toMillis(40));
+        metadata.put(NEWEST + CacheSweeper.LAST_ACCESS_SUFFIX, now);
+        metadata.put(OLD, "hash");
+        metadata.put(OLD + ".etag", "\"v1\"");
+
+        CacheSweeper.Result result = CacheSweeper.sweep(folder, metadata, 200, TimeUnit.DAYS.toMillis(30));
+        Checks.check(!Files.exists(folder.resolve(STALE)), "file unused for longer than the max age was evicted");
+        Checks.check(!Files.exists(folder.resolve(EMPTY)), "empty placeholder was evicted");
+        Checks.check(!Files.exists(folder.resolve(OLD)), "least recently used file was evicted to fit the size limit");
+        Checks.check(Files.exists(folder.resolve(RECENT)) && Files.exists(folder.resolve(NEWEST)), "recently used files were kept");
+        Checks.check(Files.exists(folder.resolve("metadata.log")) && Files.exists(folder.resolve("compiled").resolve("atlas.png")), "files that are not entries were kept");
+        Checks.check(!Files.exists(folder.resolve("interrupted" + CacheSweeper.TEMP_SUFFIX)), "temporary file left by an interrupted download was deleted");
+        Checks.check(Files.exists(folder.resolve("downloading" + CacheSweeper.TEMP_SUFFIX)), "temporary file of a download in progress was kept");
+        Checks.check(metadata.get(OLD) == null && metadata.get(OLD + ".etag") == null, "metadata of evicted files was removed");
+        Checks.check(result.getEvictedFiles() == 3 && result.getEvictedBytes() == 200, "evicted 3 files and 200 bytes, got " + result.getEvictedFiles() + " and " + result.getEvictedBytes());
+        Checks.check(result.getFiles() == 2 && result.getBytes() == 200, "2 files and 200 bytes remain, got " + result.getFiles() + " and " + result.getBytes());
+
+        Path objects = Files.createDirectories(folder.resolve("objects"));
+        Path legacy = Files.createDirectories(folder.resolve("legacy"));
+        CacheMetadataStore sharedMetadata = new CacheMetadataStore(folder.resolve("shared.log"));
+        write(objects, OLD, 100, now - TimeUnit.HOURS.toMillis(3));
+        write(objects, NEWEST, 100, now);
+        write(legacy, RECENT, 100, now - TimeUnit.HOURS.toMillis(2));
+        CacheSweeper.Result shared = CacheSweeper.sweep(sharedMetadata, 150, TimeUnit.DAYS.toMillis(30), Collections.singleton(OLD), objects, legacy);
+        Checks.check(Files.exists(objects.resolve(OLD)), "retained file was kept even though it was the least recently used");
+        Checks.check(!Files.exists(legacy.resolve(RECENT)) && !Files.exists(objects.resolve(NEWEST)), "files in both folders were evicted to fit the shared size limit");
+        Checks.check(shared.getFiles() == 1 && shared.getBytes() == 100, "1 file and 100 bytes remain across both folders, got " + shared.getFiles() + " and " + shared.getBytes());
+
+        Checks.finish();
+    }
+
+    private static void write(Path folder, String name, int size, long lastModified) throws Exception
+    {
+        Path file = folder.resolve(name);
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+}
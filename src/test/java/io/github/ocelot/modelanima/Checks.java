@@ -0,0 +1,36 @@
+package io.github.ocelot.modelanima;
+
+/**
+ * Collects the results of the checks made by a test and reports them when the test finishes.
+ */
+public final class Checks
+{
+    private static int failures;
+
+    private Checks()
+    {
+    }
+
+    /**
+     * Prints the result of a single check.
+     *
+     * @param condition Whether the check passed
+     * @param message   A description of what was checked
+     */
+    public static void check(boolean condition, String message)
+    {
+        System.out.println((condition ? "OK   " : "FAIL ") + message);
+        if (!condition)
+            failures++;
+    }
+
+    /**
+     * Prints how many checks failed and exits with an error if any did.
+     */
+    public static void finish()
+    {
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        if (failures > 0)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.ocelot.modelanima;
+
+import com.mojang.math.Vector3f;
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.core.client.geometry.BedrockGeometryModel;
+import io.github.ocelot.modelanima.core.common.animation.KeyFrameCompressor;
+import io.github.ocelot.modelanima.core.common.util.MolangConstantPool;
+import io.github.ocelot.molangcompiler.api.MolangCompiler;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
+import io.github.ocelot.molangcompiler.api.MolangRuntime;
+
+/**
+ * Checks compressed channels sample the same as the frames they were made from, and that channels the compressor cannot reproduce are left alone. Channels are sampled the same way the model applies them.
+ */
+public class KeyFrameCompressorTest
+{
+    // Matches the tolerance used by the compressor
+    private static final float TOLERANCE = 1.0F / 256.0F;
+    private static final float QUANTIZATION_ERROR = 0.5F / 1024.0F;
+    private static final MolangRuntime RUNTIME = MolangRuntime.runtime().create(0);
+    private static final Vector3f RESULT = new Vector3f();
+    private static final float[] TIMES = {0.0F, 0.25F, 0.5F, 0.75F, 1.0F, 1.25F, 1.5F, 1.75F, 2.0F, 2.5F, 3.0F};
+    private static final float[] VALUES = {0.0F, 2.5F, 5.0F, 7.5F, 10.0F, 9.0F, 8.0F, 7.0F, 6.0F, 6.001F, 6.0F};
+
+    public static void main(String[] args) throws Exception
+    {
+        AnimationData.KeyFrame[] frames = createFrames(AnimationData.LerpMode.LINEAR);
+        AnimationData.KeyFrame[] compressed = KeyFrameCompressor.compress(frames);
+        Checks.check(compressed.length < frames.length, "linear channel was compressed from " + frames.length + " to " + compressed.length + " frames");
+
+        float maxError = 0;
+        for (float time = -0.1F; time <= 3.5F; time += 1.0F / 64.0F)
+            maxError = Math.max(maxError, Math.abs(sample(compressed, time) - sample(frames, time)));
+        float maxSourceError = 0;
+        for (int i = 0; i < TIMES.length; i++)
+            maxSourceError = Math.max(maxSourceError, Math.abs(sample(frames, TIMES[i]) - VALUES[i]));
+        Checks.check(maxError <= TOLERANCE + QUANTIZATION_ERROR, "compressed channel sampled within " + (TOLERANCE + QUANTIZATION_ERROR) + " of the original, got " + maxError);
+        Checks.check(maxSourceError <= 1.0E-5F, "uncompressed channel sampled the source values, got an error of " + maxSourceError);
+
+        AnimationData.KeyFrame[] catmullRom = createFrames(AnimationData.LerpMode.CATMULLROM);
+        Checks.check(KeyFrameCompressor.compress(catmullRom) == catmullRom, "catmullrom channel was left untouched");
+
+        AnimationData.KeyFrame[] expression = createFrames(AnimationData.LerpMode.LINEAR);
+        MolangExpression sin = MolangCompiler.compile("math.sin(query.anim_time * 90)");
+        expression[2] = new AnimationData.KeyFrame(TIMES[2], AnimationData.LerpMode.LINEAR, sin, sin, sin, sin, sin, sin);
+        Checks.check(KeyFrameCompressor.compress(expression) == expression, "channel with a non-constant frame was left untouched");
+
+        Checks.check(MolangConstantPool.of(0.5F) == MolangConstantPool.of(0.5F), "identical constants shared one expression");
+        Checks.check(MolangConstantPool.getValue(MolangConstantPool.of(0.50001F)) == 0.50001F, "pooled constants kept their exact value");
+        Checks.check(MolangConstantPool.quantized(0.5F) == MolangConstantPool.quantized(0.50001F), "nearly identical quantized constants shared one expression");
+        Checks.check(MolangConstantPool.getValue(sin) == null, "non-constant expression has no pooled value");
+
+        Checks.finish();
+    }
+
+    private static AnimationData.KeyFrame[] createFrames(AnimationData.LerpMode lerpMode)
+    {
+        AnimationData.KeyFrame[] frames = new AnimationData.KeyFrame[TIMES.length];
+        for (int i = 0; i < frames.length; i++)
+        {
+            MolangExpression value = MolangConstantPool.of(VALUES[i]);
+            frames[i] = new AnimationData.KeyFrame(TIMES[i], lerpMode, value, value, value, value, value, value);
+        }
+        return frames;
+    }
+
+    // Samples the x axis of a channel with the model's own sampler
+    private static float sample(AnimationData.KeyFrame[] frames, float time)
+    {
+        RESULT.set(0, 0, 0);
+        BedrockGeometryModel.get(time, RUNTIME, frames, RESULT);
+        return RESULT.x();
+    }
+}
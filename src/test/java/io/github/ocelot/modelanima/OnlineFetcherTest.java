@@ -0,0 +1,225 @@
+package io.github.ocelot.modelanima;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ocelot.modelanima.api.client.FileCache;
+import io.github.ocelot.modelanima.core.client.util.OnlineFetcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches from a local stand-in server to check requests are deduplicated per cache, connections are reused, conditional requests are honoured and timeouts are reported.
+ */
+public class OnlineFetcherTest
+{
+    private static final int TEXTURES = 20;
+    private static final int DUPLICATES = 4;
+    private static final int MAX_CONNECTIONS_PER_HOST = 2;
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private static final Map<String, AtomicInteger> HITS = new ConcurrentHashMap<>();
+    private static final Set<Integer> CONNECTIONS = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+    private static final FileCache CACHE = (url, ignoreMissing) -> null;
+    private static final FileCache OTHER_CACHE = (url, ignoreMissing) -> null;
+
+    public static void main(String[] args) throws Exception
+    {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", OnlineFetcherTest::handle);
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        String host = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        Path folder = Files.createTempDirectory("modelanima-fetch");
+        try (OnlineFetcher fetcher = new OnlineFetcher(8, MAX_CONNECTIONS_PER_HOST, 500, 2000))
+        {
+            List<CompletableFuture<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < TEXTURES * DUPLICATES; i++)
+            {
+                String url = host + "/texture/" + (i % TEXTURES);
+                futures.add(fetcher.request(CACHE, url, () -> download(fetcher, url, folder), fetcher.getExecutor()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            Checks.check(futures.stream().allMatch(future -> future.join() != null), "every request produced a file");
+            Checks.check(HITS.size() == TEXTURES && HITS.values().stream().allMatch(hits -> hits.get() == 1), "each texture was downloaded once, got " + HITS);
+            Checks.check(MAX_ACTIVE.get() <= MAX_CONNECTIONS_PER_HOST, "at most " + MAX_CONNECTIONS_PER_HOST + " requests ran at once, got " + MAX_ACTIVE.get());
+            Checks.check(CONNECTIONS.size() <= MAX_CONNECTIONS_PER_HOST, "at most " + MAX_CONNECTIONS_PER_HOST + " connections were opened, got " + CONNECTIONS.size());
+
+            String sharedUrl = host + "/texture/shared";
+            CompletableFuture.allOf(
+                    fetcher.request(CACHE, sharedUrl, () -> download(fetcher, sharedUrl, folder), fetcher.getExecutor()),
+                    fetcher.request(CACHE, sharedUrl, () -> download(fetcher, sharedUrl, folder), fetcher.getExecutor()),
+                    fetcher.request(OTHER_CACHE, sharedUrl, () -> download(fetcher, sharedUrl, folder), fetcher.getExecutor())).join();
+            Checks.check(HITS.get("/texture/shared").get() == 2, "requests from different caches were not joined, got " + HITS.get("/texture/shared") + " downloads");
+
+            // Each reload asks the uploader's long-lived cache again while the previous reload may still be downloading
+            String reloadUrl = host + "/texture/reload";
+            FileCache uploaderCache = (url, ignoreMissing) -> fetcher.request(CACHE, url, () -> download(fetcher, url, folder), fetcher.getExecutor());
+            CompletableFuture<Path> firstReload = uploaderCache.requestResource(reloadUrl, false);
+            CompletableFuture<Path> secondReload = uploaderCache.requestResource(reloadUrl, false);
+            CompletableFuture.allOf(firstReload, secondReload).join();
+            Checks.check(firstReload.join() != null && firstReload.join().equals(secondReload.join()), "consecutive reloads got the same file");
+            Checks.check(HITS.get("/texture/reload").get() == 1, "consecutive reloads shared one download, got " + HITS.get("/texture/reload") + " downloads");
+
+            try (InputStream ignored = fetcher.open(host + "/missing"))
+            {
+                Checks.check(false, "missing resource threw");
+            }
+            catch (IOException e)
+            {
+                Checks.check(e.getMessage().contains("404"), "missing resource reported 404, got '" + e.getMessage() + "'");
+            }
+
+            try (OnlineFetcher.Response response = fetcher.open(host + "/etag", null, null))
+            {
+                Checks.check(!response.isNotModified() && "\"v1\"".equals(response.getETag()) && LAST_MODIFIED.equals(response.getLastModified()), "unconditional request returned the body and validators");
+                readFully(response.getStream());
+            }
+            try (OnlineFetcher.Response response = fetcher.open(host + "/etag", "\"v1\"", null))
+            {
+                Checks.check(response.isNotModified() && "\"v1\"".equals(response.getETag()), "matching ETag returned 304 Not Modified");
+            }
+            try (OnlineFetcher.Response response = fetcher.open(host + "/etag", null, LAST_MODIFIED))
+            {
+                Checks.check(response.isNotModified() && LAST_MODIFIED.equals(response.getLastModified()), "matching Last-Modified returned 304 Not Modified");
+            }
+            try (OnlineFetcher.Response response = fetcher.open(host + "/etag", "\"v0\"", null))
+            {
+                Checks.check(!response.isNotModified(), "stale ETag returned the body");
+                readFully(response.getStream());
+            }
+
+            List<InputStream> leaked = new ArrayList<>();
+            for (int i = 0; i < MAX_CONNECTIONS_PER_HOST; i++)
+                leaked.add(fetcher.open(host + "/etag"));
+            try (InputStream ignored = fetcher.open(host + "/etag"))
+            {
+                Checks.check(false, "request behind unclosed streams timed out");
+            }
+            catch (IOException e)
+            {
+                Checks.check(e.getMessage() != null && e.getMessage().contains("free connection"), "request behind unclosed streams reported a timeout, got '" + e + "'");
+            }
+            for (InputStream stream : leaked)
+                stream.close();
+
+            try (InputStream stream = fetcher.open(host + "/slow"))
+            {
+                readFully(stream);
+                Checks.check(false, "slow resource timed out");
+            }
+            catch (IOException e)
+            {
+                Checks.check(e.getMessage() != null && e.getMessage().contains("Timed out"), "slow resource reported a timeout, got '" + e + "'");
+            }
+        }
+        finally
+        {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+
+        Checks.finish();
+    }
+
+    private static Path download(OnlineFetcher fetcher, String url, Path folder)
+    {
+        try (InputStream stream = fetcher.open(url))
+        {
+            Path file = folder.resolve(url.substring(url.lastIndexOf('/') + 1));
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        }
+        catch (IOException e)
+        {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException
+    {
+        String path = exchange.getRequestURI().getPath();
+        CONNECTIONS.add(exchange.getRemoteAddress().getPort());
+        MAX_ACTIVE.accumulateAndGet(ACTIVE.incrementAndGet(), Math::max);
+        try
+        {
+            readFully(exchange.getRequestBody());
+            if (path.startsWith("/texture/"))
+            {
+                HITS.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+                sleep(50);
+                respond(exchange, 200, path.getBytes(StandardCharsets.UTF_8));
+            }
+            else if ("/etag".equals(path))
+            {
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match")) || LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since")))
+                {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                }
+                else
+                {
+                    respond(exchange, 200, path.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            else if ("/slow".equals(path))
+            {
+                sleep(2000);
+                respond(exchange, 200, new byte[0]);
+            }
+            else
+            {
+                respond(exchange, 404, "Not Found".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        finally
+        {
+            ACTIVE.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException
+    {
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream os = exchange.getResponseBody())
+        {
+            os.write(body);
+        }
+    }
+
+    private static void readFully(InputStream stream) throws IOException
+    {
+        byte[] buffer = new byte[1024];
+        while (stream.read(buffer) != -1)
+        {
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.ocelot.modelanima;
+
+import com.google.gson.JsonParser;
+import io.github.ocelot.modelanima.api.common.animation.AnimationData;
+import io.github.ocelot.modelanima.api.common.animation.AnimationParser;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
+import io.github.ocelot.molangcompiler.api.MolangExpression;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Parses every test model and animation with both the streaming and tree parsers and checks they produce the same data field by field. Malformed input must be rejected by both.
+ */
+public class ParserTest
+{
+    private static final String GEOMETRY = "{\"format_version\":\"1.12.0\",\"minecraft:geometry\":[{\"description\":{\"identifier\":\"geometry.test\",\"texture_width\":%s,\"texture_height\":64},\"bones\":[{\"name\":\"root\",\"pivot\":[0,0,0],\"cubes\":[{\"origin\":%s,\"size\":[1,1,1],\"uv\":[0,0],\"inflate\":%s}]}]}]}";
+    private static final String ANIMATION = "{\"format_version\":\"1.8.0\",\"animations\":{\"animation.test\":{\"animation_length\":%s,\"override_previous_animation\":false,\"bones\":{\"root\":{\"rotation\":[0,0,0]}}}}}";
+    private static final String POLY_MESH = "{\"format_version\":\"1.12.0\",\"minecraft:geometry\":[{\"description\":{\"identifier\":\"geometry.test\",\"texture_width\":64,\"texture_height\":64},\"bones\":[{\"name\":\"root\",\"pivot\":[0,0,0],\"poly_mesh\":{\"normalized_uvs\":false,\"positions\":[%s],\"normals\":[[0,1,0]],\"uvs\":[[0,0]],\"polys\":[[[0,0,0],[0,0,0],[0,0,0]]]}}]}]}";
+
+    public static void main(String[] args) throws IOException
+    {
+        Path assets = Paths.get(args.length > 0 ? args[0] : "src/test/resources/assets/examplemod");
+        int failures = 0;
+
+        try (Stream<Path> files = Files.list(assets.resolve("models/geometry")))
+        {
+            for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".json")).sorted()::iterator)
+                failures += checkGeometry(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8), true);
+        }
+
+        try (Stream<Path> files = Files.list(assets.resolve("animations")))
+        {
+            for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".json")).sorted()::iterator)
+                failures += checkAnimation(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8), true);
+        }
+
+        // Sanity check for the templates below, then inputs GsonHelper rejects
+        failures += checkGeometry("geometry template", String.format(GEOMETRY, "64", "[0,0,0]", "0"), true);
+        failures += checkGeometry("texture_width as a string", String.format(GEOMETRY, "\"64\"", "[0,0,0]", "0"), false);
+        failures += checkGeometry("inflate as a boolean", String.format(GEOMETRY, "64", "[0,0,0]", "true"), false);
+        failures += checkGeometry("origin element as a string", String.format(GEOMETRY, "64", "[\"0\",0,0]", "0"), false);
+        failures += checkGeometry("truncated geometry", String.format(GEOMETRY, "64", "[0,0,0]", "0").substring(0, 120), false);
+        failures += checkAnimation("animation template", String.format(ANIMATION, "1.5"), true);
+        failures += checkAnimation("animation_length as a string", String.format(ANIMATION, "\"1.5\""), false);
+        failures += checkAnimation("truncated animation", String.format(ANIMATION, "1.5").substring(0, 60), false);
+
+        // Poly mesh vertices are read with JsonElement#getAsFloat, which also takes strings
+        failures += checkGeometry("poly_mesh positions", String.format(POLY_MESH, "[0,1,2]"), true);
+        failures += checkGeometry("poly_mesh positions as strings", String.format(POLY_MESH, "[\"0\",\"1\",\"2\"]"), true);
+
+        System.out.println(failures == 0 ? "All files matched" : failures + " file(s) did not match");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static int checkGeometry(String name, String json, boolean valid)
+    {
+        return check(name, valid, () -> GeometryModelParser.parseModel(json), () -> GeometryModelParser.parseModel(new JsonParser().parse(json)));
+    }
+
+    private static int checkAnimation(String name, String json, boolean valid)
+    {
+        return check(name, valid, () -> sorted(AnimationParser.parse(json)), () -> sorted(AnimationParser.parse(new JsonParser().parse(json))));
+    }
+
+    // The tree deserializer stores animations and bones in hash sets, so order has to be normalized
+    private static AnimationData[] sorted(AnimationData[] animations)
+    {
+        AnimationData[] copy = animations.clone();
+        Arrays.sort(copy, Comparator.comparing(AnimationData::getName));
+        for (int i = 0; i < copy.length; i++)
+        {
+            AnimationData animation = copy[i];
+            AnimationData.BoneAnimation[] bones = animation.getBoneAnimations().clone();
+            Arrays.sort(bones, Comparator.comparing(AnimationData.BoneAnimation::getName));
+            copy[i] = new AnimationData(animation.getName(), animation.getLoop(), animation.getBlendWeight(), animation.getAnimationLength(), animation.isOverridePreviousAnimation(), bones, animation.getSoundEffects(), animation.getParticleEffects(), animation.getTimelineEffects());
+        }
+        return copy;
+    }
+
+    private static int check(String name, boolean valid, ThrowingSupplier stream, ThrowingSupplier tree)
+    {
+        Object streamResult;
+        Object treeResult;
+        Exception streamError = null;
+        Exception treeError = null;
+        try
+        {
+            streamResult = stream.get();
+        }
+        catch (Exception e)
+        {
+            streamResult = null;
+            streamError = e;
+        }
+        try
+        {
+            treeResult = tree.get();
+        }
+        catch (Exception e)
+        {
+            treeResult = null;
+            treeError = e;
+        }
+
+        String mismatch;
+        if (!valid)
+            mismatch = streamError == null || treeError == null ? "expected both parsers to fail, stream: " + describe(streamError) + ", tree: " + describe(treeError) : null;
+        else if (streamError != null || treeError != null)
+            mismatch = "expected both parsers to succeed, stream: " + describe(streamError) + ", tree: " + describe(treeError);
+        else
+            mismatch = compare("", streamResult, treeResult);
+
+        if (mismatch == null)
+        {
+            System.out.println("OK   " + name);
+            return 0;
+        }
+        System.out.println("FAIL " + name);
+        System.out.println("  " + mismatch);
+        return 1;
+    }
+
+    private static String describe(Exception e)
+    {
+        return e == null ? "ok" : e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    /**
+     * Walks both values field by field and returns the path of the first difference, or <code>null</code> if they are equal.
+     */
+    private static String compare(String path, Object stream, Object tree)
+    {
+        if (stream == tree)
+            return null;
+        if (stream == null || tree == null || stream.getClass() != tree.getClass())
+            return path + ": stream " + stream + ", tree " + tree;
+
+        Class<?> type = stream.getClass();
+        if (stream instanceof MolangExpression)
+            return Objects.equals(stream.toString(), tree.toString()) ? null : path + ": stream " + stream + ", tree " + tree;
+        if (type.isPrimitive() || type.isEnum() || stream instanceof Number || stream instanceof Boolean || stream instanceof Character || stream instanceof String)
+            return stream.equals(tree) ? null : path + ": stream " + stream + ", tree " + tree;
+
+        if (type.isArray())
+        {
+            int length = Array.getLength(stream);
+            if (length != Array.getLength(tree))
+                return path + ": stream length " + length + ", tree length " + Array.getLength(tree);
+            for (int i = 0; i < length; i++)
+            {
+                String mismatch = compare(path + "[" + i + "]", Array.get(stream, i), Array.get(tree, i));
+                if (mismatch != null)
+                    return mismatch;
+            }
+            return null;
+        }
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+        {
+            for (Field field : c.getDeclaredFields())
+            {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+                    continue;
+                try
+                {
+                    field.setAccessible(true);
+                    String mismatch = compare(path + "." + field.getName(), field.get(stream), field.get(tree));
+                    if (mismatch != null)
+                        return mismatch;
+                }
+                catch (IllegalAccessException e)
+                {
+                    return path + "." + field.getName() + ": " + e.getMessage();
+                }
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier
+    {
+        Object get() throws Exception;
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.ocelot.modelanima;
+
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+
+/**
+ * Records vertex output without a GL context by hashing every element and counting the bytes a real buffer would use.
+ * <p>Bones are stored in hash sets, so the order parts render in can change between runs. Each quad is hashed on its own and the quad hashes are summed, which keeps the checksum independent of that order.</p>
+ */
+public class RecordingVertexConsumer implements VertexConsumer
+{
+    // Positions and uvs are rounded so harmless floating point differences don't change the checksum
+    private static final float PRECISION = 10000.0F;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+    private static final int QUAD_VERTICES = 4;
+
+    private int checksum;
+    private int quadHash;
+    private int vertices;
+
+    public RecordingVertexConsumer()
+    {
+        this.reset();
+    }
+
+    private void hash(int value)
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            this.quadHash ^= (value >>> (i * 8)) & 0xFF;
+            this.quadHash *= FNV_PRIME;
+        }
+    }
+
+    private void hash(float value)
+    {
+        this.hash(Math.round(value * PRECISION));
+    }
+
+    @Override
+    public VertexConsumer vertex(double x, double y, double z)
+    {
+        this.hash((float) x);
+        this.hash((float) y);
+        this.hash((float) z);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha)
+    {
+        this.hash((red & 0xFF) << 24 | (green & 0xFF) << 16 | (blue & 0xFF) << 8 | (alpha & 0xFF));
+        return this;
+    }
+
+    @Override
+    public VertexConsumer uv(float u, float v)
+    {
+        this.hash(u);
+        this.hash(v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlayCoords(int u, int v)
+    {
+        this.hash(u);
+        this.hash(v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer uv2(int u, int v)
+    {
+        this.hash(u);
+        this.hash(v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z)
+    {
+        // Normals are stored as bytes, so compare them at that precision
+        this.hash((int) (x * 127.0F));
+        this.hash((int) (y * 127.0F));
+        this.hash((int) (z * 127.0F));
+        return this;
+    }
+
+    @Override
+    public void endVertex()
+    {
+        this.vertices++;
+        if (this.vertices % QUAD_VERTICES == 0)
+        {
+            this.checksum += this.quadHash;
+            this.quadHash = FNV_OFFSET;
+        }
+    }
+
+    /**
+     * Clears all recorded vertices.
+     */
+    public void reset()
+    {
+        this.checksum = 0;
+        this.quadHash = FNV_OFFSET;
+        this.vertices = 0;
+    }
+
+    /**
+     * @return A hash of every complete quad recorded so far
+     */
+    public int getChecksum()
+    {
+        return checksum;
+    }
+
+    /**
+     * @return The number of vertices recorded
+     */
+    public int getVertices()
+    {
+        return vertices;
+    }
+
+    /**
+     * @return The number of bytes the recorded vertices would take up in an entity buffer
+     */
+    public long getBytes()
+    {
+        return (long) this.vertices * DefaultVertexFormat.NEW_ENTITY.getVertexSize();
+    }
+}
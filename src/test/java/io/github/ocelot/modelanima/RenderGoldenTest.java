@@ -0,0 +1,80 @@
+package io.github.ocelot.modelanima;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Renders every test model headlessly through {@link io.github.ocelot.modelanima.api.client.geometry.GeometryModelRenderer} and compares the vertex output against the recorded golden checksums.
+ * <p>Run with <code>--update</code> to record new checksums after an intended change to the output.</p>
+ */
+public class RenderGoldenTest
+{
+    private static final Path GOLDEN_FILE = Paths.get("src/test/resources/golden/render.txt");
+
+    public static void main(String[] args) throws IOException
+    {
+        boolean update = Arrays.asList(args).contains("--update");
+
+        Map<String, String> results = new TreeMap<>();
+        RecordingVertexConsumer consumer = new RecordingVertexConsumer();
+        for (Map.Entry<String, GeometryModel> entry : RenderHarness.loadModels(RenderHarness.GEOMETRY_FOLDER).entrySet())
+        {
+            consumer.reset();
+            RenderHarness.render(entry.getValue(), new PoseStack(), consumer);
+            results.put(entry.getKey(), consumer.getVertices() + " " + consumer.getBytes() + " " + Integer.toHexString(consumer.getChecksum()));
+        }
+
+        if (update)
+        {
+            List<String> lines = new ArrayList<>();
+            results.forEach((name, result) -> lines.add(name + " " + result));
+            Files.createDirectories(GOLDEN_FILE.getParent());
+            Files.write(GOLDEN_FILE, lines, StandardCharsets.UTF_8);
+            System.out.println("Recorded " + lines.size() + " golden results to " + GOLDEN_FILE);
+            return;
+        }
+
+        if (!Files.exists(GOLDEN_FILE))
+        {
+            System.out.println("FAIL missing " + GOLDEN_FILE + ", run with --update to record it");
+            System.exit(1);
+        }
+
+        Map<String, String> golden = new TreeMap<>();
+        for (String line : Files.readAllLines(GOLDEN_FILE, StandardCharsets.UTF_8))
+        {
+            int split = line.indexOf(' ');
+            if (split != -1)
+                golden.put(line.substring(0, split), line.substring(split + 1));
+        }
+
+        int failures = 0;
+        Set<String> names = new TreeSet<>(golden.keySet());
+        names.addAll(results.keySet());
+        for (String name : names)
+        {
+            String expected = golden.get(name);
+            String actual = results.get(name);
+            if (Objects.equals(expected, actual))
+            {
+                System.out.println("OK   " + name);
+                continue;
+            }
+            System.out.println("FAIL " + name);
+            System.out.println("  expected: " + expected);
+            System.out.println("  actual:   " + actual);
+            failures++;
+        }
+
+        System.out.println(failures == 0 ? "All models matched" : failures + " model(s) did not match");
+        if (failures > 0)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.ocelot.modelanima;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import io.github.ocelot.modelanima.api.client.animation.AnimatedGeometryEntityModel;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModel;
+import io.github.ocelot.modelanima.api.client.geometry.GeometryModelRenderer;
+import io.github.ocelot.modelanima.api.client.texture.GeometryAtlasTexture;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelData;
+import io.github.ocelot.modelanima.api.common.geometry.GeometryModelParser;
+import io.github.ocelot.modelanima.api.common.texture.GeometryModelTexture;
+import io.github.ocelot.modelanima.api.common.texture.GeometryModelTextureTable;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.metadata.animation.AnimationMetadataSection;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Builds geometry models and renders them through {@link GeometryModelRenderer} without a GL context. Used by {@link RenderGoldenTest}, {@link AllocationTest} and the render benchmarks.
+ */
+public final class RenderHarness
+{
+    public static final Path GEOMETRY_FOLDER = Paths.get("src/test/resources/assets/examplemod/models/geometry");
+    // Block light 8 and sky light 4, so glowing layers are visibly different
+    private static final int PACKED_LIGHT = 8 << 4 | 4 << 20;
+    private static final HarnessAtlas ATLAS = new HarnessAtlas();
+    private static final SingleBufferSource BUFFER = new SingleBufferSource();
+    private static final Map<GeometryModel, GeometryModelTextureTable> TEXTURES = new IdentityHashMap<>();
+
+    private RenderHarness()
+    {
+    }
+
+    /**
+     * Loads every model in the specified folder.
+     *
+     * @param folder The folder to load models from
+     * @return All models by file name and identifier
+     */
+    public static Map<String, GeometryModel> loadModels(Path folder) throws IOException
+    {
+        Map<String, GeometryModel> models = new TreeMap<>();
+        try (Stream<Path> files = Files.list(folder))
+        {
+            for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".json")).sorted()::iterator)
+            {
+                GeometryModelData[] data = GeometryModelParser.parseModel(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                for (GeometryModelData model : data)
+                    models.put(file.getFileName() + "#" + model.getDescription().getIdentifier(), model.create());
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Creates a texture table that gives every material of the specified model a solid layer and a tinted glowing layer.
+     *
+     * @param model The model to create textures for
+     * @return The textures for the model
+     */
+    public static GeometryModelTextureTable createTextures(GeometryModel model)
+    {
+        Map<String, GeometryModelTexture[]> textures = new HashMap<>();
+        for (String material : model.getMaterialKeys())
+        {
+            textures.put(material, new GeometryModelTexture[]{
+                    GeometryModelTexture.texture().setTextureLocation(new ResourceLocation("examplemod", "entity/base")).setTextureLayer(GeometryModelTexture.TextureLayer.CUTOUT).build(),
+                    GeometryModelTexture.texture().setTextureLocation(new ResourceLocation("examplemod", "entity/glow")).setTextureLayer(GeometryModelTexture.TextureLayer.TRANSLUCENT).setColor(0x80C0FF).setGlowing(true).build()
+            });
+        }
+        return new GeometryModelTextureTable(textures);
+    }
+
+    /**
+     * Renders the specified model through {@link GeometryModelRenderer} with the textures from {@link #createTextures(GeometryModel)}. Every sprite covers the whole atlas, so uvs are passed through unchanged.
+     *
+     * @param model       The model to render
+     * @param matrixStack The current stack of transformations
+     * @param consumer    The consumer to render into
+     */
+    public static void render(GeometryModel model, PoseStack matrixStack, VertexConsumer consumer)
+    {
+        GeometryModelTextureTable textures = TEXTURES.get(model);
+        if (textures == null)
+        {
+            textures = createTextures(model);
+            TEXTURES.put(model, textures);
+        }
+
+        BUFFER.consumer = consumer;
+        GeometryModelRenderer.render(model, textures, matrixStack, BUFFER, ATLAS, PACKED_LIGHT, 0, 1.0F, 1.0F, 1.0F, 1.0F);
+        BUFFER.consumer = null;
+    }
+
+    /**
+     * Renders the specified entity model through {@link AnimatedGeometryEntityModel#render(PoseStack, MultiBufferSource, GeometryAtlasTexture, int, int, float, float, float, float)}, the same way {@link AnimatedGeometryEntityModel#renderToBuffer(PoseStack, VertexConsumer, int, int, float, float, float, float)} does in game.
+     *
+     * @param model       The model to render
+     * @param matrixStack The current stack of transformations
+     * @param consumer    The consumer to render into
+     */
+    public static void render(AnimatedGeometryEntityModel<?> model, PoseStack matrixStack, VertexConsumer consumer)
+    {
+        BUFFER.consumer = consumer;
+        model.render(matrixStack, BUFFER, ATLAS, PACKED_LIGHT, 0, 1.0F, 1.0F, 1.0F, 1.0F);
+        BUFFER.consumer = null;
+    }
+
+    private static class SingleBufferSource implements MultiBufferSource
+    {
+        private VertexConsumer consumer;
+
+        @Override
+        public VertexConsumer getBuffer(RenderType renderType)
+        {
+            return this.consumer;
+        }
+    }
+
+    private static class HarnessAtlas implements GeometryAtlasTexture
+    {
+        private static final ResourceLocation LOCATION = new ResourceLocation("examplemod", "textures/atlas/harness.png");
+        private static final int SIZE = 16;
+
+        private final TextureAtlasSprite sprite;
+
+        private HarnessAtlas()
+        {
+            TextureAtlasSprite.Info info = new TextureAtlasSprite.Info(new ResourceLocation("examplemod", "harness"), SIZE, SIZE, AnimationMetadataSection.EMPTY);
+            this.sprite = new TextureAtlasSprite(new TextureAtlas(LOCATION), info, 0, SIZE, SIZE, 0, 0, new NativeImage(SIZE, SIZE, false))
+            {
+            };
+        }
+
+        @Override
+        public ResourceLocation getAtlasLocation()
+        {
+            return LOCATION;
+        }
+
+        @Override
+        public TextureAtlasSprite getSprite(ResourceLocation location)
+        {
+            return this.sprite;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.ocelot.modelanima;
+
+import io.github.ocelot.modelanima.core.client.util.UncompressedPngWriter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Checks uncompressed PNGs decode to the exact pixels written, including images larger than a single stored deflate block.
+ */
+public class UncompressedPngWriterTest
+{
+    public static void main(String[] args) throws Exception
+    {
+        checkRoundTrip(1, 1);
+        checkRoundTrip(16, 16);
+        checkRoundTrip(300, 200);
+
+        boolean rejected = false;
+        try
+        {
+            UncompressedPngWriter.write(new ByteArrayOutputStream(), 2, 2, new byte[4]);
+        }
+        catch (IllegalArgumentException e)
+        {
+            rejected = true;
+        }
+        Checks.check(rejected, "pixel data of the wrong size is rejected");
+
+        Checks.finish();
+    }
+
+    private static void checkRoundTrip(int width, int height) throws Exception
+    {
+        byte[] rgba = new byte[width * height * 4];
+        new Random(width * 31L + height).nextBytes(rgba);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        UncompressedPngWriter.write(os, width, height, rgba);
+        Checks.check(os.size() > rgba.length, width + "x" + height + " image was stored without compression");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+        Checks.check(image != null && image.getWidth() == width && image.getHeight() == height, width + "x" + height + " image decoded with the right size");
+        if (image == null)
+            return;
+
+        boolean matches = true;
+        for (int y = 0; y < height && matches; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int i = (x + y * width) * 4;
+                int expected = (rgba[i + 3] & 0xFF) << 24 | (rgba[i] & 0xFF) << 16 | (rgba[i + 1] & 0xFF) << 8 | rgba[i + 2] & 0xFF;
+                if (image.getRGB(x, y) != expected)
+                {
+                    matches = false;
+                    break;
+                }
+            }
+        }
+        Checks.check(matches, width + "x" + height + " image decoded to the written pixels");
+    }
+}